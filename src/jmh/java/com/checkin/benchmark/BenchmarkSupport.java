@@ -0,0 +1,62 @@
+package com.checkin.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.checkin.entity.CheckinRecord;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试公共工具：合成打卡历史、关闭业务日志
+ */
+final class BenchmarkSupport {
+
+    // 合成历史的截止日期固定，保证每次运行的数据完全一致
+    static final LocalDate TODAY = LocalDate.of(2025, 12, 20);
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 生成按时间升序的打卡历史：从今天往前倒推，约85%的日期有打卡，最近7天连续打卡
+     * @param userId 用户ID
+     * @param count 记录条数
+     * @return 打卡记录
+     */
+    static List<CheckinRecord> history(long userId, int count) {
+        Random random = new Random(userId * 31 + count);
+        List<CheckinRecord> records = new ArrayList<>(count);
+        LocalDate date = TODAY;
+        while (records.size() < count) {
+            if (TODAY.toEpochDay() - date.toEpochDay() < 7 || random.nextInt(100) < 85) {
+                CheckinRecord record = new CheckinRecord();
+                record.setId((long) count - records.size());
+                record.setUserId(userId);
+                record.setCheckinTime(date.atTime(7 + random.nextInt(3), random.nextInt(60), random.nextInt(60)));
+                record.setCheckinDate(date);
+                record.setLocation("教学楼A");
+                record.setStatus(1);
+                record.setIsReissue(0);
+                records.add(record);
+            }
+            date = date.minusDays(1);
+        }
+        // 倒推生成，翻转为升序（与数据库按checkin_time升序读取一致）
+        List<CheckinRecord> ascending = new ArrayList<>(count);
+        for (int i = records.size() - 1; i >= 0; i--) {
+            ascending.add(records.get(i));
+        }
+        return ascending;
+    }
+
+    /**
+     * 业务代码每次调用都会打INFO日志，基准中只测业务逻辑本身
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
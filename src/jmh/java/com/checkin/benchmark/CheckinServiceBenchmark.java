@@ -0,0 +1,126 @@
+package com.checkin.benchmark;
+
+import com.checkin.cache.UserDirectory;
+import com.checkin.common.Result;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.geofence.Geofence;
+import com.checkin.geofence.GeofenceRegistry;
+import com.checkin.service.CheckinCalendarService;
+import com.checkin.service.impl.CheckinRecordServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡服务中不依赖数据库的热点方法：月度统计（打卡日历已命中）、打卡地点校验
+ * 打卡日历用内存桩替代Redis，只测服务本身的计算与结果组装
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckinServiceBenchmark {
+
+    private static final long USER_ID = 1L;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int records;
+
+    private CheckinRecordServiceImpl service;
+    private int year;
+    private int month;
+
+    @Setup
+    public void setup() {
+        BenchmarkSupport.quietLogging();
+
+        UserDirectory userDirectory = new UserDirectory();
+        userDirectory.put(USER_ID, "benchmark_user", 0);
+
+        service = new CheckinRecordServiceImpl();
+        ReflectionTestUtils.setField(service, "userDirectory", userDirectory);
+        ReflectionTestUtils.setField(service, "checkinCalendarService", new InMemoryCalendar(records));
+        GeofenceRegistry geofenceRegistry = new GeofenceRegistry();
+        ReflectionTestUtils.setField(geofenceRegistry, "cellSizeDegrees", 0.01);
+        geofenceRegistry.replace(List.of(Geofence.box(0, "默认打卡区域", 22.0, 24.0, 112.0, 115.0)));
+        ReflectionTestUtils.setField(service, "geofenceRegistry", geofenceRegistry);
+        year = BenchmarkSupport.TODAY.getYear();
+        month = BenchmarkSupport.TODAY.getMonthValue();
+    }
+
+    @Benchmark
+    public Result<?> monthlyCheckinStats() {
+        return service.getMonthlyCheckinStats(USER_ID, year, month, false);
+    }
+
+    @Benchmark
+    public Result<?> validateLocationInside() {
+        return service.validateCheckinLocation(23.1, 113.3);
+    }
+
+    // 不在任何区域内
+    @Benchmark
+    public Result<?> validateLocationOutside() {
+        return service.validateCheckinLocation(30.5, 120.2);
+    }
+
+    /**
+     * 打卡日历内存桩：按合成历史预先计算本月位掩码
+     */
+    private static final class InMemoryCalendar implements CheckinCalendarService {
+        private final int mask;
+
+        private InMemoryCalendar(int records) {
+            YearMonth current = YearMonth.from(BenchmarkSupport.TODAY);
+            int bits = 0;
+            for (CheckinRecord record : BenchmarkSupport.history(USER_ID, records)) {
+                LocalDate date = record.getCheckinTime().toLocalDate();
+                if (YearMonth.from(date).equals(current)) {
+                    bits |= 1 << (date.getDayOfMonth() - 1);
+                }
+            }
+            this.mask = bits;
+        }
+
+        @Override
+        public void markCheckin(Long userId, LocalDate date) {
+        }
+
+        @Override
+        public boolean isCheckedIn(Long userId, LocalDate date) {
+            return (mask & (1 << (date.getDayOfMonth() - 1))) != 0;
+        }
+
+        @Override
+        public int getMonthMask(Long userId, YearMonth month) {
+            return mask;
+        }
+
+        @Override
+        public int countMonth(Long userId, YearMonth month) {
+            return Integer.bitCount(mask);
+        }
+
+        @Override
+        public Map<String, Object> getYearHeatmap(Long userId, int year) {
+            return Map.of();
+        }
+    }
+}
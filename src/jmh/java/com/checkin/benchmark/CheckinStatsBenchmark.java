@@ -0,0 +1,97 @@
+package com.checkin.benchmark;
+
+import com.checkin.entity.CheckinRecord;
+import com.checkin.entity.CheckinSummary;
+import com.checkin.utils.CheckinDays;
+import com.checkin.utils.CheckinStreakUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连续天数、累计天数等统计的计算耗时
+ * getContinuousCheckinDays/getCheckinStats读取打卡汇总：汇总缺失时从全部历史重建（rebuild），
+ * 之后每次打卡增量合并（applyCheckin）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckinStatsBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int records;
+
+    private List<CheckinRecord> history;
+    private List<LocalDate> dates;
+    private CheckinSummary yesterdaySummary;
+
+    @Setup
+    public void setup() {
+        history = BenchmarkSupport.history(1L, records);
+        dates = new ArrayList<>(history.size());
+        for (CheckinRecord record : history) {
+            dates.add(record.getCheckinTime().toLocalDate());
+        }
+        // 截止到昨天的汇总，用于测量"今天打卡"的增量合并
+        yesterdaySummary = CheckinStreakUtils.rebuild(1L, dates.subList(0, dates.size() - 1), BenchmarkSupport.TODAY);
+    }
+
+    // 冷路径：逐行收集打卡日期为epochDay数组 + 一次扫描重建（与汇总服务从数据库重建时的计算一致）
+    @Benchmark
+    public CheckinSummary rebuildFromCheckinDays() {
+        CheckinDays.Collector collector = CheckinDays.collector();
+        for (LocalDate date : dates) {
+            collector.add(date);
+        }
+        return CheckinStreakUtils.rebuild(1L, collector.build(), BenchmarkSupport.TODAY);
+    }
+
+    // 对照：记录转LocalDate列表后重建
+    @Benchmark
+    public CheckinSummary rebuildFromRecords() {
+        List<LocalDate> days = new ArrayList<>(history.size());
+        for (CheckinRecord record : history) {
+            days.add(record.getCheckinTime().toLocalDate());
+        }
+        return CheckinStreakUtils.rebuild(1L, days, BenchmarkSupport.TODAY);
+    }
+
+    // 热路径：今天打卡后增量合并，与历史长度无关
+    @Benchmark
+    public int applyTodayCheckin() {
+        CheckinSummary summary = copy(yesterdaySummary);
+        CheckinStreakUtils.applyCheckin(summary, BenchmarkSupport.TODAY);
+        return CheckinStreakUtils.effectiveStreak(summary, BenchmarkSupport.TODAY);
+    }
+
+    private static CheckinSummary copy(CheckinSummary source) {
+        CheckinSummary summary = new CheckinSummary();
+        summary.setUserId(source.getUserId());
+        summary.setCurrentStreak(source.getCurrentStreak());
+        summary.setStreakStartDate(source.getStreakStartDate());
+        summary.setLastCheckinDate(source.getLastCheckinDate());
+        summary.setLongestStreak(source.getLongestStreak());
+        summary.setTotalDays(source.getTotalDays());
+        summary.setStatMonth(source.getStatMonth());
+        summary.setMonthDays(source.getMonthDays());
+        summary.setPrevStreak(source.getPrevStreak());
+        summary.setPrevStreakEndDate(source.getPrevStreakEndDate());
+        return summary;
+    }
+}
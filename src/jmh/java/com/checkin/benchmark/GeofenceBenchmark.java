@@ -0,0 +1,103 @@
+package com.checkin.benchmark;
+
+import com.checkin.geofence.Geofence;
+import com.checkin.geofence.GeofenceIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡区域匹配：在若干校园内随机分布的多边形/圆形区域中查询一个点
+ * 对比网格索引与逐个判断全部区域
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"10", "1000", "10000"})
+    private int fences;
+
+    private GeofenceIndex index;
+    private List<Geofence> all;
+    private double[] lats;
+    private double[] lngs;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        all = new ArrayList<>(fences);
+        // 每个区域内部的一个点
+        double[] insideLats = new double[fences];
+        double[] insideLngs = new double[fences];
+        for (int i = 0; i < fences; i++) {
+            // 区域分布在约50公里见方的范围内，大小50~300米
+            double lat = 23.0 + random.nextDouble() * 0.5;
+            double lng = 113.0 + random.nextDouble() * 0.5;
+            double size = 0.0005 + random.nextDouble() * 0.0025;
+            if (i % 2 == 0) {
+                all.add(Geofence.circle(i + 1, "圆形区域" + i, lat, lng, size * 111_320));
+                insideLats[i] = lat;
+                insideLngs[i] = lng;
+            } else {
+                all.add(Geofence.polygon(i + 1, "多边形区域" + i,
+                        new double[]{lat, lat, lat + size, lat + size},
+                        new double[]{lng, lng + size, lng + size, lng}));
+                insideLats[i] = lat + size / 2;
+                insideLngs[i] = lng + size / 2;
+            }
+        }
+        index = GeofenceIndex.build(all, 0.01);
+
+        // 一半查询点落在区域内，一半随机分布（大多不在任何区域内）
+        lats = new double[POINTS];
+        lngs = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            if (i % 2 == 0) {
+                int fence = random.nextInt(fences);
+                lats[i] = insideLats[fence];
+                lngs[i] = insideLngs[fence];
+            } else {
+                lats[i] = 23.0 + random.nextDouble() * 0.5;
+                lngs[i] = 113.0 + random.nextDouble() * 0.5;
+            }
+        }
+    }
+
+    @Benchmark
+    public Geofence gridIndex() {
+        int i = cursor++ & (POINTS - 1);
+        return index.match(lats[i], lngs[i]);
+    }
+
+    @Benchmark
+    public Geofence linearScan() {
+        int i = cursor++ & (POINTS - 1);
+        Geofence best = null;
+        for (Geofence fence : all) {
+            if (fence.contains(lats[i], lngs[i]) && (best == null || fence.getArea() < best.getArea())) {
+                best = fence;
+            }
+        }
+        return best;
+    }
+}
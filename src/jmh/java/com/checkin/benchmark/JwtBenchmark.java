@@ -0,0 +1,79 @@
+package com.checkin.benchmark;
+
+import com.checkin.cache.VerifiedTokenCache;
+import com.checkin.entity.User;
+import com.checkin.utils.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT生成与校验耗时（每个需认证的请求都会经过JwtAuthenticationFilter校验一次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+    private VerifiedTokenCache tokenCache;
+
+    @Setup
+    public void setup() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", "benchmarkSecretKeyForCheckinSystem!@#$%^&*()");
+        ReflectionTestUtils.setField(jwtUtils, "expiration", 86_400_000L);
+        jwtUtils.init();
+        user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark_user");
+        user.setRole(0);
+        token = jwtUtils.generateToken(user);
+        tokenCache = new VerifiedTokenCache(10000, 300);
+        tokenCache.put(token, jwtUtils.verify(token));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    // 过滤器的完整校验：校验签名 + 提取用户名
+    @Benchmark
+    public boolean validateAndExtractUsername() {
+        return jwtUtils.validateToken(token, "benchmark_user");
+    }
+
+    // 过滤器未命中缓存时的单次校验
+    @Benchmark
+    public JwtUtils.VerifiedToken verify() {
+        return jwtUtils.verify(token);
+    }
+
+    // 过滤器命中已校验缓存
+    @Benchmark
+    public JwtUtils.VerifiedToken verifyCached() {
+        JwtUtils.VerifiedToken verified = tokenCache.get(token);
+        return verified != null ? verified : jwtUtils.verify(token);
+    }
+}
@@ -2,7 +2,9 @@ package com.checkin;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 @SpringBootApplication
+@EnableScheduling
 @MapperScan("com.checkin.mapper")
 public class CheckinSystemBackendApplication {
     public static void main(String[] args) {
@@ -0,0 +1,118 @@
+package com.checkin.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有界LRU缓存（进程内）
+ * 按键的哈希分段，每段是一个按访问顺序排列的LinkedHashMap，段满时淘汰该段最久未访问的条目，
+ * 不会因为条目数达到上限而整体清空；段内读写持有该段的锁，不同段互不阻塞。
+ * 条目带过期时间，读到过期条目时删除并按未命中处理
+ */
+public final class LruCache<K, V> {
+
+    // 最多分段数
+    private static final int MAX_SEGMENTS = 16;
+    // 每段至少容纳的条目数（上限较小时少分段，淘汰顺序更接近全局LRU）
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final Segment<K, V>[] segments;
+
+    /**
+     * @param maxSize 最大条目数，小于等于0时不缓存
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxSize) {
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(Math.max(0, maxSize / count));
+        }
+    }
+
+    /**
+     * @return 未过期的值；未命中或已过期时返回null
+     */
+    public V get(K key) {
+        return segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * @param expiresAtMillis 过期时间（毫秒时间戳）
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        segmentFor(key).put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void remove(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * 当前条目数（含尚未被读到的过期条目）
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static final class Segment<K, V> {
+        private final int capacity;
+        private final LinkedHashMap<K, Entry<V>> map;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > Segment.this.capacity;
+                }
+            };
+        }
+
+        private synchronized V get(K key, long now) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis <= now) {
+                map.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        private synchronized void put(K key, Entry<V> entry) {
+            if (capacity > 0) {
+                map.put(key, entry);
+            }
+        }
+
+        private synchronized void remove(K key) {
+            map.remove(key);
+        }
+
+        private synchronized int size() {
+            return map.size();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.checkin.cache;
+
+import com.checkin.metrics.CacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 缓存回源合并（single-flight）
+ * 同一进程内同一缓存键同时只执行一次回源，并发的其他请求等待并共用这次结果（失败时一起收到同一异常）；
+ * 提前刷新在有界的后台线程池执行，队列满时放弃本次刷新，由过期后的正常回源兜底
+ */
+@Slf4j
+@Component
+public class SingleFlightLoader {
+
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
+    // 正在执行的回源（缓存名+键 -> 结果）
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public SingleFlightLoader(@Value("${checkin.cache.refresh-threads:2}") int refreshThreads,
+                              @Value("${checkin.cache.refresh-queue-size:1024}") int refreshQueueSize) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(refreshQueueSize), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 回源加载：没有进行中的回源时在当前线程执行loader，否则等待进行中的那一次
+     * @param cache 缓存名（指标标签）
+     * @param key 缓存键
+     * @param loader 回源逻辑（通常包含回填缓存）
+     * @return 回源结果
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V load(String cache, Object key, Supplier<V> loader) {
+        FlightKey flightKey = new FlightKey(cache, key);
+        boolean shared = false;
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+            if (existing == null) {
+                return (V) run(flightKey, flight, loader);
+            }
+            if (!shared) {
+                shared = true;
+                cacheMetrics.deduplicated(cache);
+            }
+            try {
+                return (V) await(existing);
+            } catch (RetryLoadException e) {
+                // 等待的是未能执行的提前刷新，重新竞争回源
+            }
+        }
+    }
+
+    /**
+     * 后台提前刷新：已有同键回源在进行或线程池已满时直接返回false
+     * 刷新期间到达的load请求会等待这次刷新的结果
+     */
+    public <V> boolean refreshAsync(String cache, Object key, Supplier<V> loader) {
+        FlightKey flightKey = new FlightKey(cache, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flightKey, flight) != null) {
+            return false;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    run(flightKey, flight, loader);
+                } catch (RuntimeException e) {
+                    log.warn("缓存[{}]键[{}]提前刷新失败：{}", cache, key, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新排队已满：通知已在等待的请求自行回源，不能留下永不完成的回源
+            inFlight.remove(flightKey, flight);
+            flight.completeExceptionally(new RetryLoadException());
+            return false;
+        }
+        cacheMetrics.refreshAhead(cache);
+        return true;
+    }
+
+    /**
+     * 当前进行中的回源数（测试与排查用）
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Object run(FlightKey flightKey, CompletableFuture<Object> flight, Supplier<?> loader) {
+        try {
+            Object value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record FlightKey(String cache, Object key) {
+    }
+
+    private static final class RetryLoadException extends RuntimeException {
+        private RetryLoadException() {
+            super("缓存刷新未能执行", null, false, false);
+        }
+    }
+}
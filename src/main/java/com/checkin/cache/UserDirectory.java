@@ -0,0 +1,160 @@
+package com.checkin.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.User;
+import com.checkin.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内用户目录：按原始long型用户ID分页存储"是否存在"位图、角色和用户名，
+ * 不使用装箱的Long键，也不保存完整User实体。
+ * 每页4096个ID，按需分配（约20KB/页），ID超过上限的用户不进目录，由调用方回退查库，内存有上限。
+ * 读路径无锁、无对象分配；写入（启动加载、注册）串行执行
+ */
+@Slf4j
+@Component
+public class UserDirectory {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    // 目录可容纳的最大用户ID
+    @Value("${checkin.user-directory.max-user-id:1000000}")
+    private long maxUserId = 1_000_000;
+
+    private volatile Page[] pages = new Page[0];
+    private volatile boolean loaded;
+    private volatile int size;
+
+    /**
+     * 用户是否存在（仅代表目录中是否有该用户，目录未命中时调用方应回退查库）
+     */
+    public boolean contains(long userId) {
+        Page page = page(userId);
+        if (page == null) {
+            return false;
+        }
+        int offset = (int) (userId & PAGE_MASK);
+        return (page.bits.get(offset >>> 6) & (1L << offset)) != 0;
+    }
+
+    /**
+     * 用户角色（0-普通用户，1-管理员），不存在返回-1
+     */
+    public int roleOf(long userId) {
+        return contains(userId) ? page(userId).roles[(int) (userId & PAGE_MASK)] : -1;
+    }
+
+    /**
+     * 用户名，不存在返回null
+     */
+    public String usernameOf(long userId) {
+        return contains(userId) ? page(userId).usernames[(int) (userId & PAGE_MASK)] : null;
+    }
+
+    /**
+     * 加入/更新用户（注册成功、回退查库命中后调用）
+     */
+    public synchronized void put(long userId, String username, Integer role) {
+        if (userId <= 0 || userId > maxUserId) {
+            return;
+        }
+        int index = (int) (userId >>> PAGE_SHIFT);
+        Page[] current = pages;
+        if (index >= current.length) {
+            Page[] grown = new Page[Math.max(index + 1, current.length * 2)];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            current = grown;
+        }
+        if (current[index] == null) {
+            current[index] = new Page();
+        }
+        pages = current;
+
+        Page page = current[index];
+        int offset = (int) (userId & PAGE_MASK);
+        page.roles[offset] = (byte) (role == null ? 0 : role);
+        page.usernames[offset] = username;
+        // 最后置位（volatile写），读线程看到该位时角色和用户名一定已可见
+        long word = page.bits.get(offset >>> 6);
+        if ((word & (1L << offset)) == 0) {
+            page.bits.set(offset >>> 6, word | (1L << offset));
+            size++;
+        }
+    }
+
+    /**
+     * 目录是否已完成启动加载
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 目录中的用户数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 启动完成后按主键分批加载全部用户（只取id/username/role三列），数据库不可用时只记录告警，调用方回退查库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            long lastId = 0;
+            while (true) {
+                List<User> batch = userMapper.selectList(new QueryWrapper<User>()
+                        .select("id", "username", "role")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + LOAD_BATCH_SIZE)
+                );
+                for (User user : batch) {
+                    put(user.getId(), user.getUsername(), user.getRole());
+                }
+                if (batch.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            loaded = true;
+            log.info("用户目录加载完成，共{}个用户，耗时{}ms", size, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("用户目录加载失败，校验用户将回退查询数据库：{}", e.getMessage());
+        }
+    }
+
+    private Page page(long userId) {
+        if (userId <= 0) {
+            return null;
+        }
+        long index = userId >>> PAGE_SHIFT;
+        Page[] current = pages;
+        return index < current.length ? current[(int) index] : null;
+    }
+
+    /**
+     * 一页4096个用户：存在位图（64个long）、角色、用户名
+     */
+    private static final class Page {
+        private final AtomicLongArray bits = new AtomicLongArray(PAGE_SIZE / 64);
+        private final byte[] roles = new byte[PAGE_SIZE];
+        private final String[] usernames = new String[PAGE_SIZE];
+    }
+}
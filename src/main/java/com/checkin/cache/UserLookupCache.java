@@ -0,0 +1,110 @@
+package com.checkin.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.User;
+import com.checkin.mapper.UserMapper;
+import com.checkin.metrics.CacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户名 -> 用户缓存（进程内，有界），登录和UserDetailsService共用的唯一按用户名查询入口
+ * 不存在的用户名也缓存（较短有效期），撞库扫描大量不存在的用户名时不会每次都查库；
+ * 存在与不存在的条目分别限制条数，扫描产生的不存在条目不会挤掉正常用户；
+ * 条目数达到上限时淘汰最久未使用的条目，登录高峰时大量不同用户登录也不会清空缓存。
+ * 注册、修改密码后调用invalidate；其他实例上的旧条目最长ttl-seconds后失效。
+ * 同一用户名并发未命中时只查一次库；返回的User与缓存共享，调用方只读
+ */
+@Component
+public class UserLookupCache {
+
+    // 缓存命中率指标名
+    private static final String CACHE_NAME = "username";
+
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private SingleFlightLoader singleFlightLoader;
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
+    // 存在的用户有效期（秒）
+    private final long ttlSeconds;
+    // 不存在的用户名有效期（秒）：其他实例刚注册的用户最长在这段时间内查不到
+    private final long negativeTtlSeconds;
+
+    private final LruCache<String, User> found;
+    private final LruCache<String, Boolean> missing;
+    // 失效次数：查库期间发生过失效时不回填，避免把失效前读到的旧结果写回缓存
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxSize 存在的用户最多缓存条数
+     * @param ttlSeconds 存在的用户有效期（秒）
+     * @param negativeMaxSize 不存在的用户名最多缓存条数
+     * @param negativeTtlSeconds 不存在的用户名有效期（秒）
+     */
+    public UserLookupCache(@Value("${checkin.user-cache.max-size:10000}") int maxSize,
+                           @Value("${checkin.user-cache.ttl-seconds:60}") long ttlSeconds,
+                           @Value("${checkin.user-cache.negative-max-size:10000}") int negativeMaxSize,
+                           @Value("${checkin.user-cache.negative-ttl-seconds:10}") long negativeTtlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        this.negativeTtlSeconds = negativeTtlSeconds;
+        this.found = new LruCache<>(ttlSeconds > 0 ? maxSize : 0);
+        this.missing = new LruCache<>(negativeTtlSeconds > 0 ? negativeMaxSize : 0);
+    }
+
+    /**
+     * 按用户名查询用户
+     * @return 用户；不存在时返回null
+     */
+    public User get(String username) {
+        if (username == null || username.isEmpty()) {
+            return null;
+        }
+        User user = found.get(username);
+        if (user != null || missing.get(username) != null) {
+            cacheMetrics.hit(CACHE_NAME);
+            return user;
+        }
+        cacheMetrics.miss(CACHE_NAME);
+        return singleFlightLoader.load(CACHE_NAME, username, () -> load(username));
+    }
+
+    /**
+     * 用户注册、修改密码后清除该用户名的缓存
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        found.remove(username);
+        missing.remove(username);
+    }
+
+    /**
+     * 当前缓存条目数（存在+不存在）
+     */
+    public int size() {
+        return found.size() + missing.size();
+    }
+
+    private User load(String username) {
+        long version = invalidations.get();
+        User user = userMapper.selectOne(new QueryWrapper<User>().eq("username", username));
+        if (version == invalidations.get()) {
+            long now = System.currentTimeMillis();
+            if (user != null) {
+                found.put(username, user, now + ttlSeconds * 1000);
+            } else {
+                missing.put(username, Boolean.TRUE, now + negativeTtlSeconds * 1000);
+            }
+            cacheMetrics.fill(CACHE_NAME);
+        }
+        return user;
+    }
+}
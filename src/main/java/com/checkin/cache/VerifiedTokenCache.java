@@ -0,0 +1,75 @@
+package com.checkin.cache;
+
+import com.checkin.utils.JwtUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * 已校验JWT缓存（进程内，有界）
+ * 同一个token在有效期内会被反复携带，命中缓存时跳过解析和HMAC验签。
+ * 只缓存校验通过的token（伪造token不会占用缓存）；条目在token过期或缓存TTL到期时失效，取两者较早者。
+ * 缓存键是token的SHA-256摘要，堆内不保留完整令牌；条目数达到上限时淘汰最久未使用的token
+ */
+@Component
+public class VerifiedTokenCache {
+
+    // 条目最长缓存时间（秒）
+    private final long ttlSeconds;
+
+    private final LruCache<String, JwtUtils.VerifiedToken> entries;
+
+    /**
+     * @param maxSize 最大缓存条目数
+     * @param ttlSeconds 条目最长缓存时间（秒）
+     */
+    public VerifiedTokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize,
+                              @Value("${jwt.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+        this.entries = new LruCache<>(maxSize);
+    }
+
+    /**
+     * 查询已校验的token
+     * @param token 令牌
+     * @return 校验结果；未命中或已过期时返回null
+     */
+    public JwtUtils.VerifiedToken get(String token) {
+        return entries.get(digest(token));
+    }
+
+    /**
+     * 缓存校验通过的token
+     * @param token 令牌
+     * @param verified 校验结果
+     */
+    public void put(String token, JwtUtils.VerifiedToken verified) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(verified.getExpiresAtMillis(), now + ttlSeconds * 1000);
+        if (expiresAt <= now) {
+            return;
+        }
+        entries.put(digest(token), verified, expiresAt);
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JDK都必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
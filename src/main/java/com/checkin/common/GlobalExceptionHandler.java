@@ -2,6 +2,7 @@ package com.checkin.common;
 
 import com.checkin.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -22,6 +23,13 @@ public class GlobalExceptionHandler {
         return Result.error(500, e.getMessage());  // 适配你的Result格式（code=500）
     }
 
+    // 处理越权访问（如：普通用户查询他人打卡数据）
+    @ExceptionHandler(AccessDeniedException.class)
+    public Result<?> handleAccessDeniedException(AccessDeniedException e) {
+        log.warn("越权访问 -> {}", e.getMessage());
+        return Result.error(403, e.getMessage());
+    }
+
     // 处理参数校验异常（如：@NotNull/@Min注解校验失败）
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Result<?> handleValidationException(MethodArgumentNotValidException e) {
@@ -0,0 +1,92 @@
+package com.checkin.config;
+
+import com.checkin.datasource.ReadWriteRoutingDataSource;
+import com.checkin.datasource.ReadYourWritesTracker;
+import com.checkin.datasource.ReplicaNode;
+import com.checkin.datasource.ReplicaRead;
+import com.checkin.datasource.ReplicaReadInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 数据源配置：spring.datasource为主库，checkin.datasource.replicas为只读副本（可为空）
+ * 对外只暴露读写分离数据源，未配置副本时等同于直接使用主库
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String REPLICAS_PREFIX = "checkin.datasource.replicas";
+    // 副本取连接的默认超时：副本故障时尽快改走主库，而不是等待默认的30秒
+    private static final long REPLICA_CONNECTION_TIMEOUT_MS = 2000L;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                 Environment environment) throws Exception {
+        List<HikariDataSource> pools = createPools(Binder.get(environment), REPLICAS_PREFIX, "replica-", replica -> {
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MS);
+        });
+        List<ReplicaNode> replicas = new ArrayList<>(pools.size());
+        for (HikariDataSource replica : pools) {
+            replicas.add(new ReplicaNode(replica.getPoolName(), replica));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    /**
+     * 按prefix下的数据源列表（同spring.datasource的url/username/password/driver-class-name）创建连接池
+     * 连接池名为poolNamePrefix+下标，defaults设置默认参数，之后prefix[i].hikari.*覆盖连接池参数
+     */
+    public static List<HikariDataSource> createPools(Binder binder, String prefix, String poolNamePrefix,
+                                                     Consumer<HikariDataSource> defaults) throws Exception {
+        List<DataSourceProperties> configs = binder.bind(prefix, Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+        List<HikariDataSource> pools = new ArrayList<>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            DataSourceProperties config = configs.get(i);
+            config.setBeanClassLoader(DataSourceConfig.class.getClassLoader());
+            config.afterPropertiesSet();
+            HikariDataSource pool = config.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName(poolNamePrefix + i);
+            defaults.accept(pool);
+            binder.bind(prefix + "[" + i + "].hikari", Bindable.ofInstance(pool));
+            pools.add(pool);
+        }
+        return pools;
+    }
+
+    /**
+     * 拦截@ReplicaRead方法（基础设施级Advisor，由事务使用的同一个自动代理创建器织入，无需AspectJ）
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor replicaReadAdvisor(ReadYourWritesTracker readYourWritesTracker) {
+        return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(null, ReplicaRead.class, true),
+                new ReplicaReadInterceptor(readYourWritesTracker));
+    }
+}
@@ -1,6 +1,8 @@
 // src/main/java/com/checkin/config/JwtAuthenticationFilter.java
 package com.checkin.config;
 
+import com.checkin.cache.VerifiedTokenCache;
+import com.checkin.security.CheckinPrincipal;
 import com.checkin.utils.JwtUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,6 +21,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtUtils jwtUtils;
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Override
     protected void doFilterInternal(
@@ -36,23 +40,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return; // 跳过后续JWT校验逻辑，直接放行
         }
 
-        // ========== 原有JWT校验逻辑（保留不变） ==========
+        // ========== JWT校验逻辑（每个token只验签一次，之后命中缓存） ==========
         try {
             // 从请求头获取令牌
             String authHeader = request.getHeader("Authorization");
-            String token = null;
-            String username = null;
+            if (authHeader != null && authHeader.startsWith("Bearer ")
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
+                String token = authHeader.substring(7); // 截取"Bearer "后的令牌
 
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7); // 截取"Bearer "后的令牌
-                username = jwtUtils.extractUsername(token);
-            }
+                // 先查已校验缓存，未命中时解析+验签一次并缓存
+                JwtUtils.VerifiedToken verified = verifiedTokenCache.get(token);
+                if (verified == null) {
+                    verified = jwtUtils.verify(token);
+                    if (verified != null) {
+                        verifiedTokenCache.put(token, verified);
+                    }
+                }
 
-            // 验证令牌并设置认证信息
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtils.validateToken(token, username)) {
+                // 用令牌声明中的用户ID、角色构建登录用户，/admin/**的角色校验和控制器都不再查询用户表
+                if (verified != null) {
+                    CheckinPrincipal principal = verified.getPrincipal();
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            username, null, null
+                            principal, null, principal.getAuthorities()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -0,0 +1,46 @@
+package com.checkin.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+/**
+ * MyBatis-Plus配置
+ * 未注册分页插件时selectPage不会追加LIMIT，也不会查询总数（会把用户全部记录一次查出）。
+ * Mapper XML中只适用于某种数据库的语句用databaseId="mysql"/"h2"标注，未标注的语句所有数据库通用
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        PaginationInnerInterceptor pagination = new PaginationInnerInterceptor(DbType.MYSQL);
+        pagination.setMaxLimit(500L); // 单页上限，防止误传超大页大小
+        interceptor.addInnerInterceptor(pagination);
+        return interceptor;
+    }
+
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        return vendorDatabaseIdProvider();
+    }
+
+    /**
+     * 按JDBC驱动报告的数据库产品名得到databaseId（分片的SqlSession也使用）
+     */
+    public static DatabaseIdProvider vendorDatabaseIdProvider() {
+        Properties vendors = new Properties();
+        vendors.setProperty("MySQL", "mysql");
+        vendors.setProperty("H2", "h2");
+        VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+        provider.setProperties(vendors);
+        return provider;
+    }
+}
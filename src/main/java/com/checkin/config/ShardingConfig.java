@@ -0,0 +1,140 @@
+package com.checkin.config;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.checkin.mapper.CheckinPartitionMapper;
+import com.checkin.mapper.CheckinRecordArchiveMapper;
+import com.checkin.mapper.CheckinRecordMapper;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ModuloShardFunction;
+import com.checkin.shard.ShardDirectory;
+import com.checkin.shard.ShardFunction;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.plugin.Interceptor;
+import org.flywaydb.core.Flyway;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打卡记录分片配置
+ * 分片0为spring.datasource主库（沿用容器中的Mapper和事务管理器，只读副本路由只作用于分片0）；
+ * checkin.sharding.shards[i]依次为分片1、2……，每个分片有独立的连接池、SqlSessionFactory和事务管理器，
+ * 启动时按spring.flyway的配置执行迁移脚本。用户表、打卡汇总、分片目录等只在主库
+ */
+@Slf4j
+@Configuration
+public class ShardingConfig {
+
+    private static final String SHARDS_PREFIX = "checkin.sharding.shards";
+
+    /**
+     * 默认按用户ID取模，声明其他ShardFunction Bean即可替换
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ShardFunction shardFunction() {
+        return new ModuloShardFunction();
+    }
+
+    @Bean
+    public CheckinRecordShards checkinRecordShards(DataSource dataSource,
+                                                   CheckinRecordMapper checkinRecordMapper,
+                                                   CheckinRecordArchiveMapper archiveMapper,
+                                                   CheckinPartitionMapper partitionMapper,
+                                                   PlatformTransactionManager transactionManager,
+                                                   MybatisPlusProperties mybatisPlusProperties,
+                                                   ObjectProvider<Interceptor> interceptors,
+                                                   ShardFunction shardFunction,
+                                                   ShardDirectory shardDirectory,
+                                                   Environment environment) throws Exception {
+        List<CheckinShard> shards = new ArrayList<>();
+        shards.add(new CheckinShard(0, dataSource, checkinRecordMapper, archiveMapper, partitionMapper, transactionManager));
+
+        List<HikariDataSource> pools = DataSourceConfig.createPools(Binder.get(environment), SHARDS_PREFIX, "shard-",
+                pool -> { });
+        Interceptor[] plugins = interceptors.orderedStream().toArray(Interceptor[]::new);
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource pool = pools.get(i);
+            // createPools按配置下标从0编号，改为与分片下标一致
+            pool.setPoolName("shard-" + (i + 1));
+            if (environment.getProperty("spring.flyway.enabled", Boolean.class, true)) {
+                migrate(pool, environment);
+            }
+            shards.add(createShard(i + 1, pool, createSqlSession(pool, mybatisPlusProperties, plugins)));
+        }
+        log.info("打卡记录分片数：{}", shards.size());
+        return new CheckinRecordShards(shards, shardFunction, shardDirectory);
+    }
+
+    /**
+     * 在指定数据源上创建SqlSession：Mapper XML、类型别名、全局配置、databaseId规则与主库相同
+     */
+    public static SqlSessionTemplate createSqlSession(DataSource dataSource, MybatisPlusProperties properties,
+                                                      Interceptor... plugins) throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        MybatisConfiguration template = properties.getConfiguration();
+        if (template != null) {
+            configuration.setMapUnderscoreToCamelCase(template.isMapUnderscoreToCamelCase());
+            configuration.setLogImpl(template.getLogImpl());
+        }
+        GlobalConfig globalConfig = new GlobalConfig();
+        globalConfig.setBanner(false);
+        globalConfig.setDbConfig(properties.getGlobalConfig().getDbConfig());
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setGlobalConfig(globalConfig);
+        factoryBean.setTypeAliasesPackage(properties.getTypeAliasesPackage());
+        factoryBean.setMapperLocations(properties.resolveMapperLocations());
+        factoryBean.setPlugins(plugins);
+        factoryBean.setDatabaseIdProvider(MybatisPlusConfig.vendorDatabaseIdProvider());
+        return new SqlSessionTemplate(factoryBean.getObject());
+    }
+
+    /**
+     * 用SqlSession中的Mapper和该数据源的事务管理器组成一个分片
+     */
+    public static CheckinShard createShard(int index, DataSource dataSource, SqlSessionTemplate sqlSession) {
+        return new CheckinShard(index, dataSource,
+                sqlSession.getMapper(CheckinRecordMapper.class),
+                sqlSession.getMapper(CheckinRecordArchiveMapper.class),
+                sqlSession.getMapper(CheckinPartitionMapper.class),
+                new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * 按spring.flyway的脚本位置迁移分片库（{vendor}按分片自己的JDBC URL解析）
+     */
+    private static void migrate(HikariDataSource dataSource, Environment environment) {
+        String vendor = DatabaseDriver.fromJdbcUrl(dataSource.getJdbcUrl()).getId();
+        String[] locations = environment.getProperty("spring.flyway.locations", String[].class,
+                new String[]{"classpath:db/migration"});
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = locations[i].replace("{vendor}", vendor);
+        }
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations(locations)
+                .baselineOnMigrate(environment.getProperty("spring.flyway.baseline-on-migrate", Boolean.class, false))
+                .baselineVersion(environment.getProperty("spring.flyway.baseline-version", "1"))
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,184 @@
+package com.checkin.controller;
+
+import com.checkin.common.Result;
+import com.checkin.exception.BusinessException;
+import com.checkin.geofence.GeofenceRegistry;
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.service.CheckinLeaderboardService;
+import com.checkin.service.CheckinRecordService;
+import com.checkin.service.CheckinRollupService;
+import com.checkin.service.ShardMigrationService;
+import com.checkin.vo.GeofenceVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * 管理员控制器（/admin/**，需ADMIN角色）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+@Validated
+@Tag(name = "管理员功能", description = "未打卡用户查询、全局打卡统计、打卡区域管理、排行榜重建、记录归档、分片迁移等接口")
+public class AdminController {
+
+    // 统计接口单次最多查询的天数
+    private static final int MAX_STATS_DAYS = 366;
+    // 单次分片迁移最多的用户数
+    private static final int MAX_MOVE_USERS = 1000;
+
+    @Autowired
+    private CheckinRecordService checkinRecordService;
+    @Autowired
+    private CheckinRollupService checkinRollupService;
+    @Autowired
+    private GeofenceRegistry geofenceRegistry;
+    @Autowired
+    private CheckinLeaderboardService checkinLeaderboardService;
+    @Autowired
+    private CheckinArchiveService checkinArchiveService;
+    @Autowired
+    private ShardMigrationService shardMigrationService;
+
+    // 1. 分页查询指定日期未打卡的用户（按用户ID游标翻页）
+    @GetMapping("/checkin/unchecked")
+    @Operation(summary = "查询未打卡用户", description = "按用户ID升序分页返回指定日期未打卡的用户，nextCursor传入afterUserId获取下一页")
+    public Result<?> getUncheckedUsers(
+            @Parameter(description = "日期（yyyy-MM-dd，默认今天）", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "游标：上一页最后一个用户ID（首页不传）", required = false)
+            @RequestParam(required = false) Long afterUserId,
+            @Parameter(description = "页大小（默认50，范围1-500）", required = false)
+            @RequestParam(defaultValue = "50") int pageSize) {
+        // 手动校验pageSize范围
+        if (pageSize < 1 || pageSize > 500) {
+            throw new BusinessException("页大小需在1-500之间");
+        }
+        LocalDate queryDate = date == null ? LocalDate.now() : date;
+        log.info("【未打卡查询】日期：{}，游标：{}，页大小：{}", queryDate, afterUserId, pageSize);
+        return checkinRecordService.getUncheckedUsers(queryDate, afterUserId, pageSize);
+    }
+
+    // 2. 全局每日打卡统计（读取每日汇总表，数据最多滞后一个聚合周期）
+    @GetMapping("/stats/daily")
+    @Operation(summary = "全局每日打卡统计", description = "返回日期范围内每天的打卡人数、补卡人数、打卡率及区间合计（默认最近30天）")
+    public Result<?> getDailyStats(
+            @Parameter(description = "开始日期（yyyy-MM-dd，默认30天前）", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束日期（yyyy-MM-dd，默认今天）", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate end = endDate == null ? LocalDate.now() : endDate;
+        LocalDate start = startDate == null ? end.minusDays(29) : startDate;
+        validateStatsRange(start, end);
+        return Result.success(checkinRollupService.getStats(start, end));
+    }
+
+    // 3. 手动重新聚合指定日期范围（修正历史数据后使用）
+    @PostMapping("/stats/rollup")
+    @Operation(summary = "重新聚合每日打卡统计", description = "按打卡明细重新计算日期范围内的每日汇总")
+    public Result<?> rebuildDailyStats(
+            @Parameter(description = "开始日期（yyyy-MM-dd）", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "结束日期（yyyy-MM-dd）", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        validateStatsRange(startDate, endDate);
+        log.info("【手动聚合】日期范围：{}~{}", startDate, endDate);
+        int days = checkinRollupService.rollup(startDate, endDate);
+        return Result.success("已重新聚合" + days + "天", days);
+    }
+
+    // 4. 查询当前生效的打卡区域
+    @GetMapping("/geofences")
+    @Operation(summary = "查询生效的打卡区域", description = "返回当前打卡校验使用的全部区域")
+    public Result<?> getGeofences() {
+        List<GeofenceVO> fences = geofenceRegistry.current().getFences().stream()
+                .map(GeofenceVO::of)
+                .toList();
+        return Result.success(fences);
+    }
+
+    // 5. 立即重新加载打卡区域（修改checkin_geofence表后使用，否则等待定时刷新）
+    @PostMapping("/geofences/reload")
+    @Operation(summary = "重新加载打卡区域", description = "从checkin_geofence表重建区域索引并立即生效")
+    public Result<?> reloadGeofences() {
+        int count = geofenceRegistry.reload();
+        log.info("【打卡区域】手动重新加载，生效区域{}个", count);
+        return Result.success("已加载" + count + "个打卡区域", count);
+    }
+
+    // 6. 按打卡汇总表重建连续打卡排行榜（首次上线或Redis数据丢失后使用）
+    @PostMapping("/leaderboard/rebuild")
+    @Operation(summary = "重建连续打卡排行榜", description = "遍历checkin_summary表写入全部排行榜")
+    public Result<?> rebuildLeaderboard() {
+        int count = checkinLeaderboardService.rebuild();
+        log.info("【排行榜】手动重建，用户{}个", count);
+        return Result.success("已重建" + count + "个用户的排行榜", count);
+    }
+
+    // 7. 立即把早于归档分界的打卡记录搬入归档表（否则等待每日定时归档）
+    @PostMapping("/archive/run")
+    @Operation(summary = "归档历史打卡记录", description = "把checkin.archive.after-days之前（按月对齐）的记录搬入checkin_record_archive")
+    public Result<?> archiveCheckins() {
+        int count = checkinArchiveService.archiveOldRecords();
+        log.info("【归档】手动归档，分界{}，搬移{}条", checkinArchiveService.archiveCutoff(), count);
+        return Result.success("已归档" + count + "条打卡记录", count);
+    }
+
+    // 8. 把指定用户的打卡记录搬到目标分片（迁移期间这些用户暂时不能打卡）
+    @PostMapping("/shards/move")
+    @Operation(summary = "迁移用户分片", description = "把用户的全部打卡记录搬到目标分片并更新分片目录")
+    public Result<?> moveUsersToShard(
+            @Parameter(description = "用户ID列表", required = true)
+            @RequestBody List<Long> userIds,
+            @Parameter(description = "目标分片下标", required = true)
+            @RequestParam int targetShard) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_MOVE_USERS) {
+            throw new BusinessException("每次迁移1-" + MAX_MOVE_USERS + "个用户");
+        }
+        int count = shardMigrationService.moveUsers(userIds, targetShard);
+        log.info("【分片迁移】{}个用户搬到分片{}，记录{}条", userIds.size(), targetShard, count);
+        return Result.success("已搬移" + count + "条打卡记录", count);
+    }
+
+    // 9. 把所有用户固定在当前分片（修改分片数或分片函数之前执行）
+    @PostMapping("/shards/pin")
+    @Operation(summary = "固定用户分片", description = "为没有分片目录项的用户写入当前所在分片")
+    public Result<?> pinShards() {
+        int count = shardMigrationService.pinAll();
+        log.info("【分片迁移】固定{}个用户", count);
+        return Result.success("已固定" + count + "个用户", count);
+    }
+
+    // 10. 把用户搬回分片函数所算的分片（扩容后分批执行，直到返回0）
+    @PostMapping("/shards/rebalance")
+    @Operation(summary = "分片再平衡", description = "把不在分片函数所算分片上的用户搬过去，每次最多limit个用户")
+    public Result<?> rebalanceShards(
+            @Parameter(description = "本次最多搬移的用户数（默认100，范围1-1000）", required = false)
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_MOVE_USERS) {
+            throw new BusinessException("limit需在1-" + MAX_MOVE_USERS + "之间");
+        }
+        int count = shardMigrationService.rebalance(limit);
+        log.info("【分片迁移】再平衡搬移{}个用户", count);
+        return Result.success("已搬移" + count + "个用户", count);
+    }
+
+    private static void validateStatsRange(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_STATS_DAYS) {
+            throw new BusinessException("单次最多查询" + MAX_STATS_DAYS + "天");
+        }
+    }
+}
@@ -6,15 +6,27 @@ import com.checkin.dto.ReissueCheckinDTO; // 需新建该DTO类
 import com.checkin.entity.CheckinRecord;
 import com.checkin.enums.CheckinStatusEnum;
 import com.checkin.exception.BusinessException;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.service.CheckinBulkIngestService;
+import com.checkin.service.CheckinExportService;
 import com.checkin.service.CheckinRecordService;
+import com.checkin.vo.CheckinCursorPageVO;
 
 // Lombok日志
 import lombok.extern.slf4j.Slf4j;
 
 // Spring核心注解
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated; // @Validated的正确包
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 // 参数校验注解（仅保留不报错的@Min/@NotNull，删除@Range）
 import jakarta.validation.constraints.Min;
@@ -25,6 +37,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 打卡记录控制器（适配前端对接版）
  * 核心修改：统一接口前缀/api/checkin、补充Swagger注解、优化日志/参数提示、保留所有原有业务逻辑
@@ -38,17 +56,20 @@ public class CheckinRecordController {
 
     @Autowired
     private CheckinRecordService checkinRecordService;
+    @Autowired
+    private CheckinExportService checkinExportService;
+    @Autowired
+    private CheckinBulkIngestService checkinBulkIngestService;
 
     // 1. 创建打卡记录（核心接口：参数校验、移除时间设置、替换硬编码）
     @PostMapping
     @Operation(summary = "创建打卡记录", description = "用户打卡核心接口，自动设置正常打卡状态，打卡时间由服务层处理")
     public Result<?> createCheckin(
-            @Parameter(description = "打卡记录信息（必填：userId，选填：location等）", required = true)
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "打卡记录信息（选填：userId（默认当前登录用户）、location等）", required = true)
             @RequestBody CheckinRecord record) {
-        // 手动校验用户ID非空
-        if (record.getUserId() == null) {
-            throw new BusinessException("用户ID不能为空");
-        }
+        // 打卡用户取自登录令牌，请求体中的userId仅管理员可指定为他人
+        record.setUserId(resolveUserId(principal, record.getUserId()));
         log.info("【打卡创建】开始处理用户打卡请求，用户ID：{}", record.getUserId());
 
         // 替换硬编码：用枚举设置打卡状态
@@ -61,62 +82,150 @@ public class CheckinRecordController {
         return result;
     }
 
+    // 离线打卡批量导入（请求体与响应体均为NDJSON，每行一条，结果按块流式返回）
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    @Operation(summary = "离线打卡批量导入", description = "每行一条打卡：{clientId, userId(可选), location, latitude, longitude, checkinTime}；"
+            + "每行返回一条结果：{line, clientId, success, msg, recordId, checkinDate, fenceName}")
+    public ResponseEntity<StreamingResponseBody> bulkIngest(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            HttpServletRequest request) throws IOException {
+        if (principal == null) {
+            throw new AccessDeniedException("请先登录");
+        }
+        log.info("【批量打卡】开始导入离线打卡，用户ID：{}", principal.getUserId());
+        InputStream in = request.getInputStream();
+        StreamingResponseBody body = out -> checkinBulkIngestService.ingest(principal, in, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     // ========== 新增补打卡接口 ==========
     @PostMapping("/reissue")
     @Operation(summary = "补打卡记录", description = "补指定日期的卡，需满足：3天内、每月限1次、该日期未打卡")
-    public Result<?> reissueCheckin(@RequestBody ReissueCheckinDTO dto) {
-        // 调用服务层的补卡方法，传入DTO中的参数
-        return checkinRecordService.reissueCheckin(dto.getUserId(), dto.getReissueDate(), dto.getReason());
+    public Result<?> reissueCheckin(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @RequestBody ReissueCheckinDTO dto) {
+        // 调用服务层的补卡方法，传入DTO中的参数（补卡用户默认当前登录用户）
+        Long targetUserId = resolveUserId(principal, dto.getUserId());
+        return checkinRecordService.reissueCheckin(targetUserId, dto.getReissueDate(), dto.getReason());
     }
 
     // 2. 获取用户所有打卡记录（保留@NotNull校验userId）
     @GetMapping("/user/{userId}")
     @Operation(summary = "查询用户所有打卡记录", description = "返回用户全部打卡记录列表，按打卡时间倒序")
     public Result<?> getUserCheckins(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
             @Parameter(description = "用户ID", required = true)
             @PathVariable @NotNull(message = "用户ID不能为空") Long userId) {
-        log.info("【打卡查询】查询用户所有打卡记录，用户ID：{}", userId);
-        return checkinRecordService.getUserCheckins(userId);
+        Long targetUserId = resolveUserId(principal, userId);
+        log.info("【打卡查询】查询用户所有打卡记录，用户ID：{}", targetUserId);
+        return checkinRecordService.getUserCheckins(targetUserId);
+    }
+
+    // 2.1 流式导出用户全部打卡记录（下载我的数据，内存占用与记录数无关）
+    @GetMapping("/user/{userId}/export")
+    @Operation(summary = "导出用户全部打卡记录", description = "按打卡时间升序流式下载，format=ndjson（默认）或csv")
+    public ResponseEntity<StreamingResponseBody> exportUserCheckins(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable @NotNull(message = "用户ID不能为空") Long userId,
+            @Parameter(description = "导出格式：ndjson/csv（默认ndjson）", required = false)
+            @RequestParam(defaultValue = "ndjson") String format) {
+        Long targetUserId = resolveUserId(principal, userId);
+        CheckinExportService.ExportFormat exportFormat;
+        try {
+            exportFormat = CheckinExportService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("导出格式只支持ndjson或csv");
+        }
+        if (!targetUserId.equals(principal.getUserId()) && !checkinExportService.userExists(targetUserId)) {
+            throw new BusinessException("用户不存在");
+        }
+
+        log.info("【打卡导出】导出用户打卡记录，用户ID：{}，格式：{}", targetUserId, exportFormat);
+        boolean csv = exportFormat == CheckinExportService.ExportFormat.CSV;
+        StreamingResponseBody body = out -> checkinExportService.writeUserCheckins(targetUserId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("checkin-" + targetUserId + (csv ? ".csv" : ".ndjson"))
+                        .build().toString())
+                .body(body);
     }
 
     // 3. 获取用户今日打卡状态（保留@NotNull校验userId）
     @GetMapping("/today/{userId}")
     @Operation(summary = "查询用户今日打卡状态", description = "返回用户今日是否已打卡（true/false）及打卡时间")
     public Result<?> getTodayCheckinStatus(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
             @Parameter(description = "用户ID", required = true)
             @PathVariable @NotNull(message = "用户ID不能为空") Long userId) {
-        log.info("【打卡状态】查询用户今日打卡状态，用户ID：{}", userId);
-        return checkinRecordService.getTodayCheckinStatus(userId);
+        Long targetUserId = resolveUserId(principal, userId);
+        log.info("【打卡状态】查询用户今日打卡状态，用户ID：{}", targetUserId);
+        return checkinRecordService.getTodayCheckinStatus(targetUserId);
     }
 
     // 4. 获取用户连续打卡天数（保留@NotNull校验userId）
     @GetMapping("/continuous/{userId}")
     @Operation(summary = "查询用户连续打卡天数", description = "返回用户当前连续打卡的天数（无打卡则返回0）")
     public Result<?> getContinuousCheckinDays(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
             @Parameter(description = "用户ID", required = true)
             @PathVariable @NotNull(message = "用户ID不能为空") Long userId) {
-        log.info("【打卡统计】查询用户连续打卡天数，用户ID：{}", userId);
-        return checkinRecordService.getContinuousCheckinDays(userId);
+        Long targetUserId = resolveUserId(principal, userId);
+        log.info("【打卡统计】查询用户连续打卡天数，用户ID：{}", targetUserId);
+        return checkinRecordService.getContinuousCheckinDays(targetUserId);
     }
 
     // 5. 分页查询用户打卡记录（移除@Range，替换为手动校验pageSize）
     @GetMapping("/user/{userId}/page")
     @Operation(summary = "分页查询用户打卡记录", description = "分页返回用户打卡记录，页码≥1，页大小1-100")
     public Result<?> getUserCheckinsByPage(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
             @Parameter(description = "用户ID", required = true)
             @PathVariable @NotNull(message = "用户ID不能为空") Long userId,
             @Parameter(description = "页码（默认1）", required = false)
             @RequestParam(defaultValue = "1") @Min(value = 1, message = "页码不能小于1") int pageNum,
             @Parameter(description = "页大小（默认10，范围1-100）", required = false)
             @RequestParam(defaultValue = "10") int pageSize) { // 删掉@Range注解
+        Long targetUserId = resolveUserId(principal, userId);
 
         // 手动校验pageSize范围（替代@Range）
         if (pageSize < 1 || pageSize > 100) {
             throw new BusinessException("页大小需在1-100之间");
         }
 
-        log.info("【打卡分页】分页查询打卡记录，用户ID：{}，页码：{}，页大小：{}", userId, pageNum, pageSize);
-        return checkinRecordService.getUserCheckinsByPage(userId, pageNum, pageSize);
+        log.info("【打卡分页】分页查询打卡记录，用户ID：{}，页码：{}，页大小：{}", targetUserId, pageNum, pageSize);
+        return checkinRecordService.getUserCheckinsByPage(targetUserId, pageNum, pageSize);
+    }
+
+    // 5.1 游标分页查询用户打卡记录（深分页不变慢，可不查总数）
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "游标分页查询用户打卡记录", description = "按打卡时间倒序返回，下一页传入上一页的nextCursor（或直接请求next链接），页大小1-100")
+    public Result<?> getUserCheckinsByCursor(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable @NotNull(message = "用户ID不能为空") Long userId,
+            @Parameter(description = "游标：上一页返回的nextCursor（首页不传）", required = false)
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "页大小（默认10，范围1-100）", required = false)
+            @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "是否返回记录总数（默认false，需额外执行COUNT）", required = false)
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        Long targetUserId = resolveUserId(principal, userId);
+        if (pageSize < 1 || pageSize > 100) {
+            throw new BusinessException("页大小需在1-100之间");
+        }
+
+        log.info("【打卡分页】游标查询打卡记录，用户ID：{}，游标：{}，页大小：{}", targetUserId, cursor, pageSize);
+        Result<?> result = checkinRecordService.getUserCheckinsByCursor(targetUserId, cursor, pageSize, withTotal);
+        if (result.getData() instanceof CheckinCursorPageVO page && page.isHasMore()) {
+            page.setNext(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .toUriString());
+        }
+        return result;
     }
 
     // 6. 校验打卡地点合法性（移除@Range，替换为手动校验经纬度）
@@ -145,9 +254,65 @@ public class CheckinRecordController {
     @GetMapping("/stats/{userId}") // 修复注解：原@SetMapping→@GetMapping
     @Operation(summary = "查询用户打卡统计数据", description = "返回总打卡天数、连续天数、本月打卡天数/打卡率等统计信息")
     public Result<?> getCheckinStats(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
             @Parameter(description = "用户ID", required = true)
             @PathVariable @NotNull(message = "用户ID不能为空") Long userId) {
-        log.info("【打卡统计】查询用户完整打卡统计数据，用户ID：{}", userId);
-        return checkinRecordService.getCheckinStats(userId);
+        Long targetUserId = resolveUserId(principal, userId);
+        log.info("【打卡统计】查询用户完整打卡统计数据，用户ID：{}", targetUserId);
+        return checkinRecordService.getCheckinStats(targetUserId);
+    }
+
+    // 8. 获取用户月度打卡统计（读取打卡日历位图）
+    @GetMapping("/monthly/{userId}")
+    @Operation(summary = "查询用户月度打卡统计",
+            description = "返回指定月份的打卡天数、打卡率及打卡日期（checkinDates，按日期升序）；"
+                    + "当月明细记录records只在includeRecords=true时返回")
+    public Result<?> getMonthlyCheckinStats(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable @NotNull(message = "用户ID不能为空") Long userId,
+            @Parameter(description = "年份", required = true)
+            @RequestParam int year,
+            @Parameter(description = "月份（1-12）", required = true)
+            @RequestParam int month,
+            @Parameter(description = "是否返回当月明细记录records")
+            @RequestParam(defaultValue = "false") boolean includeRecords) {
+        Long targetUserId = resolveUserId(principal, userId);
+        // 手动校验月份范围
+        if (month < 1 || month > 12) {
+            throw new BusinessException("月份需在1-12之间");
+        }
+        log.info("【打卡统计】查询用户月度打卡统计，用户ID：{}，{}年{}月", targetUserId, year, month);
+        return checkinRecordService.getMonthlyCheckinStats(targetUserId, year, month, includeRecords);
+    }
+
+    // 9. 获取用户年度打卡热力图（读取打卡日历位图）
+    @GetMapping("/heatmap/{userId}")
+    @Operation(summary = "查询用户年度打卡热力图", description = "按月返回指定年份的打卡日，用于前端渲染热力图")
+    public Result<?> getYearHeatmap(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "用户ID", required = true)
+            @PathVariable @NotNull(message = "用户ID不能为空") Long userId,
+            @Parameter(description = "年份", required = true)
+            @RequestParam int year) {
+        Long targetUserId = resolveUserId(principal, userId);
+        log.info("【打卡统计】查询用户年度打卡热力图，用户ID：{}，年份：{}", targetUserId, year);
+        return checkinRecordService.getYearHeatmap(targetUserId, year);
+    }
+
+    /**
+     * 解析本次操作的目标用户：未指定或指定本人时取登录用户；指定他人时仅管理员允许
+     */
+    private static Long resolveUserId(CheckinPrincipal principal, Long requestedUserId) {
+        if (principal == null) {
+            throw new AccessDeniedException("请先登录");
+        }
+        if (requestedUserId == null || requestedUserId.equals(principal.getUserId())) {
+            return principal.getUserId();
+        }
+        if (principal.isAdmin()) {
+            return requestedUserId;
+        }
+        throw new AccessDeniedException("无权操作其他用户的打卡数据");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.checkin.controller;
+
+import com.checkin.common.Result;
+import com.checkin.exception.BusinessException;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.service.CheckinLeaderboardService;
+import com.checkin.service.CheckinLeaderboardService.Board;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 连续打卡排行榜控制器（数据来自Redis有序集合，不访问数据库）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/leaderboard")
+@Validated
+@Tag(name = "连续打卡排行榜", description = "当前连续/最长连续天数的总榜、月榜及本人名次")
+public class LeaderboardController {
+
+    @Autowired
+    private CheckinLeaderboardService checkinLeaderboardService;
+
+    // 1. 排行榜前N名
+    @GetMapping("/{board}")
+    @Operation(summary = "查询排行榜", description = "board：current-当前连续天数，longest-最长连续天数；传month查询月榜（只统计该月内的天数）")
+    public Result<?> getTop(
+            @Parameter(description = "排行榜类型（current/longest）", required = true)
+            @PathVariable String board,
+            @Parameter(description = "月份（yyyy-MM，不传为总榜）", required = false)
+            @RequestParam(required = false) String month,
+            @Parameter(description = "名次数（默认10，范围1-100）", required = false)
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new BusinessException("名次数需在1-100之间");
+        }
+        return Result.success(checkinLeaderboardService.getTop(parseBoard(board), parseMonth(month), limit));
+    }
+
+    // 2. 当前登录用户的名次
+    @GetMapping("/{board}/me")
+    @Operation(summary = "查询本人名次", description = "返回当前登录用户在排行榜中的名次和天数，未上榜时rank为空")
+    public Result<?> getMyRank(
+            @Parameter(hidden = true) @AuthenticationPrincipal CheckinPrincipal principal,
+            @Parameter(description = "排行榜类型（current/longest）", required = true)
+            @PathVariable String board,
+            @Parameter(description = "月份（yyyy-MM，不传为总榜）", required = false)
+            @RequestParam(required = false) String month) {
+        if (principal == null) {
+            throw new AccessDeniedException("请先登录");
+        }
+        return Result.success(checkinLeaderboardService.getRank(parseBoard(board), parseMonth(month), principal.getUserId()));
+    }
+
+    private static Board parseBoard(String board) {
+        try {
+            return Board.valueOf(board.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("排行榜类型只能是current或longest");
+        }
+    }
+
+    private static YearMonth parseMonth(String month) {
+        if (month == null || month.isBlank()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException("月份格式应为yyyy-MM");
+        }
+    }
+}
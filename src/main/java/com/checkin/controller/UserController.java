@@ -1,20 +1,23 @@
 package com.checkin.controller;
 
 import com.checkin.common.Result;
+import com.checkin.dto.UserRegisterDTO;
 import com.checkin.entity.User;
 import com.checkin.service.UserService;
-import com.checkin.utils.JwtUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
 @Slf4j
 @RestController
 @RequestMapping("/user")
@@ -23,44 +26,39 @@ public class UserController {
 
     @Autowired
     private UserService userService;
-    @Autowired
-    private PasswordEncoder passwordEncoder;
-    @Autowired
-    private JwtUtils jwtUtils;
 
     @PostMapping("/register")
     @Operation(summary = "用户注册", description = "新用户注册，密码自动加密存储")
-    public Result<?> register(
+    public CompletableFuture<Result<?>> register(
             @Parameter(description = "注册信息（必填username/password）", required = true)
-            @RequestBody User user) {
-        try {
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
-            boolean saveSuccess = userService.save(user);
-            return saveSuccess ? Result.success("注册成功") : Result.error(500, "注册失败");
-        } catch (Exception e) {
-            log.error("注册异常", e);
-            return Result.error(500, "注册异常：" + e.getMessage());
-        }
+            @RequestBody UserRegisterDTO dto) {
+        // 只取用户名和密码，请求中的其他字段（如role）不会写入数据库
+        User user = new User();
+        user.setUsername(dto.getUsername());
+        user.setPassword(dto.getPassword());
+        // 加密保存及注册后的位图维护统一在服务层完成；密码加密在密码线程池执行，不占用请求线程
+        return handle(() -> userService.registerAsync(user), "注册异常");
     }
 
     @PostMapping("/login")
     @Operation(summary = "用户登录", description = "登录成功返回JWT令牌")
-    public Result<?> login(
+    public CompletableFuture<Result<?>> login(
             @Parameter(description = "登录信息（username/password）", required = true)
             @RequestBody User user) {
+        return handle(() -> userService.loginAsync(user.getUsername(), user.getPassword()), "登录异常");
+    }
+
+    private static CompletableFuture<Result<?>> handle(Supplier<CompletableFuture<Result<?>>> action, String errorMessage) {
+        CompletableFuture<Result<?>> result;
         try {
-            User dbUser = userService.getByUsername(user.getUsername());
-            if (dbUser == null) {
-                return Result.error(401, "用户名不存在");
-            }
-            if (!passwordEncoder.matches(user.getPassword(), dbUser.getPassword())) {
-                return Result.error(401, "密码错误");
-            }
-            String token = jwtUtils.generateToken(dbUser.getUsername());
-            return Result.success("登录成功", token);
+            result = action.get();
         } catch (Exception e) {
-            log.error("登录异常", e);
-            return Result.error(500, "登录异常：" + e.getMessage());
+            result = CompletableFuture.failedFuture(e);
         }
+        return result.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error(errorMessage, cause);
+            return Result.error(500, errorMessage + "：" + cause.getMessage());
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.checkin.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源
+ * 默认所有连接来自主库；只有RoutingContext允许读副本时，才在可用副本间轮询选择一个（同一范围内固定使用它）。
+ * 副本不可用（健康检查未通过、复制延迟超限）或取连接失败时当场改用主库，调用方无感知
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<ReplicaNode> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<ReplicaNode> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        for (ReplicaNode replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public List<ReplicaNode> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        ReplicaNode replica = selectReplica();
+        return replica == null ? PRIMARY : replica.getName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaNode replica = selectReplica();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                replica.markDown("获取连接失败：" + e.getMessage());
+                RoutingContext.pin(null);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ReplicaNode replica = selectReplica();
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection(username, password);
+            } catch (SQLException e) {
+                replica.markDown("获取连接失败：" + e.getMessage());
+                RoutingContext.pin(null);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 关闭副本连接池（主库连接池是独立的Bean，由容器关闭）
+     */
+    @Override
+    public void close() {
+        for (ReplicaNode replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("关闭只读副本[" + replica.getName() + "]连接池失败：" + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 允许读副本时优先沿用本范围已选中的副本，否则从上次位置起轮询第一个可用副本；没有则返回null（走主库）
+     */
+    private ReplicaNode selectReplica() {
+        if (replicas.isEmpty() || !RoutingContext.isReplicaPreferred()) {
+            return null;
+        }
+        ReplicaNode pinned = RoutingContext.pinnedReplica();
+        if (pinned != null && pinned.isAvailable()) {
+            return pinned;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaNode replica = replicas.get((start + i) % size);
+            if (replica.isAvailable()) {
+                RoutingContext.pin(replica);
+                return replica;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.checkin.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录最近写入过打卡数据的用户：窗口期内该用户的@ReplicaRead查询改走主库，
+ * 避免刚打卡就查询时因副本延迟看不到自己的记录（窗口应大于允许的最大复制延迟）。
+ * 只在本实例内有效，多实例部署时依赖复制延迟上限兜底
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    // 超过该数量时写入前先清理过期记录
+    private static final int PRUNE_THRESHOLD = 100_000;
+
+    @Value("${checkin.datasource.read-your-writes-seconds:10}")
+    private Long windowSeconds;
+
+    // 用户ID -> 窗口截止时间（System.nanoTime）
+    private final ConcurrentHashMap<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+    public void markWritten(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (deadlines.size() >= PRUNE_THRESHOLD) {
+            prune();
+        }
+        deadlines.put(userId, System.nanoTime() + TimeUnit.SECONDS.toNanos(windowSeconds));
+    }
+
+    public boolean recentlyWritten(Long userId) {
+        Long deadline = deadlines.get(userId);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - System.nanoTime() > 0) {
+            return true;
+        }
+        deadlines.remove(userId, deadline);
+        return false;
+    }
+
+    /**
+     * 清理已过窗口期的记录
+     */
+    public void prune() {
+        long now = System.nanoTime();
+        deadlines.values().removeIf(deadline -> deadline - now <= 0);
+    }
+}
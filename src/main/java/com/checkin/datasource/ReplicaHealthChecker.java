@@ -0,0 +1,112 @@
+package com.checkin.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 只读副本健康检查：连接可用且复制延迟不超过checkin.datasource.max-replica-lag-seconds才参与读路由
+ * 指标：checkin.datasource.replica.available{replica}（1可用/0不可用）、checkin.datasource.replica.lag{replica}（秒）
+ */
+@Slf4j
+@Component
+public class ReplicaHealthChecker {
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${checkin.datasource.max-replica-lag-seconds:5}")
+    private Long maxLagSeconds;
+    @Value("${checkin.datasource.health-check-timeout-seconds:2}")
+    private Integer timeoutSeconds;
+
+
+    @PostConstruct
+    public void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        for (ReplicaNode replica : routingDataSource.getReplicas()) {
+            Gauge.builder("checkin.datasource.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("checkin.datasource.replica.lag", replica, ReplicaNode::getLagSeconds)
+                    .tag("replica", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 检查全部副本并更新可用状态
+     * @return 可用副本数
+     */
+    public int checkReplicas() {
+        int available = 0;
+        for (ReplicaNode replica : routingDataSource.getReplicas()) {
+            check(replica);
+            if (replica.isAvailable()) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    void check(ReplicaNode replica) {
+        try (Connection connection = replica.getDataSource().getConnection()) {
+            if (!connection.isValid(timeoutSeconds)) {
+                replica.markDown("连接校验失败");
+                return;
+            }
+            Long lag = readLagSeconds(connection);
+            if (lag == null) {
+                replica.markDown("复制线程已停止");
+            } else if (lag > maxLagSeconds) {
+                replica.markDown("复制延迟" + lag + "秒，超过上限" + maxLagSeconds + "秒");
+            } else {
+                replica.markUp(lag);
+            }
+        } catch (SQLException e) {
+            replica.markDown("健康检查失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取复制延迟（秒）：MySQL读SHOW REPLICA STATUS的Seconds_Behind_Source（8.0.22之前为SHOW SLAVE STATUS的Seconds_Behind_Master），
+     * 复制线程停止时该列为NULL，返回null；不是复制节点（无结果）或非MySQL数据库返回0
+     */
+    Long readLagSeconds(Connection connection) throws SQLException {
+        if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            return 0L;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(timeoutSeconds);
+            String column = "Seconds_Behind_Source";
+            ResultSet resultSet;
+            try {
+                resultSet = statement.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                resultSet = statement.executeQuery("SHOW SLAVE STATUS");
+                column = "Seconds_Behind_Master";
+            }
+            try (ResultSet status = resultSet) {
+                if (!status.next()) {
+                    return 0L;
+                }
+                long lag = status.getLong(column);
+                return status.wasNull() ? null : lag;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.checkin.datasource;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+
+/**
+ * 一个只读副本及其健康状态
+ * 启动后在第一次健康检查通过前不可用；获取连接失败时立即下线，由下一次健康检查恢复
+ */
+@Slf4j
+@Getter
+public class ReplicaNode {
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile boolean available;
+    // 最近一次检查到的复制延迟（秒），-1表示未知
+    private volatile long lagSeconds = -1;
+    private volatile String lastError;
+
+    public ReplicaNode(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    void markUp(long lagSeconds) {
+        this.lagSeconds = lagSeconds;
+        this.lastError = null;
+        if (!available) {
+            available = true;
+            log.info("只读副本[{}]可用，复制延迟{}秒", name, lagSeconds);
+        }
+    }
+
+    void markDown(String reason) {
+        this.lastError = reason;
+        if (available) {
+            available = false;
+            log.warn("只读副本[{}]下线，读请求改走主库：{}", name, reason);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.checkin.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记只读的服务方法：方法内获取的数据库连接优先来自只读副本（没有可用副本时仍走主库）
+ * 方法内不能有写库操作，确需写入的部分用RoutingContext.onPrimary包起来
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+
+    /**
+     * 第一个参数是否为用户ID：是则该用户刚写入过数据时（见ReadYourWritesTracker）改走主库，保证读到自己的写入
+     */
+    boolean userScoped() default true;
+}
@@ -0,0 +1,47 @@
+package com.checkin.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+
+/**
+ * 拦截@ReplicaRead方法，在方法执行期间允许读副本
+ * 以下情况保持走主库：外层已决定路由、已在事务中（连接已绑定）、用户刚写入过数据
+ */
+public class ReplicaReadInterceptor implements MethodInterceptor {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaReadInterceptor(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (RoutingContext.isDecided() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+        RoutingContext.Scope previous = RoutingContext.enter(!mustReadPrimary(invocation));
+        try {
+            return invocation.proceed();
+        } finally {
+            RoutingContext.exit(previous);
+        }
+    }
+
+    private boolean mustReadPrimary(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        if (invocation.getThis() != null) {
+            method = AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(invocation.getThis()));
+        }
+        ReplicaRead replicaRead = AnnotatedElementUtils.findMergedAnnotation(method, ReplicaRead.class);
+        Object[] args = invocation.getArguments();
+        return replicaRead != null && replicaRead.userScoped()
+                && args.length > 0 && args[0] instanceof Long userId
+                && readYourWritesTracker.recentlyWritten(userId);
+    }
+}
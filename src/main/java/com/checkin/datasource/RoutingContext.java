@@ -0,0 +1,95 @@
+package com.checkin.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的读写路由标记（由ReplicaReadInterceptor设置，ReadWriteRoutingDataSource读取）
+ * 标记只影响之后新获取的连接；事务内已绑定的连接不会切换。
+ * 同一个读副本范围内的多次查询固定使用第一次选中的副本，分页的总数和记录不会来自延迟不同的两个副本
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    /**
+     * 当前线程是否允许读副本
+     */
+    public static boolean isReplicaPreferred() {
+        Scope scope = SCOPE.get();
+        return scope != null && scope.replica;
+    }
+
+    /**
+     * 外层是否已经决定了路由（内层的@ReplicaRead不再改变外层的决定）
+     */
+    public static boolean isDecided() {
+        return SCOPE.get() != null;
+    }
+
+    /**
+     * 在允许读副本的范围内执行
+     */
+    public static <T> T onReplica(Supplier<T> action) {
+        return runWith(true, action);
+    }
+
+    /**
+     * 强制走主库执行（只读方法里的写入、需要读到最新数据的回源）
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        return runWith(false, action);
+    }
+
+    private static <T> T runWith(boolean replica, Supplier<T> action) {
+        Scope previous = enter(replica);
+        try {
+            return action.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * 进入新的路由范围并返回之前的范围，必须在finally中用exit恢复
+     */
+    static Scope enter(boolean replica) {
+        Scope previous = SCOPE.get();
+        SCOPE.set(new Scope(replica));
+        return previous;
+    }
+
+    static void exit(Scope previous) {
+        if (previous == null) {
+            SCOPE.remove();
+        } else {
+            SCOPE.set(previous);
+        }
+    }
+
+    /**
+     * 当前范围已选中的副本（没有或不在读副本范围内时为null）
+     */
+    static ReplicaNode pinnedReplica() {
+        Scope scope = SCOPE.get();
+        return scope == null ? null : scope.pinned;
+    }
+
+    static void pin(ReplicaNode replica) {
+        Scope scope = SCOPE.get();
+        if (scope != null && scope.replica) {
+            scope.pinned = replica;
+        }
+    }
+
+    static final class Scope {
+        private final boolean replica;
+        private ReplicaNode pinned;
+
+        private Scope(boolean replica) {
+            this.replica = replica;
+        }
+    }
+}
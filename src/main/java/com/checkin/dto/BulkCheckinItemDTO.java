@@ -0,0 +1,36 @@
+package com.checkin.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 离线打卡批量导入的单条记录（NDJSON请求体中的一行）
+ */
+@Data
+public class BulkCheckinItemDTO {
+    /**
+     * 客户端生成的记录标识（原样返回，便于客户端对账、删除本地队列）
+     */
+    private String clientId;
+
+    /**
+     * 用户ID（可不传，默认当前登录用户；仅管理员可为他人导入）
+     */
+    private Long userId;
+
+    /**
+     * 打卡地点（必填，最多100字符）
+     */
+    private String location;
+
+    /**
+     * 纬度、经度（可选，传入时需落在打卡区域内）
+     */
+    private Double latitude;
+    private Double longitude;
+
+    /**
+     * 离线时的实际打卡时间（ISO格式，如2025-12-20T07:55:03；不传则取服务器当前时间）
+     */
+    private LocalDateTime checkinTime;
+}
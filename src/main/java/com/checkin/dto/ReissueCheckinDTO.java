@@ -9,7 +9,7 @@ import java.time.LocalDate;
 @Data
 public class ReissueCheckinDTO {
     /**
-     * 用户ID
+     * 用户ID（可不传，默认当前登录用户；仅管理员可为他人补卡）
      */
     private Long userId;
 
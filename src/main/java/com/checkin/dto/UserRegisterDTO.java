@@ -0,0 +1,19 @@
+package com.checkin.dto;
+
+import lombok.Data;
+
+/**
+ * 用户注册请求参数DTO（只接收用户名和密码，角色固定为普通用户）
+ */
+@Data
+public class UserRegisterDTO {
+    /**
+     * 用户名（3-20位）
+     */
+    private String username;
+
+    /**
+     * 密码（不少于6位）
+     */
+    private String password;
+}
@@ -0,0 +1,31 @@
+package com.checkin.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日打卡汇总（全体用户），由定时任务从checkin_record聚合写入，管理端统计接口只读此表
+ */
+@Data
+@TableName("checkin_daily_rollup")
+public class CheckinDailyRollup {
+    @TableId(type = IdType.INPUT)
+    private LocalDate statDate; // 统计日期（主键）
+    private Integer checkinCount; // 正常打卡人数
+    private Integer reissueCount; // 补卡人数
+    private Integer activeUsers; // 当天有打卡（含补卡）的用户数
+    private Integer totalUsers; // 当天结束时的注册用户总数
+    private LocalDateTime updateTime; // 最后聚合时间
+
+    // 当天打卡率（0-1），不入库
+    public double getCheckinRate() {
+        if (totalUsers == null || totalUsers == 0 || activeUsers == null) {
+            return 0;
+        }
+        return Math.round(activeUsers * 10000.0 / totalUsers) / 10000.0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.checkin.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 打卡区域配置（教学楼、宿舍、运动场等），修改后由定时任务或管理端接口热加载
+ */
+@Data
+@TableName("checkin_geofence")
+public class CheckinGeofence {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String name; // 区域名称（打卡成功后返回给前端）
+    private String shape; // 形状：POLYGON-多边形，CIRCLE-圆形
+    private String points; // 多边形顶点，格式"纬度,经度;纬度,经度;..."（按顺序，至少3个）
+    private Double centerLatitude; // 圆心纬度
+    private Double centerLongitude; // 圆心经度
+    private Double radiusMeters; // 半径（米）
+    private Integer enabled; // 是否启用：1-启用，0-停用
+    private LocalDateTime updateTime; // 更新时间（热加载据此判断是否有变更）
+}
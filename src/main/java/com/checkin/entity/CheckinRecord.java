@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 import com.baomidou.mybatisplus.annotation.TableField;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -14,6 +16,7 @@ public class CheckinRecord {
     private Long id;
     private Long userId; // 关联用户ID（外键）
     private LocalDateTime checkinTime; // 打卡时间
+    private LocalDate checkinDate; // 打卡日期（与user_id组成唯一约束uk_user_checkin_date，数据库层防重复打卡）
     private String location; // 打卡地点（可选）
     private Integer status; // 状态：1-正常，0-异常
     // 新增字段：纬度和经度
@@ -28,6 +31,10 @@ public class CheckinRecord {
     @TableField(value = "reissue_reason") // 补卡理由
     private String reissueReason;
 
+    @TableField(exist = false) // 打卡时命中的打卡区域名称（不入库，仅在打卡结果中返回）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String fenceName;
+
     public void setRemark(String reason) {
     }
 }
\ No newline at end of file
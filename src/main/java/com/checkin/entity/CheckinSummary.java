@@ -0,0 +1,33 @@
+package com.checkin.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 用户打卡汇总（反范式），由正常打卡/补卡增量维护，统计接口只读这一行
+ */
+@Data
+@TableName("checkin_summary")
+public class CheckinSummary {
+    @TableId(type = IdType.INPUT)
+    private Long userId; // 用户ID（主键）
+    private Integer currentStreak; // 最近一段连续打卡的天数
+    private LocalDate streakStartDate; // 最近一段连续打卡的开始日期
+    private LocalDate lastCheckinDate; // 最后打卡日期
+    private Integer longestStreak; // 历史最长连续天数
+    private Integer totalDays; // 累计打卡天数（去重）
+    private Integer statMonth; // monthDays对应的月份（yyyyMM）
+    private Integer monthDays; // statMonth当月打卡天数
+
+    // 紧挨着最近一段之前的那一段连续打卡，用于补卡"桥接"两段连续时O(1)合并
+    private Integer prevStreak; // 天数：0-之前没有打卡，-1-未知（需重建）
+    @TableField(updateStrategy = FieldStrategy.IGNORED) // 允许更新为null（桥接合并后清空）
+    private LocalDate prevStreakEndDate; // 结束日期
+    private LocalDateTime updateTime; // 更新时间
+}
@@ -0,0 +1,21 @@
+package com.checkin.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 打卡记录分片目录项：用户的打卡记录不在分片函数算出的分片时才有这一行
+ */
+@Data
+@TableName("checkin_user_shard")
+public class CheckinUserShard {
+    @TableId(type = IdType.INPUT)
+    private Long userId; // 用户ID（主键）
+    private Integer shardIndex; // 打卡记录所在分片
+    private Integer moving; // 1-迁移中（暂停写入），0-正常
+    private LocalDateTime updateTime; // 最后修改时间
+}
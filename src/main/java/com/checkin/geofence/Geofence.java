@@ -0,0 +1,169 @@
+package com.checkin.geofence;
+
+/**
+ * 打卡区域（不可变）：任意多边形或圆形
+ * 多边形按经纬度平面做射线法判断（校园尺度误差可忽略）；圆形按等距投影换算为米后判断
+ */
+public final class Geofence {
+
+    // 每度纬度对应的米数（球面近似）
+    static final double METERS_PER_DEGREE = 111_320.0;
+
+    public enum Shape {
+        POLYGON, // 多边形
+        CIRCLE   // 圆形
+    }
+
+    private final long id;
+    private final String name;
+    private final Shape shape;
+
+    // 外接矩形（空间索引按它分配网格，判断时先用它快速排除）
+    private final double minLat;
+    private final double maxLat;
+    private final double minLng;
+    private final double maxLng;
+    // 近似面积（平方米），多个区域同时命中时取面积最小（最具体）的
+    private final double area;
+
+    // 多边形顶点
+    private final double[] lats;
+    private final double[] lngs;
+
+    // 圆心、半径及圆心纬度处经度方向的缩放系数
+    private final double centerLat;
+    private final double centerLng;
+    private final double radiusSquared;
+    private final double lngScale;
+
+    private Geofence(long id, String name, Shape shape, double[] lats, double[] lngs,
+                     double centerLat, double centerLng, double radiusMeters) {
+        this.id = id;
+        this.name = name;
+        this.shape = shape;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.centerLat = centerLat;
+        this.centerLng = centerLng;
+        this.radiusSquared = radiusMeters * radiusMeters;
+        this.lngScale = Math.cos(Math.toRadians(centerLat));
+
+        if (shape == Shape.CIRCLE) {
+            double latDelta = radiusMeters / METERS_PER_DEGREE;
+            double lngDelta = radiusMeters / (METERS_PER_DEGREE * Math.max(lngScale, 1e-6));
+            minLat = centerLat - latDelta;
+            maxLat = centerLat + latDelta;
+            minLng = centerLng - lngDelta;
+            maxLng = centerLng + lngDelta;
+            area = Math.PI * radiusSquared;
+        } else {
+            double loLat = Double.MAX_VALUE, hiLat = -Double.MAX_VALUE;
+            double loLng = Double.MAX_VALUE, hiLng = -Double.MAX_VALUE;
+            double twiceArea = 0;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                loLat = Math.min(loLat, lats[i]);
+                hiLat = Math.max(hiLat, lats[i]);
+                loLng = Math.min(loLng, lngs[i]);
+                hiLng = Math.max(hiLng, lngs[i]);
+                twiceArea += (lngs[j] * lats[i]) - (lngs[i] * lats[j]);
+            }
+            minLat = loLat;
+            maxLat = hiLat;
+            minLng = loLng;
+            maxLng = hiLng;
+            double scale = Math.cos(Math.toRadians((loLat + hiLat) / 2));
+            area = Math.abs(twiceArea) / 2 * METERS_PER_DEGREE * METERS_PER_DEGREE * scale;
+        }
+    }
+
+    /**
+     * 多边形区域（顶点按顺序给出，首尾无需重复）
+     */
+    public static Geofence polygon(long id, String name, double[] lats, double[] lngs) {
+        if (lats == null || lngs == null || lats.length != lngs.length || lats.length < 3) {
+            throw new IllegalArgumentException("多边形至少需要3个顶点");
+        }
+        for (int i = 0; i < lats.length; i++) {
+            checkCoordinate(lats[i], lngs[i]);
+        }
+        return new Geofence(id, name, Shape.POLYGON, lats.clone(), lngs.clone(), 0, 0, 0);
+    }
+
+    /**
+     * 圆形区域
+     */
+    public static Geofence circle(long id, String name, double centerLat, double centerLng, double radiusMeters) {
+        checkCoordinate(centerLat, centerLng);
+        if (!(radiusMeters > 0)) {
+            throw new IllegalArgumentException("圆形区域半径必须大于0");
+        }
+        return new Geofence(id, name, Shape.CIRCLE, null, null, centerLat, centerLng, radiusMeters);
+    }
+
+    /**
+     * 经纬度矩形区域（兼容原checkin.valid.*配置）
+     */
+    public static Geofence box(long id, String name, double minLat, double maxLat, double minLng, double maxLng) {
+        return polygon(id, name, new double[]{minLat, minLat, maxLat, maxLat}, new double[]{minLng, maxLng, maxLng, minLng});
+    }
+
+    /**
+     * 点是否在区域内（边界上的点按射线法结果处理，可能落在相邻区域）
+     */
+    public boolean contains(double lat, double lng) {
+        if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+            return false;
+        }
+        if (shape == Shape.CIRCLE) {
+            double dy = (lat - centerLat) * METERS_PER_DEGREE;
+            double dx = (lng - centerLng) * METERS_PER_DEGREE * lngScale;
+            return dx * dx + dy * dy <= radiusSquared;
+        }
+        boolean inside = false;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            if ((lats[i] > lat) != (lats[j] > lat)
+                    && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public double getArea() {
+        return area;
+    }
+
+    double getMinLat() {
+        return minLat;
+    }
+
+    double getMaxLat() {
+        return maxLat;
+    }
+
+    double getMinLng() {
+        return minLng;
+    }
+
+    double getMaxLng() {
+        return maxLng;
+    }
+
+    private static void checkCoordinate(double lat, double lng) {
+        if (!(lat >= -90 && lat <= 90) || !(lng >= -180 && lng <= 180)) {
+            throw new IllegalArgumentException("经纬度超出范围：" + lat + "," + lng);
+        }
+    }
+}
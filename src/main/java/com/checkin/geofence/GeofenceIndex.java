@@ -0,0 +1,138 @@
+package com.checkin.geofence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 打卡区域空间索引（不可变快照）：固定大小的经纬度网格
+ * 每个区域按外接矩形登记到覆盖的网格中，查询时只需定位一个网格、检查其中少量候选区域。
+ * 网格表用开放寻址的原始long键数组，查询路径无装箱、无对象分配；
+ * 覆盖网格数超过上限的大区域（如整个城市）单独存放，在网格候选都未命中后再逐个判断。
+ * 同一网格内的候选按面积升序排列，命中多个区域时返回面积最小（最具体）的
+ */
+public final class GeofenceIndex {
+
+    // 单个区域最多登记的网格数，超过则放入大区域列表
+    static final int MAX_CELLS_PER_FENCE = 4096;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final Geofence[] NONE = new Geofence[0];
+    private static final Comparator<Geofence> BY_AREA = Comparator.comparingDouble(Geofence::getArea);
+
+    private final double cellSize;
+    private final long[] keys;
+    private final Geofence[][] cells;
+    private final int mask;
+    private final Geofence[] large;
+    private final List<Geofence> fences;
+
+    private GeofenceIndex(double cellSize, long[] keys, Geofence[][] cells, Geofence[] large, List<Geofence> fences) {
+        this.cellSize = cellSize;
+        this.keys = keys;
+        this.cells = cells;
+        this.mask = keys.length - 1;
+        this.large = large;
+        this.fences = fences;
+    }
+
+    /**
+     * 构建索引
+     * @param fences 区域列表
+     * @param cellSizeDegrees 网格边长（度），约为校园内典型区域的尺寸，0.01度约1公里
+     */
+    public static GeofenceIndex build(List<Geofence> fences, double cellSizeDegrees) {
+        if (!(cellSizeDegrees > 0)) {
+            throw new IllegalArgumentException("网格边长必须大于0");
+        }
+        Map<Long, List<Geofence>> grid = new HashMap<>();
+        List<Geofence> large = new ArrayList<>();
+        for (Geofence fence : fences) {
+            int row0 = cell(fence.getMinLat(), cellSizeDegrees);
+            int row1 = cell(fence.getMaxLat(), cellSizeDegrees);
+            int col0 = cell(fence.getMinLng(), cellSizeDegrees);
+            int col1 = cell(fence.getMaxLng(), cellSizeDegrees);
+            if ((long) (row1 - row0 + 1) * (col1 - col0 + 1) > MAX_CELLS_PER_FENCE) {
+                large.add(fence);
+                continue;
+            }
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    grid.computeIfAbsent(key(row, col), k -> new ArrayList<>()).add(fence);
+                }
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(grid.size() * 2, 2) - 1) << 1;
+        long[] keys = new long[capacity];
+        Geofence[][] cells = new Geofence[capacity][];
+        Arrays.fill(keys, EMPTY);
+        for (Map.Entry<Long, List<Geofence>> entry : grid.entrySet()) {
+            List<Geofence> candidates = entry.getValue();
+            candidates.sort(BY_AREA);
+            int slot = slot(entry.getKey(), capacity - 1);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = entry.getKey();
+            cells[slot] = candidates.toArray(NONE);
+        }
+        large.sort(BY_AREA);
+        return new GeofenceIndex(cellSizeDegrees, keys, cells, large.toArray(NONE),
+                Collections.unmodifiableList(new ArrayList<>(fences)));
+    }
+
+    /**
+     * 查询点所在的区域
+     * @return 命中的区域（多个时取面积最小的）；不在任何区域内返回null
+     */
+    public Geofence match(double lat, double lng) {
+        long key = key(cell(lat, cellSize), cell(lng, cellSize));
+        int slot = slot(key, mask);
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                for (Geofence fence : cells[slot]) {
+                    if (fence.contains(lat, lng)) {
+                        return fence;
+                    }
+                }
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        for (Geofence fence : large) {
+            if (fence.contains(lat, lng)) {
+                return fence;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 索引中的全部区域
+     */
+    public List<Geofence> getFences() {
+        return fences;
+    }
+
+    public int size() {
+        return fences.size();
+    }
+
+    private static int cell(double degrees, double cellSize) {
+        return (int) Math.floor(degrees / cellSize);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,172 @@
+package com.checkin.geofence;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.CheckinGeofence;
+import com.checkin.mapper.CheckinGeofenceMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 打卡区域注册表：持有当前区域索引快照
+ * 打卡路径只读取快照引用，无锁；加载新区域时在后台构建完整索引后一次性替换（热切换）。
+ * 区域来自checkin_geofence表；表为空时使用checkin.valid.*配置的经纬度矩形作为默认区域，兼容原有部署
+ */
+@Slf4j
+@Component
+public class GeofenceRegistry {
+
+    // 默认区域的ID
+    public static final long DEFAULT_FENCE_ID = 0;
+
+    @Autowired
+    private CheckinGeofenceMapper checkinGeofenceMapper;
+
+    @Value("${checkin.geofence.cell-size-degrees:0.01}")
+    private double cellSizeDegrees;
+
+    // 默认区域（原打卡有效经纬度范围）
+    @Value("${checkin.valid.latitude.min}")
+    private double minLatitude;
+    @Value("${checkin.valid.latitude.max}")
+    private double maxLatitude;
+    @Value("${checkin.valid.longitude.min}")
+    private double minLongitude;
+    @Value("${checkin.valid.longitude.max}")
+    private double maxLongitude;
+
+    private final AtomicReference<GeofenceIndex> snapshot = new AtomicReference<>();
+    // 上次加载时表的版本（行数+最后更新时间），未变化时定时刷新跳过重建
+    private volatile String loadedVersion;
+
+    @PostConstruct
+    public void init() {
+        replace(List.of(defaultFence()));
+    }
+
+    /**
+     * 查询点所在的打卡区域
+     * @return 命中的区域；不在任何区域内返回null
+     */
+    public Geofence match(double latitude, double longitude) {
+        return snapshot.get().match(latitude, longitude);
+    }
+
+    /**
+     * 当前生效的区域索引
+     */
+    public GeofenceIndex current() {
+        return snapshot.get();
+    }
+
+    /**
+     * 用给定区域构建新索引并替换当前快照
+     */
+    public void replace(List<Geofence> fences) {
+        snapshot.set(GeofenceIndex.build(fences, cellSizeDegrees));
+    }
+
+    /**
+     * 启动完成后加载区域表，数据库不可用时保留默认区域
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("打卡区域加载失败，暂用默认区域：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 表有变更时重新加载（定时任务调用）
+     * @return true=已重新加载
+     */
+    public boolean refreshIfChanged() {
+        if (Objects.equals(tableVersion(), loadedVersion)) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * 从区域表重新加载全部启用的区域（格式错误的区域跳过并告警）
+     * @return 生效的区域数
+     */
+    public int reload() {
+        long start = System.nanoTime();
+        String version = tableVersion();
+        List<CheckinGeofence> rows = checkinGeofenceMapper.selectList(new QueryWrapper<CheckinGeofence>()
+                .eq("enabled", 1)
+                .orderByAsc("id"));
+        List<Geofence> fences = new ArrayList<>(rows.size());
+        for (CheckinGeofence row : rows) {
+            try {
+                fences.add(toGeofence(row));
+            } catch (RuntimeException e) {
+                log.warn("打卡区域[{}]{}配置有误，已跳过：{}", row.getId(), row.getName(), e.getMessage());
+            }
+        }
+        if (fences.isEmpty()) {
+            fences.add(defaultFence());
+        }
+        replace(fences);
+        loadedVersion = version;
+        log.info("打卡区域加载完成，共{}个区域，耗时{}ms", fences.size(), (System.nanoTime() - start) / 1_000_000);
+        return fences.size();
+    }
+
+    // ========== 私有工具方法 ==========
+
+    private String tableVersion() {
+        List<Map<String, Object>> rows = checkinGeofenceMapper.selectMaps(new QueryWrapper<CheckinGeofence>()
+                .select("COUNT(*) AS cnt", "MAX(update_time) AS version"));
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return "0";
+        }
+        return rows.get(0).get("cnt") + "@" + rows.get(0).get("version");
+    }
+
+    private Geofence defaultFence() {
+        return Geofence.box(DEFAULT_FENCE_ID, "默认打卡区域", minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+
+    static Geofence toGeofence(CheckinGeofence row) {
+        long id = row.getId();
+        if ("CIRCLE".equalsIgnoreCase(row.getShape())) {
+            if (row.getCenterLatitude() == null || row.getCenterLongitude() == null || row.getRadiusMeters() == null) {
+                throw new IllegalArgumentException("圆形区域缺少圆心或半径");
+            }
+            return Geofence.circle(id, row.getName(), row.getCenterLatitude(), row.getCenterLongitude(), row.getRadiusMeters());
+        }
+        if (!"POLYGON".equalsIgnoreCase(row.getShape())) {
+            throw new IllegalArgumentException("未知的区域形状：" + row.getShape());
+        }
+        if (row.getPoints() == null || row.getPoints().isBlank()) {
+            throw new IllegalArgumentException("多边形区域缺少顶点");
+        }
+        String[] points = row.getPoints().trim().split("\\s*;\\s*");
+        double[] lats = new double[points.length];
+        double[] lngs = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            String[] latLng = points[i].split("\\s*,\\s*");
+            if (latLng.length != 2) {
+                throw new IllegalArgumentException("顶点格式应为\"纬度,经度\"：" + points[i]);
+            }
+            lats[i] = Double.parseDouble(latLng[0]);
+            lngs[i] = Double.parseDouble(latLng[1]);
+        }
+        return Geofence.polygon(id, row.getName(), lats, lngs);
+    }
+}
@@ -0,0 +1,314 @@
+package com.checkin.ingest;
+
+import com.checkin.entity.CheckinRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 打卡预写日志（内存映射文件）
+ * 段文件：journal-{段号}.log，头部8字节（魔数+版本），之后顺序追加记录：
+ * [int 负载长度][long 序号][long 用户ID][long 打卡时间秒][int 纳秒][byte 经纬度标记][double 纬度][double 经度][short 地点长度][地点UTF-8][int CRC32]
+ * checkpoint文件保存已入库的最大序号；启动时重放序号大于checkpoint的记录，
+ * 遇到长度为0或CRC不匹配即视为日志末尾（进程崩溃时写了一半的记录会被丢弃）。
+ * 数据写入映射内存即进入操作系统页缓存，进程崩溃不丢失；forceOnAppend=true时每条记录刷盘，可抵御机器掉电
+ */
+@Slf4j
+public class CheckinJournal implements Closeable {
+
+    private static final int MAGIC = 0x434B4A31; // "CKJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    // 除地点外的定长部分：序号8+用户ID8+秒8+纳秒4+标记1+纬度8+经度8+地点长度2
+    private static final int FIXED_PAYLOAD_SIZE = 47;
+    private static final int MAX_LOCATION_BYTES = 1024;
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean forceOnAppend;
+
+    // 段号 -> 该段最后一条记录的序号（用于checkpoint后删除已入库的段）
+    private final TreeMap<Long, Long> segmentLastSeq = new TreeMap<>();
+    private final List<Entry> unflushed = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel checkpointChannel;
+    private MappedByteBuffer checkpoint;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long activeSegment;
+    private long lastSeq;
+    private long committedSeq;
+
+    public CheckinJournal(Path dir, int segmentBytes, boolean forceOnAppend) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = Math.max(segmentBytes, MIN_SEGMENT_BYTES);
+        this.forceOnAppend = forceOnAppend;
+        Files.createDirectories(dir);
+
+        checkpointChannel = FileChannel.open(dir.resolve("checkpoint"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        committedSeq = checkpoint.getLong(0);
+        lastSeq = committedSeq;
+
+        recover();
+    }
+
+    /**
+     * 追加一条打卡记录
+     * @return 记录序号
+     */
+    public synchronized long append(CheckinRecord record) {
+        byte[] location = record.getLocation() == null ? new byte[0] : record.getLocation().getBytes(StandardCharsets.UTF_8);
+        if (location.length > MAX_LOCATION_BYTES) {
+            throw new IllegalArgumentException("打卡地点过长");
+        }
+        int payloadSize = FIXED_PAYLOAD_SIZE + location.length;
+        int entrySize = Integer.BYTES + payloadSize + Integer.BYTES;
+        if (active.remaining() < entrySize + Integer.BYTES) {
+            roll();
+        }
+
+        long seq = lastSeq + 1;
+        int start = active.position();
+        active.putInt(payloadSize);
+        active.putLong(seq);
+        active.putLong(record.getUserId());
+        active.putLong(record.getCheckinTime().toEpochSecond(ZoneOffset.UTC));
+        active.putInt(record.getCheckinTime().getNano());
+        active.put((byte) ((record.getLatitude() != null ? 1 : 0) | (record.getLongitude() != null ? 2 : 0)));
+        active.putDouble(record.getLatitude() != null ? record.getLatitude() : 0);
+        active.putDouble(record.getLongitude() != null ? record.getLongitude() : 0);
+        active.putShort((short) location.length);
+        active.put(location);
+        active.putInt(checksum(active, start + Integer.BYTES, payloadSize));
+        // 末尾写0作为结束标记（映射文件初始全0，这里显式写入以防复用旧段）
+        active.putInt(active.position(), 0);
+        if (forceOnAppend) {
+            active.force();
+        }
+
+        lastSeq = seq;
+        segmentLastSeq.put(activeSegment, seq);
+        return seq;
+    }
+
+    /**
+     * 记录已入库的最大序号，并删除全部记录都已入库的旧段
+     */
+    public synchronized void commit(long seq) {
+        if (seq <= committedSeq) {
+            return;
+        }
+        committedSeq = seq;
+        checkpoint.putLong(0, seq);
+        checkpoint.force();
+
+        while (!segmentLastSeq.isEmpty() && segmentLastSeq.firstKey() < activeSegment
+                && segmentLastSeq.firstEntry().getValue() <= seq) {
+            long segment = segmentLastSeq.pollFirstEntry().getKey();
+            try {
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                log.warn("删除已入库的日志段{}失败：{}", segment, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 取出启动恢复时发现的未入库记录（只能取一次）
+     */
+    public synchronized List<Entry> takeUnflushed() {
+        List<Entry> entries = new ArrayList<>(unflushed);
+        unflushed.clear();
+        return entries;
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized long getCommittedSeq() {
+        return committedSeq;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.force();
+        }
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        checkpointChannel.close();
+    }
+
+    // ========== 私有工具方法 ==========
+
+    /**
+     * 扫描全部段：收集未入库记录，定位最后一段的写入位置
+     */
+    private void recover() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segments.sort(null);
+
+        if (segments.isEmpty()) {
+            openSegment(1, true);
+            return;
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            long segment = segments.get(i);
+            openSegment(segment, false);
+            scan(segment);
+            if (!last) {
+                activeChannel.close();
+                if (!segmentLastSeq.containsKey(segment)) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        }
+        if (!unflushed.isEmpty()) {
+            log.info("打卡日志恢复：发现{}条未入库记录（序号{}~{}）",
+                    unflushed.size(), unflushed.get(0).getSeq(), unflushed.get(unflushed.size() - 1).getSeq());
+        }
+    }
+
+    private void scan(long segment) {
+        ByteBuffer buffer = active;
+        buffer.position(HEADER_SIZE);
+        while (buffer.remaining() >= Integer.BYTES * 2) {
+            int start = buffer.position();
+            int payloadSize = buffer.getInt();
+            if (payloadSize < FIXED_PAYLOAD_SIZE || payloadSize > FIXED_PAYLOAD_SIZE + MAX_LOCATION_BYTES
+                    || buffer.remaining() < payloadSize + Integer.BYTES) {
+                buffer.position(start);
+                break;
+            }
+            int expected = checksum(buffer, start + Integer.BYTES, payloadSize);
+            if (buffer.getInt(start + Integer.BYTES + payloadSize) != expected) {
+                log.warn("日志段{}偏移{}处记录校验失败，视为日志末尾", segment, start);
+                buffer.position(start);
+                break;
+            }
+
+            long seq = buffer.getLong();
+            CheckinRecord record = new CheckinRecord();
+            record.setUserId(buffer.getLong());
+            long epochSecond = buffer.getLong();
+            int nano = buffer.getInt();
+            record.setCheckinTime(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+            record.setCheckinDate(record.getCheckinTime().toLocalDate());
+            byte flags = buffer.get();
+            double latitude = buffer.getDouble();
+            double longitude = buffer.getDouble();
+            record.setLatitude((flags & 1) != 0 ? latitude : null);
+            record.setLongitude((flags & 2) != 0 ? longitude : null);
+            byte[] location = new byte[buffer.getShort()];
+            buffer.get(location);
+            record.setLocation(new String(location, StandardCharsets.UTF_8));
+            buffer.getInt(); // CRC
+            // 日志只记录正常打卡
+            record.setStatus(1);
+            record.setIsReissue(0);
+
+            lastSeq = Math.max(lastSeq, seq);
+            segmentLastSeq.put(segment, seq);
+            if (seq > committedSeq) {
+                unflushed.add(new Entry(seq, record));
+            }
+        }
+        // 截断写了一半的记录，后续从这里继续追加
+        buffer.putInt(buffer.position(), 0);
+    }
+
+    private void roll() {
+        try {
+            active.force();
+            activeChannel.close();
+            openSegment(activeSegment + 1, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打卡日志切换新段失败", e);
+        }
+    }
+
+    private void openSegment(long segment, boolean create) throws IOException {
+        Path path = segmentPath(segment);
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentBytes, activeChannel.size()));
+        activeSegment = segment;
+        if (create) {
+            active.putInt(0, MAGIC);
+            active.putInt(4, VERSION);
+            active.putInt(HEADER_SIZE, 0);
+            active.position(HEADER_SIZE);
+        } else if (active.getInt(0) != MAGIC) {
+            throw new IOException("无效的打卡日志段：" + path);
+        }
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 日志中的一条记录
+     */
+    public static final class Entry {
+        private final long seq;
+        private final CheckinRecord record;
+
+        public Entry(long seq, CheckinRecord record) {
+            this.seq = seq;
+            this.record = record;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public CheckinRecord getRecord() {
+            return record;
+        }
+    }
+
+    /**
+     * 当前各段的最后序号（监控/测试用）
+     */
+    synchronized Map<Long, Long> segments() {
+        return new TreeMap<>(segmentLastSeq);
+    }
+}
@@ -0,0 +1,22 @@
+package com.checkin.ingest;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡记录由后台批量入库（异步写入模式、离线打卡批量导入）后发布的事件（用于更新打卡汇总、清除缓存）
+ */
+@Getter
+public class CheckinPersistedEvent extends ApplicationEvent {
+
+    private final Long userId;
+    private final LocalDate checkinDate;
+
+    public CheckinPersistedEvent(Object source, Long userId, LocalDate checkinDate) {
+        super(source);
+        this.userId = userId;
+        this.checkinDate = checkinDate;
+    }
+}
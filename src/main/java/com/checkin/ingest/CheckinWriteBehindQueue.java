@@ -0,0 +1,320 @@
+package com.checkin.ingest;
+
+import com.checkin.entity.CheckinRecord;
+import com.checkin.mapper.CheckinRecordMapper;
+import com.checkin.shard.CheckinRecordShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 打卡异步写入队列（checkin.ingest.mode=journal时启用）
+ * 接收打卡：先追加到本地内存映射预写日志，再放入内存队列，立即返回；
+ * 后台线程按条数（flush-size）或时间（flush-interval-ms）攒批，用多行INSERT批量入库后推进checkpoint。
+ * 数据库不可用时保留当前批次退避重试，不推进checkpoint；进程重启后从日志重放未入库记录
+ * （上次已入库但未推进checkpoint的记录重放时触发唯一键冲突，照常发布入库事件，汇总按天幂等更新）。
+ * 待入库条数达到max-pending时拒绝新打卡（背压），避免日志和内存无限增长
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "checkin.ingest.mode", havingValue = "journal")
+public class CheckinWriteBehindQueue {
+
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+    // 入库时因唯一键冲突被跳过的记录使用的ID标记（不是数据库中的行）
+    private static final Long DUPLICATE_ID = -1L;
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${checkin.ingest.journal-dir:./data/journal}")
+    private String journalDir;
+    @Value("${checkin.ingest.segment-size-mb:64}")
+    private Integer segmentSizeMb;
+    @Value("${checkin.ingest.force-on-append:false}")
+    private Boolean forceOnAppend;
+    @Value("${checkin.ingest.flush-size:500}")
+    private Integer flushSize;
+    @Value("${checkin.ingest.flush-interval-ms:200}")
+    private Long flushIntervalMs;
+    @Value("${checkin.ingest.max-pending:50000}")
+    private Integer maxPending;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object appendLock = new Object();
+
+    private CheckinJournal journal;
+    private Thread drainer;
+    private volatile boolean running;
+
+    private Counter rejectedCounter;
+    private Counter duplicateCounter;
+    private Timer drainLagTimer;
+    private DistributionSummary batchSizeSummary;
+
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new CheckinJournal(Paths.get(journalDir), segmentSizeMb * 1024 * 1024, forceOnAppend);
+        long now = System.nanoTime();
+        for (CheckinJournal.Entry entry : journal.takeUnflushed()) {
+            queue.add(new Pending(entry.getSeq(), entry.getRecord(), now, true));
+            pending.incrementAndGet();
+        }
+
+        if (meterRegistry != null) {
+            Gauge.builder("checkin.ingest.queue.depth", pending, AtomicInteger::get)
+                    .description("待入库的打卡记录数")
+                    .register(meterRegistry);
+            Gauge.builder("checkin.ingest.journal.unflushed", this, queue -> queue.journal.getLastSeq() - queue.journal.getCommittedSeq())
+                    .description("预写日志中尚未推进checkpoint的记录数")
+                    .register(meterRegistry);
+            rejectedCounter = Counter.builder("checkin.ingest.rejected")
+                    .description("因背压被拒绝的打卡次数")
+                    .register(meterRegistry);
+            duplicateCounter = Counter.builder("checkin.ingest.duplicates")
+                    .description("入库时因当天已有打卡记录（唯一键冲突）被跳过的记录数")
+                    .register(meterRegistry);
+            drainLagTimer = Timer.builder("checkin.ingest.drain.lag")
+                    .description("打卡从接收到入库的延迟")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            batchSizeSummary = DistributionSummary.builder("checkin.ingest.batch.size")
+                    .description("每批入库的记录数")
+                    .register(meterRegistry);
+        }
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "checkin-write-behind");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("打卡异步写入已启用，日志目录：{}，批量：{}条/{}ms，背压上限：{}，待重放：{}条",
+                journalDir, flushSize, flushIntervalMs, maxPending, pending.get());
+    }
+
+    /**
+     * 接收一条打卡记录（已完成全部业务校验）
+     * 入队的是副本：后台线程入库时回填ID，不修改调用方持有（已返回给客户端）的对象
+     * @return true=已写入日志；false=待入库条数已达上限，拒绝
+     */
+    public boolean offer(CheckinRecord record) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            return false;
+        }
+        try {
+            // 写日志与入队在同一把锁内，保证队列顺序与日志序号一致（checkpoint只能按序推进）
+            synchronized (appendLock) {
+                CheckinRecord copy = new CheckinRecord();
+                BeanUtils.copyProperties(record, copy);
+                long seq = journal.append(copy);
+                queue.add(new Pending(seq, copy, System.nanoTime(), false));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 当前待入库条数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        drainer.interrupt();
+        drainer.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+        log.info("打卡异步写入已停止，剩余{}条待入库记录保留在日志中，下次启动重放", pending.get());
+    }
+
+    // ========== 后台入库 ==========
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+                if (!batch.isEmpty()) {
+                    flushWithRetry(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // 停机：尽量把已在队列中的记录入库一次，失败则留给下次启动重放
+                    queue.drainTo(batch);
+                    if (!batch.isEmpty() && flush(batch)) {
+                        batch.clear();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 攒批：拿到第一条后最多再等flush-interval-ms，或攒满flush-size条
+     */
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0) {
+                break;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flushWithRetry(List<Pending> batch) throws InterruptedException {
+        long backoff = 100;
+        while (!flush(batch)) {
+            if (!running) {
+                throw new InterruptedException();
+            }
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * 批量入库并推进checkpoint（按用户所在分片分组，每组一次多行INSERT）
+     * @return false=数据库不可用或有用户正在迁移分片，整批保留待重试（已入库的记录带有ID，重试时跳过）
+     */
+    private boolean flush(List<Pending> batch) {
+        Map<Integer, List<CheckinRecord>> groups = new TreeMap<>();
+        for (Pending item : batch) {
+            CheckinRecord record = item.record;
+            if (record.getId() != null) {
+                continue;
+            }
+            if (checkinRecordShards.isMoving(record.getUserId())) {
+                log.info("用户[{}]正在迁移分片，本批打卡记录稍后入库", record.getUserId());
+                return false;
+            }
+            groups.computeIfAbsent(checkinRecordShards.shardOf(record.getUserId()), k -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<Integer, List<CheckinRecord>> group : groups.entrySet()) {
+            if (!insertGroup(checkinRecordShards.shard(group.getKey()).getRecordMapper(), group.getValue())) {
+                return false;
+            }
+        }
+
+        journal.commit(batch.get(batch.size() - 1).seq);
+        pending.addAndGet(-batch.size());
+
+        long now = System.nanoTime();
+        for (Pending item : batch) {
+            if (drainLagTimer != null) {
+                drainLagTimer.record(now - item.acceptedNanos, TimeUnit.NANOSECONDS);
+            }
+            if (DUPLICATE_ID.equals(item.record.getId()) && !item.replayed) {
+                // 当天已有其他打卡记录，本条没有写入数据库，不能据此更新汇总、日历和排行榜
+                continue;
+            }
+            // 重放的记录冲突时，多半是上次已入库、只是没来得及推进checkpoint，入库事件可能没有发布过
+            eventPublisher.publishEvent(new CheckinPersistedEvent(this, item.record.getUserId(),
+                    item.record.getCheckinTime().toLocalDate()));
+        }
+        if (batchSizeSummary != null) {
+            batchSizeSummary.record(batch.size());
+        }
+        log.debug("打卡记录批量入库{}条，checkpoint推进到{}", batch.size(), batch.get(batch.size() - 1).seq);
+        return true;
+    }
+
+    /**
+     * 写入同一分片的一组记录
+     * @return false=数据库不可用
+     */
+    private boolean insertGroup(CheckinRecordMapper mapper, List<CheckinRecord> records) {
+        try {
+            mapper.insertBatch(records);
+            return true;
+        } catch (Exception batchError) {
+            // 批量失败时逐条写入，重复记录（重放时已入库的、或当天已有其他打卡记录的）跳过并计数
+            log.warn("打卡记录批量入库失败（{}条），改为逐条写入：{}", records.size(), batchError.getMessage());
+        }
+        for (CheckinRecord record : records) {
+            if (record.getId() != null) {
+                continue;
+            }
+            try {
+                mapper.insert(record);
+            } catch (DuplicateKeyException duplicate) {
+                log.warn("用户[{}]当天已有打卡记录，本条未入库：{}", record.getUserId(), record.getCheckinTime());
+                record.setId(DUPLICATE_ID);
+                if (duplicateCounter != null) {
+                    duplicateCounter.increment();
+                }
+            } catch (Exception e) {
+                log.error("打卡记录入库失败，稍后重试：{}", e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 队列中的一条待入库记录
+     */
+    private static final class Pending {
+        private final long seq;
+        private final CheckinRecord record;
+        private final long acceptedNanos;
+        // 是否为启动时从日志重放的记录
+        private final boolean replayed;
+
+        private Pending(long seq, CheckinRecord record, long acceptedNanos, boolean replayed) {
+            this.seq = seq;
+            this.record = record;
+            this.acceptedNanos = acceptedNanos;
+            this.replayed = replayed;
+        }
+    }
+}
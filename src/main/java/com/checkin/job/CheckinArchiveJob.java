@@ -0,0 +1,28 @@
+package com.checkin.job;
+
+import com.checkin.service.CheckinArchiveService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 打卡记录归档定时任务（周期见checkin.archive.cron）
+ * 多实例同时执行时同一批记录重复复制会因主键冲突回滚，下个周期继续
+ */
+@Slf4j
+@Component
+public class CheckinArchiveJob {
+
+    @Autowired
+    private CheckinArchiveService checkinArchiveService;
+
+    @Scheduled(cron = "${checkin.archive.cron:0 30 2 * * ?}")
+    public void run() {
+        try {
+            checkinArchiveService.archiveOldRecords();
+        } catch (Exception e) {
+            log.error("打卡记录归档失败，下个周期重试", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.checkin.job;
+
+import com.checkin.service.CheckinPartitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * checkin_record月分区维护（启动时及每月按checkin.partition.cron检查一次）
+ * 已存在的分区不会重复创建，多实例同时执行时后执行的会因分区已存在失败，下个周期自然恢复
+ */
+@Slf4j
+@Component
+public class CheckinPartitionJob {
+
+    @Autowired
+    private CheckinPartitionService checkinPartitionService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(cron = "${checkin.partition.cron:0 0 3 1 * ?}")
+    public void run() {
+        try {
+            int created = checkinPartitionService.ensurePartitions();
+            if (created > 0) {
+                log.info("checkin_record分区维护完成，新建{}个分区", created);
+            }
+        } catch (Exception e) {
+            log.warn("checkin_record分区维护失败，下个周期重试：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.checkin.job;
+
+import com.checkin.service.CheckinRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每日打卡汇总定时任务（周期见checkin.rollup.cron）
+ * 聚合结果按日期覆盖写入，多实例同时执行也不会产生错误数据
+ */
+@Slf4j
+@Component
+public class CheckinRollupJob {
+
+    @Autowired
+    private CheckinRollupService checkinRollupService;
+
+    @Scheduled(cron = "${checkin.rollup.cron:0 */10 * * * ?}")
+    public void run() {
+        try {
+            checkinRollupService.rollupChangedDays();
+        } catch (Exception e) {
+            log.error("每日打卡汇总聚合失败，下个周期重试", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.checkin.job;
+
+import com.checkin.geofence.GeofenceRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 打卡区域热加载定时任务（周期见checkin.geofence.refresh-interval-ms）
+ * 区域表有变更时在后台重建索引并替换，打卡请求不受影响
+ */
+@Slf4j
+@Component
+public class GeofenceRefreshJob {
+
+    @Autowired
+    private GeofenceRegistry geofenceRegistry;
+
+    @Scheduled(fixedDelayString = "${checkin.geofence.refresh-interval-ms:60000}",
+            initialDelayString = "${checkin.geofence.refresh-interval-ms:60000}")
+    public void run() {
+        try {
+            geofenceRegistry.refreshIfChanged();
+        } catch (Exception e) {
+            log.warn("打卡区域刷新失败，继续使用当前区域：{}", e.getMessage());
+        }
+    }
+}
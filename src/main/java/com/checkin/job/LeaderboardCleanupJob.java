@@ -0,0 +1,30 @@
+package com.checkin.job;
+
+import com.checkin.service.CheckinLeaderboardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 连续打卡排行榜每日清理（周期见checkin.leaderboard.cleanup-cron，默认每天00:05）
+ * 把昨天没有打卡的用户移出当前连续榜，重复执行结果相同
+ */
+@Slf4j
+@Component
+public class LeaderboardCleanupJob {
+
+    @Autowired
+    private CheckinLeaderboardService checkinLeaderboardService;
+
+    @Scheduled(cron = "${checkin.leaderboard.cleanup-cron:0 5 0 * * ?}")
+    public void run() {
+        try {
+            checkinLeaderboardService.removeBrokenStreaks(LocalDate.now());
+        } catch (Exception e) {
+            log.error("连续打卡排行榜清理失败，下个周期重试", e);
+        }
+    }
+}
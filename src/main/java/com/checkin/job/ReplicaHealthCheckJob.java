@@ -0,0 +1,39 @@
+package com.checkin.job;
+
+import com.checkin.datasource.ReadYourWritesTracker;
+import com.checkin.datasource.ReplicaHealthChecker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 只读副本健康检查（启动时及每checkin.datasource.health-check-interval-ms毫秒一次）
+ * 副本在第一次检查通过前不参与读路由；顺带清理过期的读己之写记录
+ */
+@Slf4j
+@Component
+public class ReplicaHealthCheckJob {
+
+    @Autowired
+    private ReplicaHealthChecker replicaHealthChecker;
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(fixedDelayString = "${checkin.datasource.health-check-interval-ms:5000}")
+    public void run() {
+        try {
+            replicaHealthChecker.checkReplicas();
+            readYourWritesTracker.prune();
+        } catch (Exception e) {
+            log.warn("只读副本健康检查失败，下个周期重试：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.checkin.job;
+
+import com.checkin.shard.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定期重新加载打卡记录分片目录（每checkin.sharding.directory-refresh-ms毫秒），
+ * 让其他实例执行的分片迁移在本实例生效
+ */
+@Slf4j
+@Component
+public class ShardDirectoryRefreshJob {
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Scheduled(fixedDelayString = "${checkin.sharding.directory-refresh-ms:10000}")
+    public void run() {
+        try {
+            shardDirectory.reload();
+        } catch (Exception e) {
+            log.warn("打卡记录分片目录刷新失败，继续使用上次加载的目录：{}", e.getMessage());
+        }
+    }
+}
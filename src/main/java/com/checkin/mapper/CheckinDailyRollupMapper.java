@@ -0,0 +1,17 @@
+package com.checkin.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.checkin.entity.CheckinDailyRollup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface CheckinDailyRollupMapper extends BaseMapper<CheckinDailyRollup> {
+    // 已聚合的最大日期（表为空时返回null）
+    LocalDate selectLatestStatDate();
+
+    // 批量写入/覆盖每日汇总
+    int upsertBatch(@Param("rollups") List<CheckinDailyRollup> rollups);
+}
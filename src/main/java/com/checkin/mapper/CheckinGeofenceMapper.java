@@ -0,0 +1,9 @@
+package com.checkin.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.checkin.entity.CheckinGeofence;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface CheckinGeofenceMapper extends BaseMapper<CheckinGeofence> {
+}
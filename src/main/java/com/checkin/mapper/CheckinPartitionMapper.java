@@ -0,0 +1,17 @@
+package com.checkin.mapper;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * checkin_record分区维护（仅MySQL）
+ */
+public interface CheckinPartitionMapper {
+
+    // 查询checkin_record当前的分区名（未分区时返回空列表）
+    List<String> selectPartitionNames();
+
+    // 从p_max拆出一个新的月分区：[上一个分区上界, lessThan)
+    void splitMaxPartition(@Param("name") String name, @Param("lessThan") String lessThan);
+}
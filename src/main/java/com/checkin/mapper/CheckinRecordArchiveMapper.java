@@ -0,0 +1,73 @@
+package com.checkin.mapper;
+
+import com.checkin.entity.CheckinDailyRollup;
+import com.checkin.entity.CheckinRecord;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 打卡记录归档表checkin_record_archive（列与checkin_record相同，直接映射为CheckinRecord）
+ * 归档按checkin_date整月搬移，归档表中的记录一定早于热表中的记录
+ */
+public interface CheckinRecordArchiveMapper {
+
+    // ========== 归档搬移 ==========
+
+    // 热表中checkin_date早于cutoff的一批记录ID（按日期、ID升序）
+    List<Long> selectArchivableIds(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    // 把热表中的指定记录复制到归档表
+    int copyToArchive(@Param("ids") List<Long> ids);
+
+    // 删除热表中已复制的记录（带上checkin_date条件只扫描旧分区）
+    int deleteFromHot(@Param("ids") List<Long> ids, @Param("cutoff") LocalDate cutoff);
+
+    // 删除用户的全部归档记录（迁移分片后清理原分片）
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // ========== 读取（与CheckinRecordMapper中的同名查询语义一致） ==========
+
+    // 按打卡时间倒序查询用户的归档记录；游标(beforeTime, beforeId)为null表示从最新开始，limit为null表示不限
+    List<CheckinRecord> selectByUserId(
+            @Param("userId") Long userId,
+            @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") Long beforeId,
+            @Param("offset") Long offset,
+            @Param("limit") Integer limit
+    );
+
+    // 用户归档记录数
+    long countByUserId(@Param("userId") Long userId);
+
+    // 按打卡时间升序查询用户在[startDate, endDate)内的归档记录
+    List<CheckinRecord> selectByUserIdAndDate(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+    // 按打卡时间升序流式读取用户全部归档记录（需在事务内遍历）
+    Cursor<CheckinRecord> selectCursorByUserId(@Param("userId") Long userId);
+
+    // 按日期升序逐行读取用户在[startDate, endDate)内的归档打卡日期（起止为null表示不限）
+    void selectCheckinDays(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            ResultHandler<LocalDate> handler
+    );
+
+    // 查询指定日期已打卡的用户ID（归档表中同样每人每天一条）
+    List<Long> selectCheckedUserIds(@Param("date") LocalDate date);
+
+    // 按打卡日期分组聚合[startDate, endDate]内的归档打卡/补卡人数
+    List<CheckinDailyRollup> selectDailyAggregates(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+}
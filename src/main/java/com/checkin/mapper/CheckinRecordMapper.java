@@ -1,17 +1,37 @@
 package com.checkin.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.checkin.entity.CheckinDailyRollup;
 import com.checkin.entity.CheckinRecord;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
-import java.time.LocalDateTime;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import java.time.LocalDate;
 import java.util.List;
 
 @Mapper
 public interface CheckinRecordMapper extends BaseMapper<CheckinRecord> {
-    // 新增方法：查询指定时间内已打卡的用户ID
-    List<Long> selectCheckedUserIds(
-            @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime
+    // 查询指定日期已打卡的用户ID（按checkin_date过滤，只扫描当月分区）
+    List<Long> selectCheckedUserIds(@Param("date") LocalDate date);
+
+    // 多行INSERT批量写入打卡记录并回填自增ID（异步写入模式、离线打卡批量导入使用）
+    int insertBatch(@Param("records") List<CheckinRecord> records);
+
+    // 按打卡时间升序流式读取用户全部打卡记录（需在事务内遍历）
+    Cursor<CheckinRecord> selectCursorByUserId(@Param("userId") Long userId);
+
+    // 按日期升序逐行读取用户在[startDate, endDate)内的打卡日期（只取checkin_date一列，走唯一索引；起止为null表示不限）
+    void selectCheckinDays(
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            ResultHandler<LocalDate> handler
+    );
+
+    // 按打卡日期分组聚合[startDate, endDate]内的打卡/补卡人数（只返回有记录的日期）
+    List<CheckinDailyRollup> selectDailyAggregates(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
     );
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.checkin.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.checkin.entity.CheckinSummary;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface CheckinSummaryMapper extends BaseMapper<CheckinSummary> {
+}
@@ -1,5 +1,8 @@
 package com.checkin.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.checkin.entity.User;
+import java.util.List;
 public interface UserMapper extends BaseMapper<User> {
-}
\ No newline at end of file
+    // 查询全部用户ID（只取主键列）
+    List<Long> selectAllIds();
+}
@@ -0,0 +1,58 @@
+package com.checkin.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 业务缓存命中率指标
+ * checkin.cache.gets{cache, result=hit|miss}：读缓存次数；checkin.cache.puts{cache}：回填缓存次数；
+ * checkin.cache.deduplicated{cache}：等待同键进行中的回源、省掉的重复回源次数；checkin.cache.refreshes{cache}：提前刷新次数。
+ * 命中率 = hit / (hit + miss)
+ */
+@Component
+public class CacheMetrics {
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 按"缓存名:结果"缓存计数器，避免每次都走注册表查找
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public void hit(String cache) {
+        increment("checkin.cache.gets", cache, "hit");
+    }
+
+    public void miss(String cache) {
+        increment("checkin.cache.gets", cache, "miss");
+    }
+
+    public void fill(String cache) {
+        increment("checkin.cache.puts", cache, null);
+    }
+
+    public void deduplicated(String cache) {
+        increment("checkin.cache.deduplicated", cache, null);
+    }
+
+    public void refreshAhead(String cache) {
+        increment("checkin.cache.refreshes", cache, null);
+    }
+
+    private void increment(String name, String cache, String result) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String key = name + ":" + cache + ":" + result;
+        counters.computeIfAbsent(key, k -> {
+            Counter.Builder builder = Counter.builder(name).tag("cache", cache);
+            if (result != null) {
+                builder.tag("result", result);
+            }
+            return builder.register(meterRegistry);
+        }).increment();
+    }
+}
@@ -0,0 +1,72 @@
+package com.checkin.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper调用耗时指标（MyBatis插件，MyBatis-Plus自动配置会注册所有Interceptor类型的Bean）
+ * checkin.db.mapper{mapper=CheckinRecordMapper, method=selectList, outcome=success|error}
+ * 游标查询只统计打开游标的耗时，遍历耗时计入调用方
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // MappedStatement ID + 结果 -> 计时器
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (meterRegistry == null) {
+            return invocation.proceed();
+        }
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            timer(statement.getId(), outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String statementId, String outcome) {
+        return timers.computeIfAbsent(statementId + ":" + outcome, key -> {
+            // statementId形如com.checkin.mapper.CheckinRecordMapper.selectList
+            int methodIndex = statementId.lastIndexOf('.');
+            String mapperName = statementId.substring(0, methodIndex);
+            return Timer.builder("checkin.db.mapper")
+                    .description("Mapper方法调用耗时")
+                    .tag("mapper", mapperName.substring(mapperName.lastIndexOf('.') + 1))
+                    .tag("method", statementId.substring(methodIndex + 1))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        });
+    }
+}
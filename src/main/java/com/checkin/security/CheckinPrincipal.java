@@ -0,0 +1,82 @@
+package com.checkin.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 当前登录用户（由JWT声明构建，请求处理过程中无需再查用户表）
+ * 控制器通过@AuthenticationPrincipal注入，服务层可通过current()获取
+ */
+public final class CheckinPrincipal implements Principal {
+
+    // 用户角色：1-管理员，其他-普通用户（与user.role一致）
+    public static final int ROLE_ADMIN = 1;
+    public static final int ROLE_USER = 0;
+
+    private final Long userId;
+    private final String username;
+    private final int role;
+    private final List<GrantedAuthority> authorities;
+
+    public CheckinPrincipal(Long userId, String username, Integer role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role == null ? 0 : role;
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority(roleAuthority(role)));
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return role == ROLE_ADMIN;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username + "(" + userId + ")";
+    }
+
+    /**
+     * 用户角色对应的Spring Security权限名
+     */
+    public static String roleAuthority(Integer role) {
+        return role != null && role == ROLE_ADMIN ? "ROLE_ADMIN" : "ROLE_USER";
+    }
+
+    /**
+     * 当前请求的登录用户
+     * @return 登录用户；未登录或非JWT认证时返回null
+     */
+    public static CheckinPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CheckinPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+}
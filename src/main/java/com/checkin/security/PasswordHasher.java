@@ -0,0 +1,127 @@
+package com.checkin.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 密码加密/校验线程池
+ * BCrypt每次约100ms CPU，放在请求线程上执行时，开学登录高峰会占满Tomcat线程、拖慢打卡请求；
+ * 这里用固定线程数、有界队列的线程池执行，队列满时立即以RejectedExecutionException失败（调用方返回503），不排队等待。
+ * 执行耗时由TimedPasswordEncoder记录（checkin.auth.password），排队耗时记为checkin.auth.password.queue
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+
+    private Timer encodeQueueTimer;
+    private Timer matchesQueueTimer;
+    private Counter rejectedCounter;
+
+    public PasswordHasher(@Value("${checkin.password.threads:0}") int threads,
+                          @Value("${checkin.password.queue-size:200}") int queueSize) {
+        // 不配置时与CPU核数相同：BCrypt是纯CPU计算，更多线程只会互相争抢
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        if (meterRegistry != null) {
+            encodeQueueTimer = queueTimer("encode");
+            matchesQueueTimer = queueTimer("matches");
+            rejectedCounter = Counter.builder("checkin.auth.password.rejected")
+                    .description("线程池已满被拒绝的密码加密/校验次数")
+                    .register(meterRegistry);
+            Gauge.builder("checkin.auth.password.queued", executor, pool -> pool.getQueue().size())
+                    .description("排队等待的密码加密/校验任务数")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 加密密码
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(encodeQueueTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     */
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesQueueTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 已存储的密码是否低于当前配置的加密强度（登录成功后应重新加密保存）
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer queueTimer, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (queueTimer != null) {
+                    queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                }
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            log.debug("密码加密/校验排队已满（{}个），拒绝本次请求", executor.getQueue().size());
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private Timer queueTimer(String operation) {
+        return Timer.builder("checkin.auth.password.queue")
+                .description("密码加密/校验任务排队耗时")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
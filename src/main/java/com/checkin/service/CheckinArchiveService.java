@@ -0,0 +1,22 @@
+package com.checkin.service;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡记录冷热分层服务接口
+ * checkin_record只保留近期（补卡、统计、排行频繁访问）的记录，更早的整月记录搬入checkin_record_archive；
+ * 用户记录查询、导出、汇总重建、日历回源都会合并两张表，调用方无感知
+ */
+public interface CheckinArchiveService {
+
+    /**
+     * 当前的归档分界：checkin_date早于该日期的记录应在归档表中（按月对齐）
+     */
+    LocalDate archiveCutoff();
+
+    /**
+     * 把早于归档分界的记录分批搬入归档表，每批一个事务（复制后删除）
+     * @return 本次搬移的记录数
+     */
+    int archiveOldRecords();
+}
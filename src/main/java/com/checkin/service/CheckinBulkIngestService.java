@@ -0,0 +1,24 @@
+package com.checkin.service;
+
+import com.checkin.security.CheckinPrincipal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 离线打卡批量导入服务接口
+ * 移动端离线期间排队的打卡一次性上传（NDJSON，每行一条），按块读取、按块校验和入库、按块写回结果，
+ * 内存占用只与块大小有关，与上传总条数无关
+ */
+public interface CheckinBulkIngestService {
+
+    /**
+     * 读取NDJSON请求体，逐行写出对应的导入结果（NDJSON）
+     * @param principal 当前登录用户（记录未指定userId时为本人打卡；仅管理员可指定他人）
+     * @param body 请求体
+     * @param out 输出流（调用方负责关闭）
+     * @throws IOException 读取或写出失败（如客户端断开）
+     */
+    void ingest(CheckinPrincipal principal, InputStream body, OutputStream out) throws IOException;
+}
@@ -0,0 +1,51 @@
+package com.checkin.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * 打卡日历服务接口
+ * 以"用户+月份"为单位维护Redis位图（每天1位），替代按时间范围查询checkin_record
+ */
+public interface CheckinCalendarService {
+
+    /**
+     * 标记用户某天已打卡（正常打卡、补卡成功后调用）
+     * @param userId 用户ID
+     * @param date 打卡日期
+     */
+    void markCheckin(Long userId, LocalDate date);
+
+    /**
+     * 判断用户某天是否已打卡（含补卡）
+     * @param userId 用户ID
+     * @param date 日期
+     * @return true=已打卡
+     */
+    boolean isCheckedIn(Long userId, LocalDate date);
+
+    /**
+     * 获取用户某月的打卡位掩码：第N天已打卡则第(N-1)位为1
+     * @param userId 用户ID
+     * @param month 年月
+     * @return 当月打卡位掩码
+     */
+    int getMonthMask(Long userId, YearMonth month);
+
+    /**
+     * 获取用户某月的打卡天数
+     * @param userId 用户ID
+     * @param month 年月
+     * @return 打卡天数
+     */
+    int countMonth(Long userId, YearMonth month);
+
+    /**
+     * 年度打卡热力图（按月汇总打卡日）
+     * @param userId 用户ID
+     * @param year 年份
+     * @return 热力图数据
+     */
+    Map<String, Object> getYearHeatmap(Long userId, int year);
+}
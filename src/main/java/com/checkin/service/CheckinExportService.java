@@ -0,0 +1,35 @@
+package com.checkin.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 打卡记录导出服务接口
+ * 通过MyBatis游标逐行读取、逐行写出，内存占用与用户记录数无关（用于"下载我的数据"、多年历史导出）
+ */
+public interface CheckinExportService {
+
+    /**
+     * 导出格式
+     */
+    enum ExportFormat {
+        NDJSON,  // 每行一个JSON对象
+        CSV      // 带表头的CSV（UTF-8 BOM，Excel可直接打开）
+    }
+
+    /**
+     * 用户是否存在（导出前校验，避免写出响应头后才发现用户不存在）
+     * @param userId 用户ID
+     * @return true=存在
+     */
+    boolean userExists(Long userId);
+
+    /**
+     * 按打卡时间升序写出用户全部打卡记录
+     * @param userId 用户ID
+     * @param format 导出格式
+     * @param out 输出流（调用方负责关闭）
+     * @throws IOException 写出失败（如客户端断开）
+     */
+    void writeUserCheckins(Long userId, ExportFormat format, OutputStream out) throws IOException;
+}
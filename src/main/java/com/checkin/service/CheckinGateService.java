@@ -0,0 +1,34 @@
+package com.checkin.service;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡防重复闸门服务接口
+ * 每个用户每天一个Redis键（SET NX，零点过期），一次Redis操作即可拦截重复打卡，无需先查库
+ */
+public interface CheckinGateService {
+
+    /**
+     * 闸门结果
+     */
+    enum GateResult {
+        ACQUIRED,    // 首次打卡，放行
+        DUPLICATE,   // 当天已打卡
+        UNAVAILABLE  // Redis不可用，由数据库唯一约束(user_id, checkin_date)兜底
+    }
+
+    /**
+     * 尝试占用用户某天的打卡名额
+     * @param userId 用户ID
+     * @param date 打卡日期
+     * @return 闸门结果
+     */
+    GateResult tryAcquire(Long userId, LocalDate date);
+
+    /**
+     * 释放名额（占用后写库失败时调用，允许用户重试）
+     * @param userId 用户ID
+     * @param date 打卡日期
+     */
+    void release(Long userId, LocalDate date);
+}
@@ -0,0 +1,61 @@
+package com.checkin.service;
+
+import com.checkin.entity.CheckinSummary;
+import com.checkin.vo.LeaderboardEntryVO;
+import com.checkin.vo.LeaderboardVO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * 连续打卡排行榜服务接口
+ * 排行榜保存在Redis有序集合中（score=天数，member=用户ID），打卡/补卡更新汇总时同步写入；
+ * 查询前N名、查询本人排名均为O(log N)，不访问数据库
+ */
+public interface CheckinLeaderboardService {
+
+    /**
+     * 排行榜类型
+     */
+    enum Board {
+        CURRENT,  // 当前连续天数（连续中断的用户每天凌晨移出）
+        LONGEST   // 最长连续天数
+    }
+
+    /**
+     * 打卡汇总更新后同步排行榜（Redis不可用时只记录日志）
+     * @param summary 更新后的打卡汇总
+     */
+    void onSummaryUpdated(CheckinSummary summary);
+
+    /**
+     * 查询排行榜前N名
+     * @param board 排行榜类型
+     * @param month 月份（null表示总榜；月榜只统计该月内的天数）
+     * @param limit 名次数
+     * @return 排行榜
+     */
+    LeaderboardVO getTop(Board board, YearMonth month, int limit);
+
+    /**
+     * 查询用户在排行榜中的名次
+     * @param board 排行榜类型
+     * @param month 月份（null表示总榜）
+     * @param userId 用户ID
+     * @return 名次（未上榜时rank为null）
+     */
+    LeaderboardEntryVO getRank(Board board, YearMonth month, Long userId);
+
+    /**
+     * 把连续打卡已中断（最后打卡早于昨天）的用户移出当前连续榜
+     * @param today 当前日期
+     * @return 移出的用户数
+     */
+    int removeBrokenStreaks(LocalDate today);
+
+    /**
+     * 按打卡汇总表重建排行榜（首次上线或Redis数据丢失后使用）
+     * @return 处理的用户数
+     */
+    int rebuild();
+}
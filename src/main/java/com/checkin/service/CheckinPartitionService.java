@@ -0,0 +1,15 @@
+package com.checkin.service;
+
+/**
+ * 打卡记录分区维护服务接口
+ * checkin_record按checkin_date每月一个分区（见db/migration/mysql），这里负责提前创建未来月份的分区，
+ * 避免新数据落入p_max导致按月查询无法裁剪分区
+ */
+public interface CheckinPartitionService {
+
+    /**
+     * 确保当前月之后checkin.partition.months-ahead个月的分区都已存在（非MySQL或表未分区时跳过）
+     * @return 本次新建的分区数
+     */
+    int ensurePartitions();
+}
@@ -49,11 +49,28 @@ public interface CheckinRecordService extends IService<CheckinRecord> {
      */
     Result<?> getUserCheckinsByPage(Long userId, int pageNum, int pageSize);
 
+    /**
+     * 游标分页查询用户打卡记录（按打卡时间、ID倒序，翻页耗时与页深无关）
+     * @param userId 用户ID
+     * @param cursor 上一页返回的nextCursor（首页传null）
+     * @param pageSize 每页条数（1-100）
+     * @param withTotal 是否查询记录总数
+     * @return 游标分页结果
+     */
+    Result<?> getUserCheckinsByCursor(Long userId, String cursor, int pageSize, boolean withTotal);
+
+    /**
+     * 校验打卡记录的地点信息（正常打卡与批量导入共用），命中时填充打卡区域名称
+     * @param record 打卡记录（需含location，可选latitude/longitude）
+     * @return 校验结果
+     */
+    Result<?> validateCheckinRecord(CheckinRecord record);
+
     /**
      * 校验打卡地点是否在有效区域内
      * @param latitude 纬度
      * @param longitude 经度
-     * @return 校验结果
+     * @return 校验结果（有效时data为命中的打卡区域）
      */
     Result<?> validateCheckinLocation(Double latitude, Double longitude);
 
@@ -67,20 +84,31 @@ public interface CheckinRecordService extends IService<CheckinRecord> {
     Result<?> reissueCheckin(Long userId, LocalDate reissueDate, String reason);
 
     /**
-     * 月度打卡统计（打卡次数、打卡率、详情）
+     * 月度打卡统计（打卡次数、打卡率、打卡日期，可选当月明细记录）
      * @param userId 用户ID
      * @param year 年份
      * @param month 月份
+     * @param includeRecords 是否返回当月明细记录records（需要查询打卡记录表）
      * @return 统计数据
      */
-    Result<?> getMonthlyCheckinStats(Long userId, int year, int month);
+    Result<?> getMonthlyCheckinStats(Long userId, int year, int month, boolean includeRecords);
+
+    /**
+     * 年度打卡热力图（按月列出打卡日）
+     * @param userId 用户ID
+     * @param year 年份
+     * @return 热力图数据
+     */
+    Result<?> getYearHeatmap(Long userId, int year);
 
     /**
-     * 查询指定日期未打卡的用户（管理员功能）
+     * 分页查询指定日期未打卡的用户（管理员功能）
      * @param date 日期
-     * @return 未打卡用户列表
+     * @param afterUserId 游标：上一页最后一个用户ID（首页传null）
+     * @param pageSize 每页条数（1-500）
+     * @return 未打卡用户分页结果
      */
-    Result<?> getUncheckedUsers(LocalDate date);
+    Result<?> getUncheckedUsers(LocalDate date, Long afterUserId, int pageSize);
 
     Result<?> getCheckinStats(Long userId);
 //    添加打卡统计功能（连续打卡 / 总天数）
@@ -0,0 +1,33 @@
+package com.checkin.service;
+
+import com.checkin.vo.CheckinRollupStatsVO;
+import java.time.LocalDate;
+
+/**
+ * 每日打卡汇总服务接口
+ * 定时把checkin_record按日期聚合到checkin_daily_rollup，管理端全局统计只读汇总表，不再扫描打卡明细
+ */
+public interface CheckinRollupService {
+
+    /**
+     * 增量聚合：补齐上次聚合之后的日期，并重算补卡有效期内（可能被补卡改动）的日期
+     * @return 本次聚合的天数
+     */
+    int rollupChangedDays();
+
+    /**
+     * 重新聚合指定日期范围（含首尾）
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 聚合的天数
+     */
+    int rollup(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * 查询日期范围内的每日汇总及区间合计
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 统计结果
+     */
+    CheckinRollupStatsVO getStats(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,32 @@
+package com.checkin.service;
+
+import com.checkin.entity.CheckinSummary;
+import java.time.LocalDate;
+
+/**
+ * 打卡汇总服务接口
+ * 维护每个用户的连续天数、最长连续、累计天数、本月天数等汇总数据，避免统计时扫描全部历史记录
+ */
+public interface CheckinSummaryService {
+
+    /**
+     * 获取用户打卡汇总（不存在时从历史记录重建一次）
+     * @param userId 用户ID
+     * @return 打卡汇总
+     */
+    CheckinSummary getSummary(Long userId);
+
+    /**
+     * 打卡/补卡成功后增量更新汇总
+     * @param userId 用户ID
+     * @param date 打卡日期
+     * @return 更新后的汇总
+     */
+    CheckinSummary onCheckin(Long userId, LocalDate date);
+
+    /**
+     * 删除用户汇总（增量更新失败时调用，下次读取自动重建）
+     * @param userId 用户ID
+     */
+    void evict(Long userId);
+}
@@ -0,0 +1,31 @@
+package com.checkin.service;
+
+import java.util.List;
+
+/**
+ * 打卡记录分片迁移服务接口
+ * 扩容步骤：1. 仍按旧分片配置运行时执行pinAll，把每个用户固定在当前分片；
+ * 2. 增加checkin.sharding.shards并重启，此时所有用户仍在原分片；
+ * 3. 分批执行rebalance，把用户搬到分片函数算出的新分片（搬完后目录项删除）
+ */
+public interface ShardMigrationService {
+
+    /**
+     * 把用户的全部打卡记录（热表和归档）搬到目标分片
+     * 搬移期间用户的打卡/补卡被拒绝，查询仍读原分片；搬到的记录获得目标分片的新ID
+     * @return 搬移的记录数
+     */
+    int moveUsers(List<Long> userIds, int targetShard);
+
+    /**
+     * 为没有目录项的用户写入当前所在分片（更改分片数或分片函数之前执行）
+     * @return 新写入的目录项数
+     */
+    int pinAll();
+
+    /**
+     * 把不在分片函数所算分片上的用户搬回该分片，每次最多limit个用户
+     * @return 本次搬移的用户数
+     */
+    int rebalance(int limit);
+}
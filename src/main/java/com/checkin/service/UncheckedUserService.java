@@ -0,0 +1,33 @@
+package com.checkin.service;
+
+import com.checkin.vo.UncheckedUserPageVO;
+import java.time.LocalDate;
+
+/**
+ * 未打卡用户计算服务接口
+ * 维护"全部用户"和"每日已打卡用户"两张用户ID位图，未打卡用户 = 全部用户 - 当日已打卡用户
+ */
+public interface UncheckedUserService {
+
+    /**
+     * 用户注册成功后调用，加入全部用户位图
+     * @param userId 用户ID
+     */
+    void onUserRegistered(Long userId);
+
+    /**
+     * 打卡/补卡成功后调用，加入当日已打卡位图
+     * @param userId 用户ID
+     * @param date 打卡日期
+     */
+    void onCheckin(Long userId, LocalDate date);
+
+    /**
+     * 分页查询指定日期未打卡的用户
+     * @param date 日期
+     * @param afterUserId 游标：上一页最后一个用户ID（首页传null）
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    UncheckedUserPageVO getUncheckedUsers(LocalDate date, Long afterUserId, int size);
+}
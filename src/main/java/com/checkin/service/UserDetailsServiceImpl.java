@@ -1,8 +1,7 @@
 package com.checkin.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.cache.UserLookupCache;
 import com.checkin.entity.User;
-import com.checkin.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,12 +14,12 @@ import java.util.Collections;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
-    private UserMapper userMapper;
+    private UserLookupCache userLookupCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 从数据库查询用户
-        User user = userMapper.selectOne(new QueryWrapper<User>().eq("username", username));
+        // 按用户名查询用户（与登录共用用户名缓存）
+        User user = userLookupCache.get(username);
         if (user == null) {
             throw new UsernameNotFoundException("用户名不存在");
         }
@@ -6,9 +6,15 @@ import com.checkin.common.Result;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface UserService extends IService<User> {
     Result<?> register(User user);
     Result<?> login(String username, String password);
 
+    // 在密码线程池中加密/校验，不占用请求线程；线程池已满时结果为503
+    CompletableFuture<Result<?>> registerAsync(User user);
+    CompletableFuture<Result<?>> loginAsync(String username, String password);
+
     User getByUsername(@NotBlank(message = "用户名不能为空") @Size(min = 3, max = 20, message = "用户名长度必须在3-20之间") String username);
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.checkin.service.impl;
+
+import com.checkin.mapper.CheckinRecordArchiveMapper;
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 打卡记录冷热分层服务实现类
+ * 分界按月对齐，热表里总是整月的数据，旧月分区搬空后可直接DROP；
+ * 分界至少比补卡期限早一天，补卡和离线打卡导入不会写到已归档的日期
+ */
+@Slf4j
+@Service
+public class CheckinArchiveServiceImpl implements CheckinArchiveService {
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+
+    @Value("${checkin.archive.after-days:180}") // 约一个学期之前的记录归档
+    private Integer afterDays;
+    @Value("${checkin.archive.batch-size:1000}")
+    private Integer batchSize;
+    @Value("${checkin.reissue.max-days:3}")
+    private Integer maxReissueDays;
+
+
+    @Override
+    public LocalDate archiveCutoff() {
+        int keepDays = Math.max(afterDays, maxReissueDays + 1);
+        return YearMonth.from(LocalDate.now().minusDays(keepDays)).atDay(1);
+    }
+
+    /**
+     * 各分片依次归档，每个分片的批次在该分片自己的事务中执行
+     */
+    @Override
+    public synchronized int archiveOldRecords() {
+        LocalDate cutoff = archiveCutoff();
+        long begin = System.currentTimeMillis();
+        int archived = 0;
+        for (CheckinShard shard : checkinRecordShards.all()) {
+            archived += archiveShard(shard, cutoff);
+        }
+        if (archived > 0) {
+            log.info("打卡记录归档完成，分界{}，搬移{}条，耗时{}ms", cutoff, archived, System.currentTimeMillis() - begin);
+        }
+        return archived;
+    }
+
+    private int archiveShard(CheckinShard shard, LocalDate cutoff) {
+        CheckinRecordArchiveMapper archiveMapper = shard.getArchiveMapper();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(shard.getTransactionManager());
+        int archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Long> ids = archiveMapper.selectArchivableIds(cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int copied = archiveMapper.copyToArchive(ids);
+                int deleted = archiveMapper.deleteFromHot(ids, cutoff);
+                if (copied != deleted) {
+                    // 复制和删除的行数对不上说明有并发修改，回滚本批
+                    throw new IllegalStateException("分片" + shard.getIndex() + "归档复制" + copied + "条但删除" + deleted + "条");
+                }
+                return deleted;
+            });
+            if (moved == null || moved == 0) {
+                return archived;
+            }
+            archived += moved;
+        }
+    }
+}
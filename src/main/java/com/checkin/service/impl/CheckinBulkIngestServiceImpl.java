@@ -0,0 +1,468 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.cache.UserDirectory;
+import com.checkin.common.Result;
+import com.checkin.dto.BulkCheckinItemDTO;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.entity.User;
+import com.checkin.ingest.CheckinPersistedEvent;
+import com.checkin.mapper.CheckinRecordMapper;
+import com.checkin.mapper.UserMapper;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.service.CheckinBulkIngestService;
+import com.checkin.service.CheckinCalendarService;
+import com.checkin.service.CheckinGateService;
+import com.checkin.service.CheckinRecordService;
+import com.checkin.service.UncheckedUserService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.vo.BulkCheckinResultVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 离线打卡批量导入服务实现类
+ * 每块（chunk-size条）的处理与正常打卡规则一致，但把逐条查询换成集合查询：
+ * 1. 逐条校验地点（复用CheckinRecordService.validateCheckinRecord）和离线打卡时间；
+ * 2. 一次查询校验本块涉及的全部用户，正在迁移分片的用户本次不导入；
+ * 3. 每个分片一次查询找出已打卡的(用户, 日期)，同一块内重复的只保留第一条；
+ * 4. 今天的记录占用防重复闸门，与正常打卡互斥；
+ * 5. 按分片多行INSERT批量写入，失败时逐条写入区分重复与其他错误；
+ * 6. 标记打卡日历，发布入库事件更新打卡汇总。
+ * 跨块的重复由数据库唯一约束(user_id, checkin_date)拦截
+ */
+@Slf4j
+@Service
+public class CheckinBulkIngestServiceImpl implements CheckinBulkIngestService {
+
+    // 单行最大字符数，超出的行跳过并返回失败（避免超长行占满内存）
+    private static final int MAX_LINE_LENGTH = 4096;
+    // 允许客户端时钟比服务器快的时长（在此范围内的"未来"时间按当前时间处理）
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+    private static final String DUPLICATE_MESSAGE = "该日期已打卡，请勿重复操作";
+    private static final String MOVING_MESSAGE = "账号数据迁移中，请稍后重试";
+
+    @Autowired
+    private CheckinRecordService checkinRecordService;
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private UserDirectory userDirectory;
+    @Autowired
+    private CheckinGateService checkinGateService;
+    @Autowired
+    private CheckinCalendarService checkinCalendarService;
+    @Autowired
+    private UncheckedUserService uncheckedUserService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${checkin.bulk.chunk-size:500}")
+    private int chunkSize;
+    @Value("${checkin.bulk.max-offline-hours:24}")
+    private int maxOfflineHours;
+
+
+    @Override
+    public void ingest(CheckinPrincipal principal, InputStream body, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Reader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ObjectReader itemReader = objectMapper.readerFor(BulkCheckinItemDTO.class);
+        ObjectWriter resultWriter = objectMapper.writerFor(BulkCheckinResultVO.class);
+
+        StringBuilder line = new StringBuilder();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        int lineNo = 0;
+        int total = 0;
+        int imported = 0;
+        LineStatus status;
+        while ((status = readLine(reader, line)) != LineStatus.EOF) {
+            lineNo++;
+            if (status == LineStatus.TOO_LONG) {
+                chunk.add(new Item(lineNo, null).fail("单行不能超过" + MAX_LINE_LENGTH + "个字符"));
+            } else if (!line.toString().isBlank()) {
+                chunk.add(parse(principal, lineNo, line.toString(), itemReader));
+            }
+            if (chunk.size() >= chunkSize) {
+                imported += processChunk(principal, chunk);
+                total += chunk.size();
+                writeResults(chunk, writer, resultWriter);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += processChunk(principal, chunk);
+            total += chunk.size();
+            writeResults(chunk, writer, resultWriter);
+        }
+        writer.flush();
+        log.info("用户[{}]离线打卡批量导入完成：共{}条，成功{}条，耗时{}ms",
+                principal.getUserId(), total, imported, System.currentTimeMillis() - start);
+    }
+
+    // ========== 按块处理 ==========
+
+    /**
+     * 校验并写入一块记录
+     * @return 导入成功的条数
+     */
+    private int processChunk(CheckinPrincipal principal, List<Item> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+
+        // 1. 逐条校验地点与打卡时间（不访问数据库）
+        for (Item item : chunk) {
+            if (!item.isPending()) {
+                continue;
+            }
+            Result<?> locationResult = checkinRecordService.validateCheckinRecord(item.record);
+            if (!locationResult.isSuccess()) {
+                item.fail(locationResult.getMsg());
+                continue;
+            }
+            String timeError = resolveCheckinTime(item.record, now);
+            if (timeError != null) {
+                item.fail(timeError);
+                continue;
+            }
+            item.record.setCheckinDate(item.record.getCheckinTime().toLocalDate());
+            item.record.setStatus(1); // 1-正常打卡
+            item.record.setIsReissue(0); // 0-非补卡
+        }
+
+        // 2~4. 集合校验用户与重复打卡，今天的记录占用闸门
+        validateUsers(principal, chunk);
+        excludeMovingUsers(chunk);
+        excludeDuplicates(chunk);
+        acquireGates(chunk, today);
+
+        // 5. 批量写入
+        List<Item> pending = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            if (item.isPending()) {
+                pending.add(item);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        insert(pending, today);
+
+        // 6. 标记打卡日历、更新打卡汇总
+        int imported = 0;
+        for (Item item : pending) {
+            if (!item.isPending()) {
+                continue;
+            }
+            Long userId = item.record.getUserId();
+            LocalDate date = item.record.getCheckinDate();
+            imported++;
+            // 记录已入库，后续缓存更新失败只记录日志，不影响本条结果和后续导入
+            try {
+                checkinCalendarService.markCheckin(userId, date);
+                uncheckedUserService.onCheckin(userId, date);
+                eventPublisher.publishEvent(new CheckinPersistedEvent(this, userId, date));
+            } catch (Exception e) {
+                log.warn("用户[{}]离线打卡已入库，更新打卡日历/汇总失败：{}", userId, e.getMessage());
+            }
+        }
+        return imported;
+    }
+
+    /**
+     * 离线打卡时间：不传取当前时间；不能晚于当前时间（允许少量时钟偏差），不能早于max-offline-hours
+     * @return 错误提示；合法返回null
+     */
+    private String resolveCheckinTime(CheckinRecord record, LocalDateTime now) {
+        LocalDateTime time = record.getCheckinTime();
+        if (time == null) {
+            record.setCheckinTime(now);
+            return null;
+        }
+        if (time.isAfter(now.plus(MAX_CLOCK_SKEW))) {
+            return "打卡时间不能晚于当前时间";
+        }
+        if (time.isAfter(now)) {
+            record.setCheckinTime(now);
+        } else if (time.isBefore(now.minusHours(maxOfflineHours))) {
+            return "离线打卡已超过" + maxOfflineHours + "小时，请使用补卡";
+        }
+        return null;
+    }
+
+    /**
+     * 用户存在性：登录用户本人免查，目录未命中的用户一次查库
+     */
+    private void validateUsers(CheckinPrincipal principal, List<Item> chunk) {
+        Set<Long> unknown = new HashSet<>();
+        for (Item item : chunk) {
+            if (item.isPending()) {
+                Long userId = item.record.getUserId();
+                if (!userId.equals(principal.getUserId()) && !userDirectory.contains(userId)) {
+                    unknown.add(userId);
+                }
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        List<User> users = userMapper.selectList(new QueryWrapper<User>()
+                .select("id", "username", "role")
+                .in("id", unknown));
+        for (User user : users) {
+            userDirectory.put(user.getId(), user.getUsername(), user.getRole());
+            unknown.remove(user.getId());
+        }
+        for (Item item : chunk) {
+            if (item.isPending() && unknown.contains(item.record.getUserId())) {
+                item.fail("用户不存在");
+            }
+        }
+    }
+
+    /**
+     * 正在迁移分片的用户：迁移期间不接受写入
+     */
+    private void excludeMovingUsers(List<Item> chunk) {
+        for (Item item : chunk) {
+            if (item.isPending() && checkinRecordShards.isMoving(item.record.getUserId())) {
+                item.fail(MOVING_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * 重复打卡：每个分片一次查询本块涉及的(用户, 日期)中已有的记录；块内同一用户同一天只保留第一条
+     */
+    private void excludeDuplicates(List<Item> chunk) {
+        Map<Integer, Set<Long>> userIdsByShard = new TreeMap<>();
+        Set<LocalDate> dates = new HashSet<>();
+        for (Item item : chunk) {
+            if (item.isPending()) {
+                Long userId = item.record.getUserId();
+                userIdsByShard.computeIfAbsent(checkinRecordShards.shardOf(userId), k -> new HashSet<>()).add(userId);
+                dates.add(item.record.getCheckinDate());
+            }
+        }
+        Set<Long> taken = new HashSet<>();
+        for (Map.Entry<Integer, Set<Long>> group : userIdsByShard.entrySet()) {
+            List<CheckinRecord> existing = checkinRecordShards.shard(group.getKey()).getRecordMapper()
+                    .selectList(new QueryWrapper<CheckinRecord>()
+                            .select("user_id", "checkin_date")
+                            .in("user_id", group.getValue())
+                            .in("checkin_date", dates));
+            for (CheckinRecord record : existing) {
+                taken.add(userDayKey(record.getUserId(), record.getCheckinDate()));
+            }
+        }
+        for (Item item : chunk) {
+            if (item.isPending() && !taken.add(userDayKey(item.record.getUserId(), item.record.getCheckinDate()))) {
+                item.fail(DUPLICATE_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * 今天的记录占用防重复闸门（异步写入模式下，尚未入库的当天打卡也能拦截）
+     */
+    private void acquireGates(List<Item> chunk, LocalDate today) {
+        for (Item item : chunk) {
+            if (item.isPending() && today.equals(item.record.getCheckinDate())) {
+                CheckinGateService.GateResult gate = checkinGateService.tryAcquire(item.record.getUserId(), today);
+                if (gate == CheckinGateService.GateResult.DUPLICATE) {
+                    item.fail(DUPLICATE_MESSAGE);
+                } else {
+                    item.gateAcquired = gate == CheckinGateService.GateResult.ACQUIRED;
+                }
+            }
+        }
+    }
+
+    /**
+     * 按用户所在分片分组写入
+     */
+    private void insert(List<Item> pending, LocalDate today) {
+        Map<Integer, List<Item>> groups = new TreeMap<>();
+        for (Item item : pending) {
+            groups.computeIfAbsent(checkinRecordShards.shardOf(item.record.getUserId()), k -> new ArrayList<>()).add(item);
+        }
+        for (Map.Entry<Integer, List<Item>> group : groups.entrySet()) {
+            insert(checkinRecordShards.shard(group.getKey()).getRecordMapper(), group.getValue(), today);
+        }
+    }
+
+    /**
+     * 多行INSERT写入同一分片；整批失败（如并发打卡触发唯一约束）时逐条写入
+     */
+    private void insert(CheckinRecordMapper mapper, List<Item> pending, LocalDate today) {
+        List<CheckinRecord> records = new ArrayList<>(pending.size());
+        for (Item item : pending) {
+            records.add(item.record);
+        }
+        try {
+            mapper.insertBatch(records);
+            return;
+        } catch (Exception batchError) {
+            log.warn("离线打卡批量写入失败（{}条），改为逐条写入：{}", records.size(), batchError.getMessage());
+        }
+        for (Item item : pending) {
+            try {
+                item.record.setId(null);
+                mapper.insert(item.record);
+            } catch (DuplicateKeyException e) {
+                item.fail(DUPLICATE_MESSAGE);
+            } catch (Exception e) {
+                log.error("用户[{}]离线打卡写入失败", item.record.getUserId(), e);
+                item.fail("导入失败，请重试");
+                if (item.gateAcquired) {
+                    checkinGateService.release(item.record.getUserId(), today);
+                }
+            }
+        }
+    }
+
+    // ========== 读写工具方法 ==========
+
+    private Item parse(CheckinPrincipal principal, int lineNo, String line, ObjectReader itemReader) {
+        BulkCheckinItemDTO dto;
+        try {
+            dto = itemReader.readValue(line);
+        } catch (IOException e) {
+            dto = null;
+        }
+        if (dto == null) {
+            return new Item(lineNo, null).fail("格式错误：每行应为一个JSON对象");
+        }
+        Item item = new Item(lineNo, dto.getClientId());
+        Long userId = dto.getUserId();
+        if (userId == null) {
+            userId = principal.getUserId();
+        } else if (!userId.equals(principal.getUserId()) && !principal.isAdmin()) {
+            return item.fail("无权为其他用户打卡");
+        }
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setLocation(dto.getLocation());
+        record.setLatitude(dto.getLatitude());
+        record.setLongitude(dto.getLongitude());
+        record.setCheckinTime(dto.getCheckinTime());
+        item.record = record;
+        return item;
+    }
+
+    private static void writeResults(List<Item> chunk, Writer writer, ObjectWriter resultWriter) throws IOException {
+        for (Item item : chunk) {
+            writer.write(resultWriter.writeValueAsString(item.toResult()));
+            writer.write('\n');
+        }
+        // 每块写完立即发送，客户端可边上传边确认
+        writer.flush();
+    }
+
+    /**
+     * 读取一行（兼容\r\n），最多保留MAX_LINE_LENGTH个字符，超出部分读完丢弃
+     */
+    private static LineStatus readLine(Reader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean read = false;
+        boolean tooLong = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\r') {
+                continue;
+            }
+            if (line.length() < MAX_LINE_LENGTH) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+        }
+        if (!read) {
+            return LineStatus.EOF;
+        }
+        return tooLong ? LineStatus.TOO_LONG : LineStatus.LINE;
+    }
+
+    private static long userDayKey(Long userId, LocalDate date) {
+        return (userId << 20) | date.toEpochDay();
+    }
+
+    private enum LineStatus {
+        LINE, TOO_LONG, EOF
+    }
+
+    /**
+     * 一行请求及其处理状态
+     */
+    private static final class Item {
+        private final int line;
+        private final String clientId;
+        private CheckinRecord record;
+        private String error;
+        private boolean gateAcquired;
+
+        private Item(int line, String clientId) {
+            this.line = line;
+            this.clientId = clientId;
+        }
+
+        private boolean isPending() {
+            return error == null;
+        }
+
+        private Item fail(String message) {
+            this.error = message;
+            return this;
+        }
+
+        private BulkCheckinResultVO toResult() {
+            BulkCheckinResultVO result = new BulkCheckinResultVO();
+            result.setLine(line);
+            result.setClientId(clientId);
+            result.setSuccess(error == null);
+            result.setMsg(error == null ? "导入成功" : error);
+            if (error == null) {
+                result.setRecordId(record.getId());
+                result.setCheckinDate(record.getCheckinDate());
+                result.setFenceName(record.getFenceName());
+            }
+            return result;
+        }
+    }
+}
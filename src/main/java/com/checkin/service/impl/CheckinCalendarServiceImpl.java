@@ -0,0 +1,252 @@
+package com.checkin.service.impl;
+
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.service.CheckinCalendarService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.utils.CheckinDays;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打卡日历服务实现类
+ * 位图布局：key=checkin:calendar:{userId}:{yyyyMM}，offset=(日-1)表示当天已打卡，
+ * offset=31为"已初始化"哨兵位，用于区分"本月无打卡"和"位图缺失需从MySQL重建"。
+ * 一个月只占4个字节，一次GET即可取回整月数据，按天判断/计数都在内存中用位运算完成（等价于GETBIT/BITCOUNT）
+ */
+@Slf4j
+@Service
+public class CheckinCalendarServiceImpl implements CheckinCalendarService {
+
+    private static final String KEY_PREFIX = "checkin:calendar:";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    // 哨兵位：Redis offset=31，对应掩码最高位
+    private static final int LOADED_BIT = 1 << 31;
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private CheckinArchiveService checkinArchiveService;
+
+    // RedisTemplate非强制注入，无Redis时直接查数据库
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 位图保留天数（每次打卡会续期）
+    @Value("${checkin.calendar.expire-days:400}")
+    private Integer expireDays;
+
+
+    @Override
+    public void markCheckin(Long userId, LocalDate date) {
+        if (redisTemplate == null) {
+            return;
+        }
+        YearMonth month = YearMonth.from(date);
+        byte[] key = rawKey(userId, month);
+        try {
+            // 先确保位图存在（缺失时从MySQL重建，重建结果已包含刚写入的记录），再置位
+            loadMask(userId, month);
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.stringCommands().setBit(key, date.getDayOfMonth() - 1, true);
+                connection.keyCommands().expire(key, TimeUnit.DAYS.toSeconds(expireDays));
+                return null;
+            });
+        } catch (Exception e) {
+            // 置位失败时删除位图，下次读取从MySQL重建，避免残留错误数据
+            log.warn("用户[{}]打卡日历更新失败，日期：{}，原因：{}", userId, date, e.getMessage());
+            try {
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.keyCommands().del(key));
+            } catch (Exception ignored) {
+                // Redis不可用时无需处理，位图会随过期时间失效
+            }
+        }
+    }
+
+    @Override
+    public boolean isCheckedIn(Long userId, LocalDate date) {
+        int mask = getMonthMask(userId, YearMonth.from(date));
+        return (mask & (1 << (date.getDayOfMonth() - 1))) != 0;
+    }
+
+    @Override
+    public int getMonthMask(Long userId, YearMonth month) {
+        if (redisTemplate == null) {
+            return queryMonthMask(userId, month);
+        }
+        try {
+            return loadMask(userId, month);
+        } catch (Exception e) {
+            log.warn("读取用户[{}]{}打卡日历失败，降级查询数据库：{}", userId, month, e.getMessage());
+            return queryMonthMask(userId, month);
+        }
+    }
+
+    @Override
+    public int countMonth(Long userId, YearMonth month) {
+        return Integer.bitCount(getMonthMask(userId, month));
+    }
+
+    @Override
+    public Map<String, Object> getYearHeatmap(Long userId, int year) {
+        int[] masks = loadYearMasks(userId, year);
+
+        List<Map<String, Object>> months = new ArrayList<>(12);
+        int totalCheckinDays = 0;
+        for (int m = 1; m <= 12; m++) {
+            YearMonth month = YearMonth.of(year, m);
+            int mask = masks[m - 1];
+            List<Integer> days = new ArrayList<>(Integer.bitCount(mask));
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                days.add(Integer.numberOfTrailingZeros(bits) + 1);
+            }
+            totalCheckinDays += days.size();
+
+            Map<String, Object> monthCell = new LinkedHashMap<>();
+            monthCell.put("month", m);
+            monthCell.put("totalDays", month.lengthOfMonth());
+            monthCell.put("checkinDays", days.size());
+            monthCell.put("days", days);
+            months.add(monthCell);
+        }
+
+        Map<String, Object> heatmap = new LinkedHashMap<>();
+        heatmap.put("year", year);
+        heatmap.put("totalDays", YearMonth.of(year, 1).atDay(1).lengthOfYear());
+        heatmap.put("checkinDays", totalCheckinDays);
+        heatmap.put("months", months);
+        return heatmap;
+    }
+
+    // ========== 私有工具方法 ==========
+
+    /**
+     * 从Redis读取月度位图，缺失时从MySQL重建（SET NX，避免覆盖并发写入）
+     */
+    private int loadMask(Long userId, YearMonth month) {
+        byte[] key = rawKey(userId, month);
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+        int decoded = decode(value);
+        if ((decoded & LOADED_BIT) != 0) {
+            return decoded & ~LOADED_BIT;
+        }
+
+        int mask = queryMonthMask(userId, month);
+        storeIfAbsent(key, month, mask);
+        log.debug("用户[{}]{}打卡日历已从数据库重建", userId, month);
+        return mask;
+    }
+
+    /**
+     * 一次管道批量读取全年12个月的位图，缺失的月份用一次全年查询统一重建
+     */
+    private int[] loadYearMasks(Long userId, int year) {
+        int[] masks = new int[12];
+        if (redisTemplate == null) {
+            return queryYearMasks(userId, year);
+        }
+        try {
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int m = 1; m <= 12; m++) {
+                    connection.stringCommands().get(rawKey(userId, YearMonth.of(year, m)));
+                }
+                return null;
+            }, RedisSerializer.byteArray());
+
+            boolean anyMissing = false;
+            for (int i = 0; i < 12; i++) {
+                int decoded = decode((byte[]) values.get(i));
+                if ((decoded & LOADED_BIT) != 0) {
+                    masks[i] = decoded & ~LOADED_BIT;
+                } else {
+                    masks[i] = -1;
+                    anyMissing = true;
+                }
+            }
+            if (anyMissing) {
+                int[] dbMasks = queryYearMasks(userId, year);
+                for (int i = 0; i < 12; i++) {
+                    if (masks[i] == -1) {
+                        masks[i] = dbMasks[i];
+                        storeIfAbsent(rawKey(userId, YearMonth.of(year, i + 1)), YearMonth.of(year, i + 1), dbMasks[i]);
+                    }
+                }
+            }
+            return masks;
+        } catch (Exception e) {
+            log.warn("读取用户[{}]{}年打卡日历失败，降级查询数据库：{}", userId, year, e.getMessage());
+            return queryYearMasks(userId, year);
+        }
+    }
+
+    private void storeIfAbsent(byte[] key, YearMonth month, int mask) {
+        // 未来月份不落缓存，避免产生无意义的key
+        if (month.isAfter(YearMonth.now())) {
+            return;
+        }
+        byte[] value = encode(mask | LOADED_BIT);
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.stringCommands().set(
+                key, value, Expiration.seconds(TimeUnit.DAYS.toSeconds(expireDays)), RedisStringCommands.SetOption.ifAbsent()));
+    }
+
+    /**
+     * 查询数据库得到某月的打卡位掩码（只取checkin_date一列）
+     */
+    private int queryMonthMask(Long userId, YearMonth month) {
+        return selectCheckinDays(userId, month.atDay(1), month.plusMonths(1).atDay(1)).monthMask(month);
+    }
+
+    private int[] queryYearMasks(Long userId, int year) {
+        return selectCheckinDays(userId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1)).yearMasks(year);
+    }
+
+    /**
+     * 归档表只可能有归档分界之前的日期，查询范围完全在分界之后时不查归档表
+     */
+    private CheckinDays selectCheckinDays(Long userId, LocalDate from, LocalDate to) {
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        CheckinDays.Collector collector = CheckinDays.collector();
+        shard.getRecordMapper().selectCheckinDays(userId, from, to, collector);
+        if (from.isBefore(checkinArchiveService.archiveCutoff())) {
+            shard.getArchiveMapper().selectCheckinDays(userId, from, to, collector);
+        }
+        return collector.build();
+    }
+
+    private static byte[] rawKey(Long userId, YearMonth month) {
+        return (KEY_PREFIX + userId + ":" + month.format(MONTH_FORMAT)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Redis位图的offset=0是第1个字节的最高位，按大端读出4字节后整体位反转即得到"第(日-1)位"的掩码
+     */
+    private static int decode(byte[] value) {
+        if (value == null || value.length == 0) {
+            return 0;
+        }
+        int raw = 0;
+        for (int i = 0; i < 4; i++) {
+            raw = (raw << 8) | (i < value.length ? value[i] & 0xFF : 0);
+        }
+        return Integer.reverse(raw);
+    }
+
+    private static byte[] encode(int mask) {
+        int raw = Integer.reverse(mask);
+        return new byte[]{(byte) (raw >>> 24), (byte) (raw >>> 16), (byte) (raw >>> 8), (byte) raw};
+    }
+}
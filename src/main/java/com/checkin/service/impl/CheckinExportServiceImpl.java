@@ -0,0 +1,157 @@
+package com.checkin.service.impl;
+
+import com.checkin.cache.UserDirectory;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.mapper.UserMapper;
+import com.checkin.service.CheckinExportService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 打卡记录导出服务实现类
+ * 游标必须在同一个数据库连接内读完，因此整个写出过程放在只读事务中执行；
+ * 每行写入缓冲区后立即丢弃，堆上只保留当前这一行。
+ * 先读归档表再读热表（归档记录一定更早），两个游标在同一事务内读取，不会因并发归档重复或遗漏；
+ * 归档游标读完并关闭后才打开热表游标：MySQL流式结果集未读完时，同一连接不能执行其他查询；
+ * 事务开在用户所在分片的事务管理器上
+ */
+@Slf4j
+@Service
+public class CheckinExportServiceImpl implements CheckinExportService {
+
+    private static final String CSV_HEADER =
+            "id,user_id,checkin_time,checkin_date,location,status,latitude,longitude,is_reissue,reissue_time,reissue_reason";
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private UserDirectory userDirectory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+
+    @Override
+    public boolean userExists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (userDirectory.isLoaded() && userDirectory.contains(userId)) {
+            return true;
+        }
+        return userMapper.selectById(userId) != null;
+    }
+
+    @Override
+    public void writeUserCheckins(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        long begin = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ObjectWriter jsonWriter = objectMapper.writerFor(CheckinRecord.class);
+        if (format == ExportFormat.CSV) {
+            writer.write('\uFEFF');
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(shard.getTransactionManager());
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+
+        long rows;
+        try {
+            rows = transactionTemplate.execute(status -> {
+                try {
+                    long archivedRows;
+                    try (Cursor<CheckinRecord> archived = shard.getArchiveMapper().selectCursorByUserId(userId)) {
+                        archivedRows = writeRows(archived, format, writer, jsonWriter);
+                    }
+                    try (Cursor<CheckinRecord> hot = shard.getRecordMapper().selectCursorByUserId(userId)) {
+                        return archivedRows + writeRows(hot, format, writer, jsonWriter);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // 客户端中途断开等写出失败，游标和连接已随事务释放
+            log.warn("用户[{}]打卡记录导出中断：{}", userId, e.getCause().getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("用户[{}]打卡记录导出完成，格式：{}，共{}条，耗时{}ms", userId, format, rows, System.currentTimeMillis() - begin);
+    }
+
+    // ========== 私有工具方法 ==========
+
+    private static long writeRows(Cursor<CheckinRecord> cursor, ExportFormat format, Writer writer,
+                                  ObjectWriter jsonWriter) throws IOException {
+        long count = 0;
+        for (CheckinRecord record : cursor) {
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(writer, record);
+            } else {
+                writer.write(jsonWriter.writeValueAsString(record));
+                writer.write('\n');
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeCsvRow(Writer writer, CheckinRecord record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getUserId()));
+        writer.write(',');
+        writer.write(csvValue(record.getCheckinTime()));
+        writer.write(',');
+        writer.write(csvValue(record.getCheckinDate()));
+        writer.write(',');
+        writer.write(csvValue(record.getLocation()));
+        writer.write(',');
+        writer.write(csvValue(record.getStatus()));
+        writer.write(',');
+        writer.write(csvValue(record.getLatitude()));
+        writer.write(',');
+        writer.write(csvValue(record.getLongitude()));
+        writer.write(',');
+        writer.write(csvValue(record.getIsReissue()));
+        writer.write(',');
+        writer.write(csvValue(record.getReissueTime()));
+        writer.write(',');
+        writer.write(csvValue(record.getReissueReason()));
+        writer.write('\n');
+    }
+
+    /**
+     * 转为CSV字段：null写空；含逗号、引号、换行的文本加双引号并转义内部引号
+     */
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
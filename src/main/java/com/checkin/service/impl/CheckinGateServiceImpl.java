@@ -0,0 +1,68 @@
+package com.checkin.service.impl;
+
+import com.checkin.service.CheckinGateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 打卡防重复闸门服务实现类
+ * key=checkin:gate:{userId}:{yyyyMMdd}，过期时间为当天本地零点（至少1秒）。
+ * 闸门不可用时由checkin_record的唯一键uk_user_checkin_date(user_id, checkin_date)兜底，
+ * 该唯一键由迁移脚本V2__checkin_record_checkin_date建立（旧库同时回填checkin_date并移出重复记录）
+ */
+@Slf4j
+@Service
+public class CheckinGateServiceImpl implements CheckinGateService {
+
+    private static final String KEY_PREFIX = "checkin:gate:";
+
+    // RedisTemplate非强制注入，无Redis时由数据库唯一约束兜底
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+
+    @Override
+    public GateResult tryAcquire(Long userId, LocalDate date) {
+        if (redisTemplate == null) {
+            return GateResult.UNAVAILABLE;
+        }
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(gateKey(userId, date), 1, untilEndOfDay(date));
+            if (acquired == null) {
+                return GateResult.UNAVAILABLE;
+            }
+            return acquired ? GateResult.ACQUIRED : GateResult.DUPLICATE;
+        } catch (Exception e) {
+            log.warn("打卡闸门不可用，用户[{}]改由数据库唯一约束防重：{}", userId, e.getMessage());
+            return GateResult.UNAVAILABLE;
+        }
+    }
+
+    @Override
+    public void release(Long userId, LocalDate date) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(gateKey(userId, date));
+        } catch (Exception e) {
+            log.warn("释放用户[{}]打卡闸门失败：{}", userId, e.getMessage());
+        }
+    }
+
+    private static String gateKey(Long userId, LocalDate date) {
+        return KEY_PREFIX + userId + ":" + date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static Duration untilEndOfDay(LocalDate date) {
+        Duration ttl = Duration.between(LocalDateTime.now(), date.plusDays(1).atStartOfDay());
+        return ttl.getSeconds() < 1 ? Duration.ofSeconds(1) : ttl;
+    }
+}
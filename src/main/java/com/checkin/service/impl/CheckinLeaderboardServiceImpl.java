@@ -0,0 +1,252 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.cache.UserDirectory;
+import com.checkin.entity.CheckinSummary;
+import com.checkin.exception.BusinessException;
+import com.checkin.mapper.CheckinSummaryMapper;
+import com.checkin.service.CheckinLeaderboardService;
+import com.checkin.utils.CheckinStreakUtils;
+import com.checkin.vo.LeaderboardEntryVO;
+import com.checkin.vo.LeaderboardVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连续打卡排行榜服务实现类
+ * 有序集合：checkin:rank:current、checkin:rank:longest（总榜），
+ * checkin:rank:current:{yyyyMM}、checkin:rank:longest:{yyyyMM}（月榜，只计该月内的天数，保留month-expire-days天）；
+ * checkin:rank:last记录当前连续榜成员的最后打卡日期（score=epochDay），每日凌晨据此移出连续已中断的用户。
+ * 月度当前连续榜在月末随每日清理定格，即"月末仍在连续的用户"榜单
+ */
+@Slf4j
+@Service
+public class CheckinLeaderboardServiceImpl implements CheckinLeaderboardService {
+
+    private static final String KEY_PREFIX = "checkin:rank:";
+    private static final String LAST_CHECKIN_KEY = KEY_PREFIX + "last";
+    private static final DateTimeFormatter MONTH_KEY_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int MAX_LIMIT = 100;
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private CheckinSummaryMapper checkinSummaryMapper;
+    @Autowired
+    private UserDirectory userDirectory;
+
+    // RedisTemplate非强制注入，无Redis时排行榜不可用，不影响打卡
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 月榜保留天数
+    @Value("${checkin.leaderboard.month-expire-days:400}")
+    private Integer monthExpireDays;
+
+
+    @Override
+    public void onSummaryUpdated(CheckinSummary summary) {
+        if (redisTemplate == null || summary == null || summary.getLastCheckinDate() == null) {
+            return;
+        }
+        byte[] member = member(summary.getUserId());
+        LocalDate last = summary.getLastCheckinDate();
+        YearMonth month = YearMonth.from(last);
+        int current = CheckinStreakUtils.effectiveStreak(summary, LocalDate.now());
+        int monthDays = streakDaysInMonth(summary, month);
+        long monthExpireSeconds = TimeUnit.DAYS.toSeconds(monthExpireDays);
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                RedisZSetCommands zSet = connection.zSetCommands();
+                int longest = summary.getLongestStreak() == null ? 0 : summary.getLongestStreak();
+                zSet.zAdd(rawKey(key(Board.LONGEST, null)), longest, member, RedisZSetCommands.ZAddArgs.empty());
+                // 月度最长：只升不降（同月内后来的连续段更短时保留原值）
+                byte[] monthLongestKey = rawKey(key(Board.LONGEST, month));
+                zSet.zAdd(monthLongestKey, monthDays, member, RedisZSetCommands.ZAddArgs.empty().gt());
+                connection.keyCommands().expire(monthLongestKey, monthExpireSeconds);
+
+                if (current > 0) {
+                    zSet.zAdd(rawKey(key(Board.CURRENT, null)), current, member, RedisZSetCommands.ZAddArgs.empty());
+                    zSet.zAdd(rawKey(LAST_CHECKIN_KEY), last.toEpochDay(), member, RedisZSetCommands.ZAddArgs.empty());
+                    byte[] monthCurrentKey = rawKey(key(Board.CURRENT, month));
+                    zSet.zAdd(monthCurrentKey, monthDays, member, RedisZSetCommands.ZAddArgs.empty());
+                    connection.keyCommands().expire(monthCurrentKey, monthExpireSeconds);
+                } else {
+                    // 补卡补到更早的日期，当前连续仍是中断状态
+                    zSet.zRem(rawKey(key(Board.CURRENT, null)), member);
+                    zSet.zRem(rawKey(LAST_CHECKIN_KEY), member);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("用户[{}]连续打卡排行榜更新失败，执行排行榜重建后恢复：{}", summary.getUserId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public LeaderboardVO getTop(Board board, YearMonth month, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        byte[] key = rawKey(key(board, month));
+        LeaderboardVO leaderboard = execute(connection -> {
+            Set<Tuple> tuples = connection.zSetCommands().zRevRangeWithScores(key, 0, size - 1);
+            Long total = connection.zSetCommands().zCard(key);
+
+            LeaderboardVO vo = new LeaderboardVO();
+            vo.setTotal(total == null ? 0 : total);
+            List<LeaderboardEntryVO> entries = new ArrayList<>(size);
+            long rank = 1;
+            if (tuples != null) {
+                for (Tuple tuple : tuples) {
+                    entries.add(entry(rank++, parseMember(tuple.getValue()), tuple.getScore()));
+                }
+            }
+            vo.setEntries(entries);
+            return vo;
+        });
+        leaderboard.setBoard(board.name());
+        leaderboard.setMonth(month == null ? null : month.toString());
+        return leaderboard;
+    }
+
+    @Override
+    public LeaderboardEntryVO getRank(Board board, YearMonth month, Long userId) {
+        byte[] key = rawKey(key(board, month));
+        byte[] member = member(userId);
+        return execute(connection -> {
+            Long rank = connection.zSetCommands().zRevRank(key, member);
+            Double score = connection.zSetCommands().zScore(key, member);
+            return entry(rank == null ? null : rank + 1, userId, score);
+        });
+    }
+
+    @Override
+    public int removeBrokenStreaks(LocalDate today) {
+        if (redisTemplate == null) {
+            return 0;
+        }
+        // 最后打卡早于昨天即已中断；月初第一天同时清理上月的当前连续月榜
+        Range<Double> broken = Range.of(Range.Bound.unbounded(), Range.Bound.inclusive((double) today.minusDays(2).toEpochDay()));
+        Set<String> currentKeys = new LinkedHashSet<>();
+        currentKeys.add(key(Board.CURRENT, null));
+        currentKeys.add(key(Board.CURRENT, YearMonth.from(today)));
+        currentKeys.add(key(Board.CURRENT, YearMonth.from(today.minusDays(1))));
+
+        int removed = 0;
+        while (true) {
+            Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection -> connection.zSetCommands()
+                    .zRangeByScore(rawKey(LAST_CHECKIN_KEY), broken, Limit.limit().count(BATCH_SIZE)));
+            if (members == null || members.isEmpty()) {
+                break;
+            }
+            byte[][] values = members.toArray(new byte[0][]);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : currentKeys) {
+                    connection.zSetCommands().zRem(rawKey(key), values);
+                }
+                connection.zSetCommands().zRem(rawKey(LAST_CHECKIN_KEY), values);
+                return null;
+            });
+            removed += values.length;
+            if (values.length < BATCH_SIZE) {
+                break;
+            }
+        }
+        log.info("连续打卡排行榜清理完成，移出{}名连续已中断的用户", removed);
+        return removed;
+    }
+
+    @Override
+    public int rebuild() {
+        if (redisTemplate == null) {
+            throw new BusinessException("排行榜暂不可用，请稍后重试");
+        }
+        long start = System.currentTimeMillis();
+        long lastUserId = 0;
+        int count = 0;
+        while (true) {
+            List<CheckinSummary> batch = checkinSummaryMapper.selectList(new QueryWrapper<CheckinSummary>()
+                    .gt("user_id", lastUserId)
+                    .orderByAsc("user_id")
+                    .last("LIMIT " + BATCH_SIZE));
+            for (CheckinSummary summary : batch) {
+                onSummaryUpdated(summary);
+            }
+            count += batch.size();
+            if (batch.size() < BATCH_SIZE) {
+                break;
+            }
+            lastUserId = batch.get(batch.size() - 1).getUserId();
+        }
+        log.info("连续打卡排行榜重建完成，共{}个用户，耗时{}ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    // ========== 私有工具方法 ==========
+
+    /**
+     * 最近一段连续打卡落在指定月份内的天数
+     */
+    private static int streakDaysInMonth(CheckinSummary summary, YearMonth month) {
+        LocalDate first = month.atDay(1);
+        LocalDate start = summary.getStreakStartDate();
+        LocalDate from = start == null || start.isBefore(first) ? first : start;
+        return (int) ChronoUnit.DAYS.between(from, summary.getLastCheckinDate()) + 1;
+    }
+
+    private LeaderboardEntryVO entry(Long rank, Long userId, Double score) {
+        LeaderboardEntryVO entry = new LeaderboardEntryVO();
+        entry.setRank(rank);
+        entry.setUserId(userId);
+        entry.setUsername(userDirectory.usernameOf(userId));
+        entry.setDays(score == null ? 0 : score.intValue());
+        return entry;
+    }
+
+    private <T> T execute(RedisCallback<T> callback) {
+        if (redisTemplate == null) {
+            throw new BusinessException("排行榜暂不可用，请稍后重试");
+        }
+        try {
+            return redisTemplate.execute(callback);
+        } catch (Exception e) {
+            log.warn("读取连续打卡排行榜失败：{}", e.getMessage());
+            throw new BusinessException("排行榜暂不可用，请稍后重试");
+        }
+    }
+
+    private static String key(Board board, YearMonth month) {
+        String key = KEY_PREFIX + board.name().toLowerCase();
+        return month == null ? key : key + ":" + month.format(MONTH_KEY_FORMAT);
+    }
+
+    private static byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] member(Long userId) {
+        return String.valueOf(userId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long parseMember(byte[] member) {
+        return Long.parseLong(new String(member, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,99 @@
+package com.checkin.service.impl;
+
+import com.checkin.mapper.CheckinPartitionMapper;
+import com.checkin.service.CheckinPartitionService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 打卡记录分区维护服务实现类
+ * 分区命名p{yyyyMM}，上界为下月1日；最后一个分区固定为p_max（MAXVALUE），新分区通过REORGANIZE从p_max拆出。
+ * p_max提前拆分时为空，拆分只修改元数据，不搬移数据
+ */
+@Slf4j
+@Service
+public class CheckinPartitionServiceImpl implements CheckinPartitionService {
+
+    private static final String MAX_PARTITION = "p_max";
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+
+    @Value("${checkin.partition.months-ahead:3}")
+    private Integer monthsAhead;
+
+
+    /**
+     * 每个分片的checkin_record各自维护分区
+     */
+    @Override
+    public synchronized int ensurePartitions() {
+        int created = 0;
+        for (CheckinShard shard : checkinRecordShards.all()) {
+            created += ensurePartitions(shard);
+        }
+        return created;
+    }
+
+    private int ensurePartitions(CheckinShard shard) {
+        if (!isMySql(shard.getDataSource())) {
+            return 0;
+        }
+        CheckinPartitionMapper checkinPartitionMapper = shard.getPartitionMapper();
+        List<String> names = checkinPartitionMapper.selectPartitionNames();
+        if (!names.contains(MAX_PARTITION)) {
+            log.info("分片{}的checkin_record未按月分区（或没有{}分区），跳过分区维护", shard.getIndex(), MAX_PARTITION);
+            return 0;
+        }
+
+        YearMonth last = null;
+        for (String name : names) {
+            YearMonth month = parseMonth(name);
+            if (month != null && (last == null || month.isAfter(last))) {
+                last = month;
+            }
+        }
+        YearMonth target = YearMonth.now().plusMonths(monthsAhead);
+        YearMonth next = last == null ? YearMonth.now() : last.plusMonths(1);
+
+        int created = 0;
+        for (YearMonth month = next; !month.isAfter(target); month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_FORMAT);
+            checkinPartitionMapper.splitMaxPartition(name, month.plusMonths(1).atDay(1).toString());
+            log.info("分片{}的checkin_record新建分区{}", shard.getIndex(), name);
+            created++;
+        }
+        return created;
+    }
+
+    private static boolean isMySql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("无法获取数据库连接：" + e.getMessage(), e);
+        }
+    }
+
+    private static YearMonth parseMonth(String name) {
+        if (name.length() != 7 || name.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.parse(name, PARTITION_FORMAT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
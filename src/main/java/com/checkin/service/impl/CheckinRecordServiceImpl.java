@@ -4,24 +4,54 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.checkin.cache.SingleFlightLoader;
+import com.checkin.cache.UserDirectory;
 import com.checkin.common.Result;
+import com.checkin.datasource.ReadYourWritesTracker;
+import com.checkin.datasource.ReplicaRead;
 import com.checkin.entity.CheckinRecord;
+import com.checkin.entity.CheckinSummary;
 import com.checkin.entity.User;
+import com.checkin.geofence.Geofence;
+import com.checkin.geofence.GeofenceRegistry;
+import com.checkin.ingest.CheckinPersistedEvent;
+import com.checkin.ingest.CheckinWriteBehindQueue;
 import com.checkin.mapper.CheckinRecordMapper;
 import com.checkin.mapper.UserMapper;
+import com.checkin.metrics.CacheMetrics;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.service.CheckinCalendarService;
+import com.checkin.service.CheckinGateService;
+import com.checkin.service.CheckinLeaderboardService;
 import com.checkin.service.CheckinRecordService;
+import com.checkin.service.CheckinSummaryService;
+import com.checkin.service.UncheckedUserService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.utils.CheckinCursorUtils;
+import com.checkin.utils.CheckinStreakUtils;
+import com.checkin.vo.CheckinCursorPageVO;
+import com.checkin.vo.CheckinStatsVO;
+import com.checkin.vo.GeofenceVO;
+import com.checkin.vo.UncheckedUserPageVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 打卡记录服务实现类
@@ -31,23 +61,56 @@ import java.util.stream.Collectors;
 @Service
 public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, CheckinRecord> implements CheckinRecordService {
 
+    // 连续打卡天数缓存key前缀
+    private static final String CONTINUOUS_CACHE_PREFIX = "checkin:continuous:";
+    // 连续打卡天数缓存的指标名
+    private static final String CONTINUOUS_CACHE_NAME = "continuous";
+    // 不在任何打卡区域内的提示
+    private static final String OUTSIDE_FENCE_MESSAGE = "打卡地点不在有效打卡区域内，请在指定区域内打卡";
+
     // 依赖注入
     @Autowired
     private UserMapper userMapper;
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private UserDirectory userDirectory;
+    @Autowired
+    private CheckinCalendarService checkinCalendarService;
+    @Autowired
+    private CheckinSummaryService checkinSummaryService;
+    @Autowired
+    private UncheckedUserService uncheckedUserService;
+    @Autowired
+    private CheckinGateService checkinGateService;
+    @Autowired
+    private CheckinLeaderboardService checkinLeaderboardService;
+    @Autowired
+    private CacheMetrics cacheMetrics;
+    @Autowired
+    private SingleFlightLoader singleFlightLoader;
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
 
     // RedisTemplate非强制注入，避免无Redis时启动失败
     @Autowired(required = false)
     private RedisTemplate<String, Object> redisTemplate;
 
-    // 打卡有效区域配置（从配置文件读取）
-    @Value("${checkin.valid.latitude.min}")
-    private Double minLatitude;
-    @Value("${checkin.valid.latitude.max}")
-    private Double maxLatitude;
-    @Value("${checkin.valid.longitude.min}")
-    private Double minLongitude;
-    @Value("${checkin.valid.longitude.max}")
-    private Double maxLongitude;
+    // 异步写入队列，仅checkin.ingest.mode=journal时存在
+    @Autowired(required = false)
+    private CheckinWriteBehindQueue writeBehindQueue;
+
+    // 打卡有效区域（多边形/圆形区域的空间索引，支持热加载）
+    @Autowired
+    private GeofenceRegistry geofenceRegistry;
+
+    // 连续打卡缓存配置
+    @Value("${checkin.cache.continuous-ttl-seconds:7200}") // 基础有效期2小时
+    private Long continuousCacheBaseTtlSeconds;
+    @Value("${checkin.cache.ttl-jitter-seconds:600}") // 有效期随机缩短0~10分钟
+    private Long continuousCacheTtlJitterSeconds;
+    @Value("${checkin.cache.refresh-ahead-seconds:600}") // 剩余有效期不足10分钟时被读取则后台提前刷新
+    private Long continuousRefreshAheadSeconds;
 
     // 补卡规则配置
     @Value("${checkin.reissue.max-days:3}") // 最多补3天内的卡
@@ -61,63 +124,72 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
      */
     @Override
     public Result<?> createCheckin(CheckinRecord record) {
-        // 1. 地点非空+长度校验
-        if (record.getLocation() == null || record.getLocation().trim().isEmpty()) {
-            return Result.error("打卡地点不能为空");
-        }
-        if (record.getLocation().length() > 100) {
-            return Result.error("打卡地点不能超过100个字符");
-        }
-
-        // 2. 校验用户存在性
+        // 1. 校验用户存在性
         Long userId = record.getUserId();
         Result<?> userValidResult = validateUserExists(userId);
         if (!userValidResult.isSuccess()) {
             return userValidResult;
         }
 
-        // 3. 校验今日是否已打卡
-        if (hasCheckedInToday(userId)) {
+        // 2~3. 校验打卡地点（名称、经纬度），记录命中的打卡区域
+        Result<?> locationResult = validateCheckinRecord(record);
+        if (!locationResult.isSuccess()) {
+            return locationResult;
+        }
+
+        // 4. 填充打卡信息
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        record.setCheckinTime(now); // 强制当前时间，防止篡改
+        record.setCheckinDate(today);
+        record.setStatus(1); // 1-正常打卡
+        record.setIsReissue(0); // 0-非补卡
+
+        // 5. 防重复闸门：一次Redis SET NX拦截当天重复打卡；Redis不可用时由数据库唯一约束兜底
+        //    迁移分片中的用户暂不接受打卡（迁移通常只需几秒）
+        if (checkinRecordShards.isMoving(userId)) {
+            return Result.error("账号数据迁移中，请稍后重试");
+        }
+        CheckinGateService.GateResult gate = checkinGateService.tryAcquire(userId, today);
+        if (gate == CheckinGateService.GateResult.DUPLICATE) {
             log.info("用户[{}]今日已打卡，拒绝重复提交", userId);
             return Result.error("今日已打卡，请勿重复操作");
         }
 
-        // 4. 校验打卡地点（经纬度）
-        if (record.getLatitude() != null && record.getLongitude() != null) {
-            Result<?> locationResult = validateCheckinLocation(record.getLatitude(), record.getLongitude());
-            if (!locationResult.isSuccess()) {
-                return locationResult;
+        // 6. 保存记录（异步写入模式：写本地日志后立即返回，由后台批量入库）
+        if (writeBehindQueue != null) {
+            // 异步写入模式下数据库唯一约束要到批量入库时才生效，闸门不可用时退回打卡日历校验
+            if (gate == CheckinGateService.GateResult.UNAVAILABLE && hasCheckedInToday(userId)) {
+                return Result.error("今日已打卡，请勿重复操作");
             }
+            return acceptToJournal(record, gate == CheckinGateService.GateResult.ACQUIRED);
         }
-
-        // 5. 填充打卡信息
-        record.setCheckinTime(LocalDateTime.now()); // 强制当前时间，防止篡改
-        record.setStatus(1); // 1-正常打卡
-        record.setIsReissue(0); // 0-非补卡
-
-        // 6. 保存记录
         try {
-            baseMapper.insert(record);
-            // 清除连续打卡缓存（添加Redis空指针保护）
-            if (redisTemplate != null) {
-                redisTemplate.delete("checkin:continuous:" + userId);
-                log.debug("用户[{}]的连续打卡缓存已清除", userId);
-            } else {
-                log.warn("RedisTemplate未注入，跳过缓存清除操作");
-            }
-            log.info("用户[{}]打卡成功，记录ID:{}", userId, record.getId());
-            return Result.success("打卡成功", record);
+            checkinRecordShards.recordMapper(userId).insert(record);
+        } catch (DuplicateKeyException e) {
+            log.info("用户[{}]今日已打卡（数据库唯一约束拦截），拒绝重复提交", userId);
+            return Result.error("今日已打卡，请勿重复操作");
         } catch (Exception e) {
             log.error("用户[{}]打卡失败", userId, e);
+            if (gate == CheckinGateService.GateResult.ACQUIRED) {
+                checkinGateService.release(userId, today);
+            }
             return Result.error("打卡失败，请重试");
         }
+
+        // 7. 更新打卡日历、打卡汇总，清除连续打卡缓存
+        markCheckinDay(userId, today);
+        refreshSummary(userId, today);
+        log.info("用户[{}]打卡成功，记录ID:{}", userId, record.getId());
+        return Result.success("打卡成功", record);
     }
 
 
     /**
-     * 查询用户所有打卡记录（按时间倒序）
+     * 查询用户所有打卡记录（按时间倒序；归档记录一定早于热表记录，直接接在后面）
      */
     @Override
+    @ReplicaRead
     public Result<?> getUserCheckins(Long userId) {
         // 校验用户
         Result<?> userValidResult = validateUserExists(userId);
@@ -125,11 +197,13 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
             return userValidResult;
         }
 
-        // 查询所有记录
-        List<CheckinRecord> records = baseMapper.selectList(new QueryWrapper<CheckinRecord>()
+        // 查询所有记录（用户的热表和归档记录在同一分片上）
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        List<CheckinRecord> records = shard.getRecordMapper().selectList(new QueryWrapper<CheckinRecord>()
                 .eq("user_id", userId)
                 .orderByDesc("checkin_time")
         );
+        records.addAll(shard.getArchiveMapper().selectByUserId(userId, null, null, null, null));
         log.info("用户[{}]的打卡记录共{}条", userId, records.size());
         return Result.success(records);
     }
@@ -154,77 +228,82 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
 
 
     /**
-     * 统计用户连续打卡天数（带Redis缓存）
+     * 统计用户连续打卡天数（带Redis缓存，缓存未命中时读取打卡汇总）
+     * 同一用户并发未命中时只回源一次；命中但临近过期时在后台提前刷新
      */
     @Override
     public Result<?> getContinuousCheckinDays(Long userId) {
-        // 1. 先查缓存（添加Redis空指针保护）
-        String cacheKey = "checkin:continuous:" + userId;
-        Object cachedDays = null;
+        // 1. 先查缓存（值和剩余有效期一次往返读取；Redis不可用时按未命中处理）
+        String cacheKey = CONTINUOUS_CACHE_PREFIX + userId;
         if (redisTemplate != null) {
-            cachedDays = redisTemplate.opsForValue().get(cacheKey);
-        }
-        if (cachedDays != null) {
-            return Result.success(cachedDays);
+            try {
+                byte[] rawKey = cacheKey.getBytes(StandardCharsets.UTF_8);
+                List<Object> cached = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    connection.stringCommands().get(rawKey);
+                    connection.keyCommands().pTtl(rawKey);
+                    return null;
+                });
+                Object cachedDays = cached.get(0);
+                if (cachedDays != null) {
+                    cacheMetrics.hit(CONTINUOUS_CACHE_NAME);
+                    refreshContinuousAheadIfNeeded(userId, (Long) cached.get(1));
+                    return Result.success(cachedDays);
+                }
+            } catch (Exception e) {
+                log.warn("读取用户[{}]连续打卡缓存失败，直接读取打卡汇总：{}", userId, e.getMessage());
+            }
         }
+        cacheMetrics.miss(CONTINUOUS_CACHE_NAME);
 
-        // 2. 缓存未命中，查数据库
+        // 2. 缓存未命中，读取打卡汇总（单行，不再扫描全部历史记录）
         Result<?> userValidResult = validateUserExists(userId);
         if (!userValidResult.isSuccess()) {
             return userValidResult;
         }
 
-        List<CheckinRecord> records = baseMapper.selectList(new QueryWrapper<CheckinRecord>()
-                .eq("user_id", userId)
-                .orderByDesc("checkin_time")
-        );
-        if (records.isEmpty()) {
-            // 缓存结果（添加Redis空指针保护）
-            if (redisTemplate != null) {
-                redisTemplate.opsForValue().set(cacheKey, 0, 2, TimeUnit.HOURS);
-            }
-            return Result.success(0);
-        }
-
-        // 3. 计算连续天数（优化逻辑，兼容补卡场景）
-        int continuousDays = 1;
-        LocalDate lastCheckinDate = records.get(0).getCheckinTime().toLocalDate();
-        LocalDate today = LocalDate.now();
+        int continuousDays = singleFlightLoader.load(CONTINUOUS_CACHE_NAME, userId, () -> loadContinuousDays(userId));
+        log.info("用户[{}]连续打卡天数：{}（已缓存）", userId, continuousDays);
+        return Result.success(continuousDays);
+    }
 
-        // 若最近一次打卡不是今天，连续天数仅算1天
-        if (!lastCheckinDate.isEqual(today)) {
-            if (redisTemplate != null) {
-                redisTemplate.opsForValue().set(cacheKey, continuousDays, 2, TimeUnit.HOURS);
+    /**
+     * 读取打卡汇总计算连续打卡天数并回填缓存（有效期带随机抖动且不跨过零点，跨天后连续状态会变化）
+     */
+    private int loadContinuousDays(Long userId) {
+        CheckinSummary summary = checkinSummaryService.getSummary(userId);
+        int continuousDays = CheckinStreakUtils.effectiveStreak(summary, LocalDate.now());
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(CONTINUOUS_CACHE_PREFIX + userId, continuousDays,
+                        continuousCacheTtlSeconds(), TimeUnit.SECONDS);
+                cacheMetrics.fill(CONTINUOUS_CACHE_NAME);
+            } catch (Exception e) {
+                log.warn("用户[{}]连续打卡缓存回填失败：{}", userId, e.getMessage());
             }
-            return Result.success(continuousDays);
         }
+        return continuousDays;
+    }
 
-        // 遍历历史记录检查连续性
-        for (int i = 1; i < records.size(); i++) {
-            LocalDate currentDate = records.get(i).getCheckinTime().toLocalDate();
-            LocalDate expectedDate = today.minusDays(continuousDays);
-
-            if (currentDate.isEqual(expectedDate)) {
-                continuousDays++;
-                today = currentDate;
-            } else {
-                break;
-            }
+    /**
+     * 缓存剩余有效期进入提前刷新窗口时在后台重新计算（临近零点时缓存本就在零点失效，不提前刷新）
+     */
+    private void refreshContinuousAheadIfNeeded(Long userId, Long ttlMillis) {
+        if (ttlMillis == null || ttlMillis < 0 || ttlMillis > TimeUnit.SECONDS.toMillis(continuousRefreshAheadSeconds)) {
+            return;
         }
-
-        // 4. 缓存结果（有效期2小时，添加Redis空指针保护）
-        if (redisTemplate != null) {
-            redisTemplate.opsForValue().set(cacheKey, continuousDays, 2, TimeUnit.HOURS);
+        if (secondsUntilMidnight() <= continuousRefreshAheadSeconds) {
+            return;
         }
-        log.info("用户[{}]连续打卡天数：{}（已缓存）", userId, continuousDays);
-        return Result.success(continuousDays);
+        singleFlightLoader.refreshAsync(CONTINUOUS_CACHE_NAME, userId, () -> loadContinuousDays(userId));
     }
 
 
     /**
      * 分页查询用户打卡记录
+     * 先分页热表；热表这一页不满时，按热表总数换算出归档表的偏移量补足
      */
     @Override
+    @ReplicaRead
     public Result<?> getUserCheckinsByPage(Long userId, int pageNum, int pageSize) {
         // 校验用户
         Result<?> userValidResult = validateUserExists(userId);
@@ -237,17 +316,105 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         pageSize = Math.max(1, Math.min(pageSize, 100)); // 限制每页1-100条
 
         // 分页查询
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
         IPage<CheckinRecord> page = new Page<>(pageNum, pageSize);
-        IPage<CheckinRecord> resultPage = baseMapper.selectPage(page, new QueryWrapper<CheckinRecord>()
+        IPage<CheckinRecord> resultPage = shard.getRecordMapper().selectPage(page, new QueryWrapper<CheckinRecord>()
                 .eq("user_id", userId)
                 .orderByDesc("checkin_time")
         );
+        long hotTotal = resultPage.getTotal();
+        List<CheckinRecord> records = new ArrayList<>(resultPage.getRecords());
+        if (records.size() < pageSize) {
+            long archiveOffset = Math.max(0L, page.offset() - hotTotal);
+            records.addAll(shard.getArchiveMapper().selectByUserId(userId, null, null, archiveOffset, pageSize - records.size()));
+        }
+        resultPage.setRecords(records);
+        resultPage.setTotal(hotTotal + shard.getArchiveMapper().countByUserId(userId));
 
         log.info("用户[{}]分页查询：第{}页，共{}条记录", userId, pageNum, resultPage.getTotal());
         return Result.success(resultPage);
     }
 
 
+    /**
+     * 游标分页查询用户打卡记录
+     * 条件checkin_time < t OR (checkin_time = t AND id < id)配合(user_id, checkin_time, id)索引直接定位到游标处，
+     * 多查1条判断是否还有下一页，不再执行COUNT(*)；热表不足一页时用同一游标条件接着查归档表
+     */
+    @Override
+    @ReplicaRead
+    public Result<?> getUserCheckinsByCursor(Long userId, String cursor, int pageSize, boolean withTotal) {
+        Result<?> userValidResult = validateUserExists(userId);
+        if (!userValidResult.isSuccess()) {
+            return userValidResult;
+        }
+        CheckinCursorUtils.Cursor position = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                position = CheckinCursorUtils.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Result.error("无效的分页游标");
+            }
+        }
+        pageSize = Math.max(1, Math.min(pageSize, 100));
+
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        QueryWrapper<CheckinRecord> query = new QueryWrapper<CheckinRecord>().eq("user_id", userId);
+        if (position != null) {
+            LocalDateTime time = position.getCheckinTime();
+            Long id = position.getId();
+            query.and(w -> w.lt("checkin_time", time).or(o -> o.eq("checkin_time", time).lt("id", id)));
+        }
+        query.orderByDesc("checkin_time", "id").last("LIMIT " + (pageSize + 1));
+        List<CheckinRecord> records = shard.getRecordMapper().selectList(query);
+        if (records.size() <= pageSize) {
+            records.addAll(shard.getArchiveMapper().selectByUserId(userId,
+                    position == null ? null : position.getCheckinTime(),
+                    position == null ? null : position.getId(),
+                    null, pageSize + 1 - records.size()));
+        }
+
+        boolean hasMore = records.size() > pageSize;
+        if (hasMore) {
+            records = records.subList(0, pageSize);
+        }
+        CheckinCursorPageVO page = new CheckinCursorPageVO();
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            CheckinRecord last = records.get(records.size() - 1);
+            page.setNextCursor(CheckinCursorUtils.encode(last.getCheckinTime(), last.getId()));
+        }
+        if (withTotal) {
+            page.setTotal(shard.getRecordMapper().selectCount(new QueryWrapper<CheckinRecord>().eq("user_id", userId))
+                    + shard.getArchiveMapper().countByUserId(userId));
+        }
+        return Result.success(page);
+    }
+
+
+    /**
+     * 校验打卡记录的地点：名称非空且不超过100字符；带经纬度时必须落在某个打卡区域内
+     */
+    @Override
+    public Result<?> validateCheckinRecord(CheckinRecord record) {
+        if (record.getLocation() == null || record.getLocation().trim().isEmpty()) {
+            return Result.error("打卡地点不能为空");
+        }
+        if (record.getLocation().length() > 100) {
+            return Result.error("打卡地点不能超过100个字符");
+        }
+        if (record.getLatitude() != null && record.getLongitude() != null) {
+            Geofence fence = geofenceRegistry.match(record.getLatitude(), record.getLongitude());
+            if (fence == null) {
+                return Result.error(OUTSIDE_FENCE_MESSAGE);
+            }
+            record.setFenceName(fence.getName());
+        }
+        return Result.success();
+    }
+
+
     /**
      * 校验打卡地点是否在有效区域
      */
@@ -257,17 +424,12 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
             return Result.error("打卡地点不能为空");
         }
 
-        // 校验经纬度范围
-        boolean isLatValid = latitude >= minLatitude && latitude <= maxLatitude;
-        boolean isLngValid = longitude >= minLongitude && longitude <= maxLongitude;
-
-        if (!isLatValid || !isLngValid) {
-            return Result.error(String.format(
-                    "打卡地点超出有效范围（纬度：%s-%s，经度：%s-%s），请在指定区域内打卡",
-                    minLatitude, maxLatitude, minLongitude, maxLongitude
-            ));
+        // 查询空间索引，返回命中的打卡区域
+        Geofence fence = geofenceRegistry.match(latitude, longitude);
+        if (fence == null) {
+            return Result.error(OUTSIDE_FENCE_MESSAGE);
         }
-        return Result.success("打卡地点有效");
+        return Result.success("打卡地点有效", GeofenceVO.of(fence));
     }
 
 
@@ -292,7 +454,10 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
             return Result.error("仅支持" + maxReissueDays + "天内的补卡（当前超出" + daysBetween + "天）");
         }
 
-        // 3. 校验该日期是否已打卡
+        // 3. 校验该日期是否已打卡、是否正在迁移分片
+        if (checkinRecordShards.isMoving(userId)) {
+            return Result.error("账号数据迁移中，请稍后重试");
+        }
         if (hasCheckedInDate(userId, reissueDate)) {
             return Result.error("该日期已打卡，无需补卡");
         }
@@ -312,6 +477,7 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         CheckinRecord record = new CheckinRecord();
         record.setUserId(userId);
         record.setCheckinTime(reissueDate.atStartOfDay()); // 补卡日期
+        record.setCheckinDate(reissueDate);
         record.setLocation("补卡");
         record.setStatus(2); // 2-补卡状态
         record.setIsReissue(1); // 1-补卡标记
@@ -319,55 +485,50 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         record.setReissueTime(LocalDateTime.now()); // 补充：记录补卡提交时间
 
         try {
-            baseMapper.insert(record);
-            // 清除缓存（添加Redis空指针保护）
-            if (redisTemplate != null) {
-                redisTemplate.delete("checkin:continuous:" + userId);
-                log.debug("用户[{}]补卡后，连续打卡缓存已清除", userId);
-            } else {
-                log.warn("RedisTemplate未注入，跳过补卡缓存清除操作");
-            }
-            log.info("用户[{}]补卡成功，日期：{}，本月剩余补卡次数：{}",
-                    userId, reissueDate, maxReissueCount - reissueCount - 1);
-            return Result.success("补卡成功", record);
+            checkinRecordShards.recordMapper(userId).insert(record);
+        } catch (DuplicateKeyException e) {
+            return Result.error("该日期已打卡，无需补卡");
         } catch (Exception e) {
             log.error("用户[{}]补卡失败", userId, e);
             return Result.error("补卡失败，请重试");
         }
+
+        // 更新打卡日历、打卡汇总（补卡可能桥接前后两段连续），清除连续打卡缓存
+        markCheckinDay(userId, reissueDate);
+        refreshSummary(userId, reissueDate);
+        log.info("用户[{}]补卡成功，日期：{}，本月剩余补卡次数：{}",
+                userId, reissueDate, maxReissueCount - reissueCount - 1);
+        return Result.success("补卡成功", record);
     }
 
 
     /**
-     * 月度打卡统计
+     * 月度打卡统计（读取打卡日历位图；只有includeRecords时才查询当月明细记录）
      */
     @Override
-    public Result<?> getMonthlyCheckinStats(Long userId, int year, int month) {
+    @ReplicaRead
+    public Result<?> getMonthlyCheckinStats(Long userId, int year, int month, boolean includeRecords) {
         // 校验用户
         Result<?> userValidResult = validateUserExists(userId);
         if (!userValidResult.isSuccess()) {
             return userValidResult;
         }
 
-        // 当月时间范围
-        LocalDate firstDay = LocalDate.of(year, month, 1);
-        LocalDate lastDay = firstDay.plusMonths(1).minusDays(1);
-        int totalDays = lastDay.getDayOfMonth();
+        // 当月天数
+        YearMonth yearMonth = YearMonth.of(year, month);
+        int totalDays = yearMonth.lengthOfMonth();
 
-        // 查询当月记录
-        List<CheckinRecord> records = baseMapper.selectList(new QueryWrapper<CheckinRecord>()
-                .eq("user_id", userId)
-                .ge("checkin_time", firstDay.atStartOfDay())
-                .le("checkin_time", lastDay.atTime(23, 59, 59))
-                .orderByAsc("checkin_time")
-        );
-
-        // 统计数据（去重，同一天多次打卡算1天）
-        Set<LocalDate> checkinDates = records.stream()
-                .map(r -> r.getCheckinTime().toLocalDate())
-                .collect(Collectors.toSet());
-        int checkinDays = checkinDates.size();
+        // 读取当月位掩码（同一天多次打卡只占1位，天然去重）
+        int mask = checkinCalendarService.getMonthMask(userId, yearMonth);
+        int checkinDays = Integer.bitCount(mask);
         double checkinRate = totalDays == 0 ? 0 : (double) checkinDays / totalDays * 100;
 
+        // 低位到高位即日期升序（仍返回去重的日期集合）
+        Set<LocalDate> checkinDates = new LinkedHashSet<>(checkinDays * 2);
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            checkinDates.add(yearMonth.atDay(Integer.numberOfTrailingZeros(bits) + 1));
+        }
+
         // 组装结果
         Map<String, Object> stats = new HashMap<>();
         stats.put("year", year);
@@ -376,7 +537,9 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
         stats.put("checkinDays", checkinDays);
         stats.put("checkinRate", String.format("%.1f%%", checkinRate));
         stats.put("checkinDates", checkinDates);
-        stats.put("records", records);
+        if (includeRecords) {
+            stats.put("records", selectMonthRecords(userId, yearMonth));
+        }
 
         log.info("用户[{}]{}年{}月打卡统计：总天数{}，打卡天数{}，打卡率{}",
                 userId, year, month, totalDays, checkinDays, stats.get("checkinRate"));
@@ -385,88 +548,73 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
 
 
     /**
-     * 查询指定日期未打卡的用户（管理员功能）
+     * 用户当月的打卡记录（按打卡时间升序；归档记录一定早于热表记录，排在前面）
      */
-    @Override
-    public Result<?> getUncheckedUsers(LocalDate date) {
-        // 所有用户
-        List<User> allUsers = userMapper.selectList(null);
-        if (allUsers.isEmpty()) {
-            return Result.success("无用户数据");
-        }
-
-        // 已打卡用户ID
-        LocalDateTime startTime = date.atStartOfDay();
-        LocalDateTime endTime = date.plusDays(1).atStartOfDay();
-        List<Long> checkedUserIds = baseMapper.selectCheckedUserIds(startTime, endTime);
-
-        // 筛选未打卡用户
-        List<User> uncheckedUsers = allUsers.stream()
-                .filter(user -> !checkedUserIds.contains(user.getId()))
-                .peek(user -> user.setPassword(null)) // 隐藏密码，安全返回
-                .collect(Collectors.toList());
-
-        log.info("{}未打卡用户共{}人", date, uncheckedUsers.size());
-        return Result.success(uncheckedUsers);
+    private List<CheckinRecord> selectMonthRecords(Long userId, YearMonth yearMonth) {
+        LocalDate startDate = yearMonth.atDay(1);
+        LocalDate endDate = yearMonth.plusMonths(1).atDay(1);
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        List<CheckinRecord> records = shard.getArchiveMapper().selectByUserIdAndDate(userId, startDate, endDate);
+        records.addAll(shard.getRecordMapper().selectList(new QueryWrapper<CheckinRecord>()
+                .eq("user_id", userId)
+                .ge("checkin_date", startDate)
+                .lt("checkin_date", endDate)
+                .orderByAsc("checkin_time")
+        ));
+        return records;
     }
 
+
     /**
-     * 打卡核心统计（总天数+连续天数+本月统计）
+     * 年度打卡热力图
      */
     @Override
-    public Result<?> getCheckinStats(Long userId) {
-        // 1. 校验用户
+    public Result<?> getYearHeatmap(Long userId, int year) {
+        // 校验用户
         Result<?> userValidResult = validateUserExists(userId);
         if (!userValidResult.isSuccess()) {
             return userValidResult;
         }
 
-        // 2. 查询所有打卡记录
-        List<CheckinRecord> records = baseMapper.selectList(new QueryWrapper<CheckinRecord>()
-                .eq("user_id", userId)
-                .orderByAsc("checkin_time")
-        );
-
-        // 3. 统计总打卡天数（去重）
-        long totalDays = records.stream()
-                .map(record -> record.getCheckinTime().toLocalDate())
-                .distinct()
-                .count();
-
-        // 4. 统计连续打卡天数（复用已有逻辑）
-        Result<?> continuousResult = getContinuousCheckinDays(userId);
-        int continuousDays = continuousResult.isSuccess() ? (Integer) continuousResult.getData() : 0;
+        Map<String, Object> heatmap = checkinCalendarService.getYearHeatmap(userId, year);
+        log.info("用户[{}]{}年打卡热力图：打卡天数{}", userId, year, heatmap.get("checkinDays"));
+        return Result.success(heatmap);
+    }
 
-        // 5. 本月统计
-        LocalDate now = LocalDate.now();
-        LocalDate firstDayOfMonth = now.withDayOfMonth(1);
-        LocalDate lastDayOfMonth = now.withDayOfMonth(now.lengthOfMonth());
 
-        // 本月打卡天数（去重）
-        long monthlyDays = records.stream()
-                .map(record -> record.getCheckinTime().toLocalDate())
-                .filter(date -> date.isAfter(firstDayOfMonth.minusDays(1)) && date.isBefore(lastDayOfMonth.plusDays(1)))
-                .distinct()
-                .count();
+    /**
+     * 分页查询指定日期未打卡的用户（管理员功能，基于用户ID位图差集）
+     */
+    @Override
+    @ReplicaRead(userScoped = false)
+    public Result<?> getUncheckedUsers(LocalDate date, Long afterUserId, int pageSize) {
+        if (date == null) {
+            return Result.error("日期不能为空");
+        }
+        UncheckedUserPageVO page = uncheckedUserService.getUncheckedUsers(date, afterUserId, pageSize);
+        log.info("{}未打卡用户共{}人（总用户{}人），本页{}人",
+                date, page.getUncheckedCount(), page.getTotalUsers(), page.getRecords().size());
+        return Result.success(page);
+    }
 
-        // 本月打卡率（保留1位小数）
-        double monthlyRate = 0.0;
-        int totalDaysOfMonth = now.lengthOfMonth();
-        if (totalDaysOfMonth > 0) {
-            monthlyRate = Math.round(((double) monthlyDays / totalDaysOfMonth) * 100) / 100.0;
+    /**
+     * 打卡核心统计（总天数+连续天数+本月统计，全部读取打卡汇总）
+     */
+    @Override
+    @ReplicaRead
+    public Result<?> getCheckinStats(Long userId) {
+        // 1. 校验用户
+        Result<?> userValidResult = validateUserExists(userId);
+        if (!userValidResult.isSuccess()) {
+            return userValidResult;
         }
 
-        // 6. 组装统计结果
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("totalDays", totalDays);
-        stats.put("continuousDays", continuousDays);
-        stats.put("userId", userId);
-        stats.put("monthlyDays", monthlyDays);
-        stats.put("monthlyRate", monthlyRate);
-        stats.put("currentMonth", now.getMonthValue());
+        // 2. 读取打卡汇总，换算总天数、连续天数、最长连续、本月天数及打卡率
+        CheckinSummary summary = checkinSummaryService.getSummary(userId);
+        CheckinStatsVO stats = CheckinStatsVO.of(summary, LocalDate.now());
 
         log.info("用户[{}]打卡统计：总天数{}，连续天数{}，本月天数{}，本月打卡率{}",
-                userId, totalDays, continuousDays, monthlyDays, monthlyRate);
+                userId, stats.getTotalDays(), stats.getContinuousDays(), stats.getMonthlyDays(), stats.getMonthlyRate());
 
         return Result.success(stats);
     }
@@ -474,62 +622,139 @@ public class CheckinRecordServiceImpl extends ServiceImpl<CheckinRecordMapper, C
     // ========== 私有工具方法 ==========
 
     /**
-     * 校验用户是否存在
+     * 校验用户是否存在（先查进程内用户目录，未命中再查库并回填目录）
      */
     private Result<?> validateUserExists(Long userId) {
         if (userId == null) {
             return Result.error("用户ID不能为空");
         }
+        // 本人访问：令牌中的用户ID签发时已校验，无需再查
+        CheckinPrincipal current = CheckinPrincipal.current();
+        if (current != null && userId.equals(current.getUserId())) {
+            return Result.success();
+        }
+        if (userDirectory.contains(userId)) {
+            return Result.success();
+        }
         User user = userMapper.selectById(userId);
         if (user == null) {
             return Result.error("用户不存在");
         }
+        userDirectory.put(user.getId(), user.getUsername(), user.getRole());
         return Result.success();
     }
 
+    /**
+     * 异步写入模式：写入预写日志并标记打卡日历（后续重复打卡立即可见），入库后再更新汇总
+     */
+    private Result<?> acceptToJournal(CheckinRecord record, boolean gateAcquired) {
+        Long userId = record.getUserId();
+        try {
+            if (!writeBehindQueue.offer(record)) {
+                log.warn("打卡待入库队列已满（{}条），拒绝用户[{}]打卡", writeBehindQueue.getPendingCount(), userId);
+                if (gateAcquired) {
+                    checkinGateService.release(userId, record.getCheckinDate());
+                }
+                return Result.error(503, "当前打卡人数过多，请稍后重试");
+            }
+        } catch (Exception e) {
+            log.error("用户[{}]打卡写入日志失败", userId, e);
+            if (gateAcquired) {
+                checkinGateService.release(userId, record.getCheckinDate());
+            }
+            return Result.error("打卡失败，请重试");
+        }
+        markCheckinDay(userId, record.getCheckinDate());
+        log.info("用户[{}]打卡成功（已写入日志，等待批量入库）", userId);
+        return Result.success("打卡成功", record);
+    }
+
+    /**
+     * 异步写入模式下记录批量入库后，更新打卡汇总并清除缓存
+     */
+    @EventListener
+    public void onCheckinPersisted(CheckinPersistedEvent event) {
+        refreshSummary(event.getUserId(), event.getCheckinDate());
+    }
+
+    /**
+     * 打卡/补卡成功后标记打卡日历和当日已打卡位图
+     */
+    private void markCheckinDay(Long userId, LocalDate date) {
+        checkinCalendarService.markCheckin(userId, date);
+        uncheckedUserService.onCheckin(userId, date);
+    }
+
+    /**
+     * 打卡/补卡入库后增量更新打卡汇总和连续打卡排行榜、清除连续打卡缓存
+     * 任何一步失败都不影响已写入的打卡记录（汇总更新失败则删除汇总，下次读取时重建）
+     */
+    private void refreshSummary(Long userId, LocalDate date) {
+        // 之后一段时间内该用户的只读查询走主库，不受副本延迟影响
+        readYourWritesTracker.markWritten(userId);
+        try {
+            CheckinSummary summary = checkinSummaryService.onCheckin(userId, date);
+            checkinLeaderboardService.onSummaryUpdated(summary);
+        } catch (Exception e) {
+            log.error("用户[{}]打卡汇总更新失败，删除汇总待重建", userId, e);
+            checkinSummaryService.evict(userId);
+        }
+        // 清除连续打卡缓存（添加Redis空指针保护；Redis异常不影响已写入的打卡）
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.delete(CONTINUOUS_CACHE_PREFIX + userId);
+                log.debug("用户[{}]的连续打卡缓存已清除", userId);
+            } catch (Exception e) {
+                log.warn("用户[{}]连续打卡缓存清除失败，最长{}秒后自然过期：{}", userId, continuousCacheBaseTtlSeconds, e.getMessage());
+            }
+        } else {
+            log.warn("RedisTemplate未注入，跳过缓存清除操作");
+        }
+    }
+
+    /**
+     * 连续打卡缓存有效期：基础有效期减去随机抖动（同一时刻回填的缓存错开过期），且不超过今天剩余时间
+     */
+    private long continuousCacheTtlSeconds() {
+        long jitter = continuousCacheTtlJitterSeconds > 0
+                ? ThreadLocalRandom.current().nextLong(continuousCacheTtlJitterSeconds + 1) : 0;
+        long ttl = Math.max(1, continuousCacheBaseTtlSeconds - jitter);
+        return Math.max(1, Math.min(ttl, secondsUntilMidnight()));
+    }
+
+    private static long secondsUntilMidnight() {
+        return Duration.between(LocalDateTime.now(), LocalDate.now().plusDays(1).atStartOfDay()).getSeconds();
+    }
+
     /**
      * 检查今日是否已打卡
      */
     private boolean hasCheckedInToday(Long userId) {
-        LocalDate today = LocalDate.now();
-        LocalDateTime todayStart = today.atStartOfDay();
-        LocalDateTime tomorrowStart = today.plusDays(1).atStartOfDay();
-
-        Long count = baseMapper.selectCount(new QueryWrapper<CheckinRecord>()
-                .eq("user_id", userId)
-                .ge("checkin_time", todayStart)
-                .lt("checkin_time", tomorrowStart)
-        );
-        return count > 0;
+        return hasCheckedInDate(userId, LocalDate.now());
     }
 
     /**
-     * 检查指定日期是否已打卡（含补卡）
+     * 检查指定日期是否已打卡（含补卡，读取打卡日历位图）
      */
     private boolean hasCheckedInDate(Long userId, LocalDate date) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.plusDays(1).atStartOfDay();
-
-        Long count = baseMapper.selectCount(new QueryWrapper<CheckinRecord>()
-                .eq("user_id", userId)
-                .ge("checkin_time", start)
-                .lt("checkin_time", end)
-        );
-        return count > 0;
+        return checkinCalendarService.isCheckedIn(userId, date);
     }
 
     /**
      * 统计当月补卡次数（修复：查询补卡提交时间reissue_time）
+     * 所补日期最多早于提交时间maxReissueDays天，附加checkin_date范围让分区表只扫描相关的一两个月分区
      */
     private Long countMonthlyReissues(Long userId, int year, int month) {
         LocalDate firstDay = LocalDate.of(year, month, 1);
         LocalDate lastDay = firstDay.plusMonths(1).minusDays(1);
 
-        return baseMapper.selectCount(new QueryWrapper<CheckinRecord>()
+        return checkinRecordShards.recordMapper(userId).selectCount(new QueryWrapper<CheckinRecord>()
                 .eq("user_id", userId)
                 .eq("is_reissue", 1)
                 .ge("reissue_time", firstDay.atStartOfDay())
                 .le("reissue_time", lastDay.atTime(23, 59, 59))
+                .ge("checkin_date", firstDay.minusDays(maxReissueDays))
+                .le("checkin_date", lastDay)
         );
     }
 }
\ No newline at end of file
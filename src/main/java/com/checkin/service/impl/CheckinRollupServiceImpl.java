@@ -0,0 +1,161 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.CheckinDailyRollup;
+import com.checkin.entity.User;
+import com.checkin.mapper.CheckinDailyRollupMapper;
+import com.checkin.mapper.UserMapper;
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.service.CheckinRollupService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.vo.CheckinRollupStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每日打卡汇总服务实现类
+ * 正常打卡只落在当天，补卡只能落在最近checkin.reissue.max-days天内，更早的日期不会再变化，
+ * 因此每次只需重算[今天-max-days, 今天]，再补齐任务停机期间漏掉的日期
+ */
+@Slf4j
+@Service
+public class CheckinRollupServiceImpl implements CheckinRollupService {
+
+    // 单次写库的最大行数
+    private static final int UPSERT_BATCH_SIZE = 200;
+
+    @Autowired
+    private CheckinDailyRollupMapper rollupMapper;
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private CheckinArchiveService checkinArchiveService;
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${checkin.reissue.max-days:3}")
+    private Integer maxReissueDays;
+
+    // 汇总表为空时首次回填的天数
+    @Value("${checkin.rollup.backfill-days:90}")
+    private Integer backfillDays;
+
+
+    @Override
+    public int rollupChangedDays() {
+        LocalDate today = LocalDate.now();
+        LocalDate windowStart = today.minusDays(maxReissueDays);
+        LocalDate latest = rollupMapper.selectLatestStatDate();
+
+        LocalDate start;
+        if (latest == null) {
+            start = today.minusDays(backfillDays - 1L);
+        } else if (latest.isBefore(windowStart)) {
+            start = latest.plusDays(1); // 补齐停机期间漏掉的日期
+        } else {
+            start = windowStart;
+        }
+        return rollup(start, today);
+    }
+
+    @Override
+    public int rollup(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return 0;
+        }
+        long begin = System.currentTimeMillis();
+        // 各分片的用户互不重叠，同一日期的人数直接相加
+        boolean includeArchive = startDate.isBefore(checkinArchiveService.archiveCutoff());
+        Map<LocalDate, CheckinDailyRollup> aggregates = new HashMap<>();
+        for (List<CheckinDailyRollup> shardAggregates : checkinRecordShards.fanOut(shard -> {
+            List<CheckinDailyRollup> rows = new ArrayList<>(shard.getRecordMapper().selectDailyAggregates(startDate, endDate));
+            if (includeArchive) {
+                // 重算已归档的日期（如手动重新聚合历史统计）：同一日期正在归档时两张表各有一部分，人数相加
+                rows.addAll(shard.getArchiveMapper().selectDailyAggregates(startDate, endDate));
+            }
+            return rows;
+        })) {
+            for (CheckinDailyRollup aggregate : shardAggregates) {
+                aggregates.merge(aggregate.getStatDate(), aggregate, CheckinRollupServiceImpl::add);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CheckinDailyRollup> batch = new ArrayList<>(UPSERT_BATCH_SIZE);
+        int days = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            // 没有打卡记录的日期也写一行0，打卡率曲线不会断档
+            CheckinDailyRollup rollup = aggregates.getOrDefault(date, new CheckinDailyRollup());
+            rollup.setStatDate(date);
+            rollup.setCheckinCount(orZero(rollup.getCheckinCount()));
+            rollup.setReissueCount(orZero(rollup.getReissueCount()));
+            rollup.setActiveUsers(orZero(rollup.getActiveUsers()));
+            rollup.setTotalUsers(countUsersBefore(date.plusDays(1).atStartOfDay()));
+            rollup.setUpdateTime(now);
+            batch.add(rollup);
+            days++;
+            if (batch.size() >= UPSERT_BATCH_SIZE) {
+                rollupMapper.upsertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            rollupMapper.upsertBatch(batch);
+        }
+        log.info("每日打卡汇总已聚合{}~{}，共{}天，耗时{}ms", startDate, endDate, days, System.currentTimeMillis() - begin);
+        return days;
+    }
+
+    @Override
+    public CheckinRollupStatsVO getStats(LocalDate startDate, LocalDate endDate) {
+        List<CheckinDailyRollup> days = rollupMapper.selectList(new QueryWrapper<CheckinDailyRollup>()
+                .ge("stat_date", startDate)
+                .le("stat_date", endDate)
+                .orderByAsc("stat_date")
+        );
+
+        long totalCheckins = 0;
+        long totalReissues = 0;
+        double rateSum = 0;
+        for (CheckinDailyRollup day : days) {
+            totalCheckins += day.getCheckinCount();
+            totalReissues += day.getReissueCount();
+            rateSum += day.getCheckinRate();
+        }
+
+        CheckinRollupStatsVO stats = new CheckinRollupStatsVO();
+        stats.setStartDate(startDate);
+        stats.setEndDate(endDate);
+        stats.setTotalCheckins(totalCheckins);
+        stats.setTotalReissues(totalReissues);
+        stats.setAvgCheckinRate(days.isEmpty() ? 0 : Math.round(rateSum / days.size() * 10000) / 10000.0);
+        stats.setDays(days);
+        return stats;
+    }
+
+    // ========== 私有工具方法 ==========
+
+    private int countUsersBefore(LocalDateTime time) {
+        return userMapper.selectCount(new QueryWrapper<User>().lt("create_time", time)).intValue();
+    }
+
+    private static CheckinDailyRollup add(CheckinDailyRollup total, CheckinDailyRollup part) {
+        total.setCheckinCount(total.getCheckinCount() + part.getCheckinCount());
+        total.setReissueCount(total.getReissueCount() + part.getReissueCount());
+        total.setActiveUsers(total.getActiveUsers() + part.getActiveUsers());
+        return total;
+    }
+
+    private static int orZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.cache.SingleFlightLoader;
+import com.checkin.datasource.RoutingContext;
+import com.checkin.entity.CheckinSummary;
+import com.checkin.mapper.CheckinSummaryMapper;
+import com.checkin.service.CheckinSummaryService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.utils.CheckinDays;
+import com.checkin.utils.CheckinStreakUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * 打卡汇总服务实现类
+ * 打卡/补卡时锁定汇总行（SELECT ... FOR UPDATE）做O(1)增量更新；
+ * 汇总缺失或遇到无法增量判断的补卡时，才从历史记录（只取checkin_date一列）重建
+ */
+@Slf4j
+@Service
+public class CheckinSummaryServiceImpl implements CheckinSummaryService {
+
+    // 汇总回源合并的指标名
+    private static final String SUMMARY_LOAD_NAME = "summary";
+
+    @Autowired
+    private CheckinSummaryMapper checkinSummaryMapper;
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private SingleFlightLoader singleFlightLoader;
+
+
+    /**
+     * 同一用户并发读取时只查询（或重建）一次，其他请求共用结果（调用方只读，不修改返回的汇总）
+     */
+    @Override
+    public CheckinSummary getSummary(Long userId) {
+        return singleFlightLoader.load(SUMMARY_LOAD_NAME, userId, () -> loadSummary(userId));
+    }
+
+    private CheckinSummary loadSummary(Long userId) {
+        CheckinSummary summary = checkinSummaryMapper.selectById(userId);
+        if (summary != null) {
+            return summary;
+        }
+        // 可能在只读副本上查询（@ReplicaRead）：重建要读最新记录并写入汇总，改走主库
+        return RoutingContext.onPrimary(() -> rebuildAndInsert(userId));
+    }
+
+    private CheckinSummary rebuildAndInsert(Long userId) {
+        CheckinSummary summary = rebuild(userId);
+        try {
+            checkinSummaryMapper.insert(summary);
+        } catch (DuplicateKeyException e) {
+            // 并发重建，已由其他请求写入
+            log.debug("用户[{}]打卡汇总已被并发重建", userId);
+        }
+        return summary;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public CheckinSummary onCheckin(Long userId, LocalDate date) {
+        CheckinSummary summary = checkinSummaryMapper.selectOne(new QueryWrapper<CheckinSummary>()
+                .eq("user_id", userId)
+                .last("FOR UPDATE")
+        );
+
+        if (summary == null) {
+            // 首次生成：历史记录里已包含刚写入的这条
+            summary = rebuild(userId);
+            checkinSummaryMapper.insert(summary);
+            return summary;
+        }
+
+        if (!CheckinStreakUtils.applyCheckin(summary, date)) {
+            log.info("用户[{}]补卡日期{}无法增量合并，重建打卡汇总", userId, date);
+            summary = rebuild(userId);
+        }
+        checkinSummaryMapper.updateById(summary);
+        return summary;
+    }
+
+    @Override
+    public void evict(Long userId) {
+        checkinSummaryMapper.deleteById(userId);
+    }
+
+    /**
+     * 从历史记录重建汇总（冷路径：只在汇总缺失或补卡无法增量合并时执行）
+     * 只读取打卡日期一列，逐行收进epochDay数组后一次扫描算出全部汇总；
+     * 先读热表再读归档表（都在用户所在分片上），并发归档时同一天可能读到两次（收集时去重），但不会漏读
+     */
+    private CheckinSummary rebuild(Long userId) {
+        CheckinShard shard = checkinRecordShards.shardFor(userId);
+        CheckinDays.Collector collector = CheckinDays.collector();
+        shard.getRecordMapper().selectCheckinDays(userId, null, null, collector);
+        shard.getArchiveMapper().selectCheckinDays(userId, null, null, collector);
+        CheckinDays days = collector.build();
+        log.info("用户[{}]打卡汇总重建完成，打卡{}天", userId, days.size());
+        return CheckinStreakUtils.rebuild(userId, days, LocalDate.now());
+    }
+}
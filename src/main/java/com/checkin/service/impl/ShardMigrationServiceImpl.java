@@ -0,0 +1,185 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.entity.CheckinUserShard;
+import com.checkin.exception.BusinessException;
+import com.checkin.mapper.UserMapper;
+import com.checkin.service.ShardMigrationService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 打卡记录分片迁移服务实现类
+ * 一批用户的搬移分为：标记迁移中 -> 等待各实例刷新目录 -> 复制到目标分片 -> 切换目录 -> 等待各实例刷新目录 -> 删除原分片记录。
+ * 标记后写入全部被拒绝，切换前读原分片、切换后读目标分片，任何时刻都能读到完整记录；
+ * 中途失败时目录仍指向原分片（迁移中），重新执行会先清掉目标分片上的残留再复制
+ */
+@Slf4j
+@Service
+public class ShardMigrationServiceImpl implements ShardMigrationService {
+
+    // 复制时每次多行INSERT的条数
+    private static final int COPY_BATCH_SIZE = 500;
+
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private ShardDirectory shardDirectory;
+    @Autowired
+    private UserMapper userMapper;
+
+    // 等待其他实例刷新分片目录的时间，应大于checkin.sharding.directory-refresh-ms加上最长的单次写入耗时
+    @Value("${checkin.sharding.move-settle-ms:15000}")
+    private Long moveSettleMs;
+
+
+    @Override
+    public synchronized int moveUsers(List<Long> userIds, int targetShard) {
+        if (targetShard < 0 || targetShard >= checkinRecordShards.size()) {
+            throw new BusinessException("目标分片不存在：" + targetShard);
+        }
+        // 1. 需要搬移的用户（已在目标分片上的只整理目录项）及其原分片
+        Map<Long, Integer> sources = new LinkedHashMap<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            int source = checkinRecordShards.shardOf(userId);
+            if (source == targetShard) {
+                switchDirectory(userId, targetShard);
+            } else {
+                sources.put(userId, source);
+            }
+        }
+        if (sources.isEmpty()) {
+            return 0;
+        }
+        long begin = System.currentTimeMillis();
+
+        // 2. 标记迁移中，等待进行中的写入完成、其他实例看到标记
+        sources.forEach((userId, source) -> shardDirectory.save(userId, source, true));
+        settle();
+
+        // 3. 复制到目标分片并切换目录
+        CheckinShard target = checkinRecordShards.shard(targetShard);
+        int copied = 0;
+        for (Map.Entry<Long, Integer> entry : sources.entrySet()) {
+            copied += copy(entry.getKey(), checkinRecordShards.shard(entry.getValue()), target);
+            switchDirectory(entry.getKey(), targetShard);
+        }
+
+        // 4. 等待其他实例改读目标分片后，删除原分片的记录
+        settle();
+        for (Map.Entry<Long, Integer> entry : sources.entrySet()) {
+            purge(entry.getKey(), checkinRecordShards.shard(entry.getValue()));
+        }
+        log.info("{}个用户的打卡记录搬到分片{}，共{}条，耗时{}ms",
+                sources.size(), targetShard, copied, System.currentTimeMillis() - begin);
+        return copied;
+    }
+
+    @Override
+    public synchronized int pinAll() {
+        int pinned = 0;
+        for (Long userId : userMapper.selectAllIds()) {
+            if (shardDirectory.get(userId) == null) {
+                shardDirectory.save(userId, checkinRecordShards.shardOf(userId), false);
+                pinned++;
+            }
+        }
+        log.info("分片目录固定{}个用户", pinned);
+        return pinned;
+    }
+
+    @Override
+    public synchronized int rebalance(int limit) {
+        Map<Integer, List<Long>> byTarget = new LinkedHashMap<>();
+        int selected = 0;
+        for (CheckinUserShard entry : shardDirectory.list()) {
+            Long userId = entry.getUserId();
+            int home = checkinRecordShards.homeOf(userId);
+            if (entry.getShardIndex() == home && (entry.getMoving() == null || entry.getMoving() == 0)) {
+                // 已在分片函数所算的分片上，目录项不再需要
+                shardDirectory.remove(userId);
+            } else if (selected < limit) {
+                byTarget.computeIfAbsent(home, k -> new ArrayList<>()).add(userId);
+                selected++;
+            }
+        }
+        byTarget.forEach((target, userIds) -> moveUsers(userIds, target));
+        return selected;
+    }
+
+    // ========== 私有工具方法 ==========
+
+    /**
+     * 在目标分片的一个事务中：清除上次失败留下的记录，再写入原分片的热表和归档记录（全部写入热表，由归档任务重新归档）
+     */
+    private int copy(Long userId, CheckinShard source, CheckinShard target) {
+        List<CheckinRecord> records = source.getRecordMapper().selectList(new QueryWrapper<CheckinRecord>()
+                .eq("user_id", userId));
+        records.addAll(source.getArchiveMapper().selectByUserId(userId, null, null, null, null));
+        // 复制期间原分片可能正在归档，同一条记录可能在两张表各读到一次
+        Set<LocalDate> seen = new HashSet<>();
+        records.removeIf(record -> !seen.add(record.getCheckinDate()));
+        for (CheckinRecord record : records) {
+            record.setId(null);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(target.getTransactionManager());
+        transactionTemplate.executeWithoutResult(status -> {
+            target.getRecordMapper().delete(new QueryWrapper<CheckinRecord>().eq("user_id", userId));
+            target.getArchiveMapper().deleteByUserId(userId);
+            for (int from = 0; from < records.size(); from += COPY_BATCH_SIZE) {
+                target.getRecordMapper().insertBatch(records.subList(from, Math.min(from + COPY_BATCH_SIZE, records.size())));
+            }
+        });
+        return records.size();
+    }
+
+    /**
+     * 目标是分片函数所算的分片时删除目录项，否则记录目标分片
+     */
+    private void switchDirectory(Long userId, int targetShard) {
+        if (targetShard == checkinRecordShards.homeOf(userId)) {
+            if (shardDirectory.get(userId) != null) {
+                shardDirectory.remove(userId);
+            }
+        } else {
+            shardDirectory.save(userId, targetShard, false);
+        }
+    }
+
+    private void purge(Long userId, CheckinShard source) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(source.getTransactionManager());
+        transactionTemplate.executeWithoutResult(status -> {
+            source.getRecordMapper().delete(new QueryWrapper<CheckinRecord>().eq("user_id", userId));
+            source.getArchiveMapper().deleteByUserId(userId);
+        });
+    }
+
+    private void settle() {
+        if (moveSettleMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(moveSettleMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("分片迁移被中断，目录仍指向原分片，可重新执行");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.User;
+import com.checkin.mapper.UserMapper;
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.service.UncheckedUserService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.vo.UncheckedUserPageVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 未打卡用户计算服务实现类
+ * 位图布局：checkin:users:all（全部用户）、checkin:users:day:{yyyyMMdd}（当日已打卡），offset=用户ID。
+ * 用户ID从1开始自增，offset=0作为"已从数据库初始化"的哨兵位。
+ * 增量维护直接SETBIT；位图缺失时从数据库取ID列表重建，并用BITOP OR合并进原key，不会丢失并发写入的位。
+ * 查询时两张位图各GET一次（4万用户约5KB），在内存中做差集后按用户ID游标分页
+ */
+@Slf4j
+@Service
+public class UncheckedUserServiceImpl implements UncheckedUserService {
+
+    private static final String ALL_USERS_KEY = "checkin:users:all";
+    private static final String DAY_KEY_PREFIX = "checkin:users:day:";
+    private static final String REBUILD_KEY_SUFFIX = ":rebuild";
+    private static final int LOADED_OFFSET = 0;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private CheckinRecordShards checkinRecordShards;
+    @Autowired
+    private CheckinArchiveService checkinArchiveService;
+
+    // RedisTemplate非强制注入，无Redis时直接用数据库ID列表在内存中计算
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 每日已打卡位图保留天数
+    @Value("${checkin.unchecked.day-expire-days:35}")
+    private Integer dayExpireDays;
+
+
+    @Override
+    public void onUserRegistered(Long userId) {
+        setBit(ALL_USERS_KEY, userId, null);
+    }
+
+    @Override
+    public void onCheckin(Long userId, LocalDate date) {
+        setBit(dayKey(date), userId, dayExpireDays);
+    }
+
+    @Override
+    public UncheckedUserPageVO getUncheckedUsers(LocalDate date, Long afterUserId, int size) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        BitSet[] bitmaps = loadBitmaps(date);
+        BitSet allUsers = bitmaps[0];
+        BitSet unchecked = (BitSet) allUsers.clone();
+        unchecked.andNot(bitmaps[1]);
+
+        // 按用户ID游标取一页
+        List<Long> pageIds = new ArrayList<>(size);
+        int from = afterUserId == null ? 1 : (int) Math.min(Integer.MAX_VALUE, afterUserId + 1);
+        int id = unchecked.nextSetBit(from);
+        while (id >= 0 && pageIds.size() < size) {
+            pageIds.add((long) id);
+            id = unchecked.nextSetBit(id + 1);
+        }
+        boolean hasMore = id >= 0;
+
+        List<User> records = pageIds.isEmpty() ? Collections.emptyList() : userMapper.selectList(new QueryWrapper<User>()
+                .select("id", "username", "role", "create_time") // 不查询密码
+                .in("id", pageIds)
+                .orderByAsc("id")
+        );
+
+        UncheckedUserPageVO page = new UncheckedUserPageVO();
+        page.setDate(date);
+        page.setTotalUsers(allUsers.cardinality());
+        page.setUncheckedCount(unchecked.cardinality());
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? pageIds.get(pageIds.size() - 1) : null);
+        return page;
+    }
+
+    // ========== 私有工具方法 ==========
+
+    /**
+     * 读取[全部用户, 当日已打卡]两张位图（已去掉哨兵位）
+     */
+    private BitSet[] loadBitmaps(LocalDate date) {
+        boolean future = date.isAfter(LocalDate.now());
+        if (redisTemplate == null) {
+            return new BitSet[]{toBitSet(queryAllUserIds()), future ? new BitSet() : toBitSet(queryCheckedUserIds(date))};
+        }
+        try {
+            String dayKey = dayKey(date);
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().get(rawKey(ALL_USERS_KEY));
+                connection.stringCommands().get(rawKey(dayKey));
+                return null;
+            }, RedisSerializer.byteArray());
+
+            BitSet allUsers = loadOrRebuild(ALL_USERS_KEY, (byte[]) values.get(0), this::queryAllUserIds, null);
+            BitSet checkedUsers = future ? new BitSet()
+                    : loadOrRebuild(dayKey, (byte[]) values.get(1), () -> queryCheckedUserIds(date), dayExpireDays);
+            return new BitSet[]{allUsers, checkedUsers};
+        } catch (Exception e) {
+            log.warn("读取{}用户位图失败，降级查询数据库：{}", date, e.getMessage());
+            return new BitSet[]{toBitSet(queryAllUserIds()), future ? new BitSet() : toBitSet(queryCheckedUserIds(date))};
+        }
+    }
+
+    private BitSet loadOrRebuild(String key, byte[] value, Supplier<List<Long>> idLoader, Integer expireDays) {
+        BitSet bits = fromRedisBytes(value);
+        if (bits.get(LOADED_OFFSET)) {
+            bits.clear(LOADED_OFFSET);
+            return bits;
+        }
+
+        bits = toBitSet(idLoader.get());
+        BitSet marked = (BitSet) bits.clone();
+        marked.set(LOADED_OFFSET);
+        byte[] rebuilt = toRedisBytes(marked);
+        byte[] target = rawKey(key);
+        byte[] temp = rawKey(key + REBUILD_KEY_SUFFIX);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().set(temp, rebuilt, Expiration.seconds(60), RedisStringCommands.SetOption.upsert());
+            connection.stringCommands().bitOp(RedisStringCommands.BitOperation.OR, target, target, temp);
+            connection.keyCommands().del(temp);
+            if (expireDays != null) {
+                connection.keyCommands().expire(target, TimeUnit.DAYS.toSeconds(expireDays));
+            }
+            return null;
+        });
+        log.info("用户位图{}已从数据库重建，共{}个用户", key, bits.cardinality());
+        return bits;
+    }
+
+    private void setBit(String key, Long userId, Integer expireDays) {
+        if (redisTemplate == null || userId == null || userId <= LOADED_OFFSET || userId > Integer.MAX_VALUE) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.stringCommands().setBit(rawKey(key), userId, true);
+                if (expireDays != null) {
+                    connection.keyCommands().expire(rawKey(key), TimeUnit.DAYS.toSeconds(expireDays));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // 置位失败时删除位图，下次查询从数据库重建
+            log.warn("用户位图{}更新失败，用户ID：{}，原因：{}", key, userId, e.getMessage());
+            try {
+                redisTemplate.execute((RedisCallback<Object>) connection -> connection.keyCommands().del(rawKey(key)));
+            } catch (Exception ignored) {
+                // Redis不可用时无需处理
+            }
+        }
+    }
+
+    private List<Long> queryAllUserIds() {
+        return userMapper.selectAllIds();
+    }
+
+    /**
+     * 各分片已打卡用户合并（迁移中的用户可能在两个分片都出现，转位图时自然去重）
+     * 早于归档分界的日期还要查归档表：归档进行中同一天的记录可能一部分已搬走
+     */
+    private List<Long> queryCheckedUserIds(LocalDate date) {
+        boolean includeArchive = date.isBefore(checkinArchiveService.archiveCutoff());
+        List<Long> ids = new ArrayList<>();
+        for (List<Long> shardIds : checkinRecordShards.fanOut(shard -> {
+            List<Long> checked = new ArrayList<>(shard.getRecordMapper().selectCheckedUserIds(date));
+            if (includeArchive) {
+                checked.addAll(shard.getArchiveMapper().selectCheckedUserIds(date));
+            }
+            return checked;
+        })) {
+            ids.addAll(shardIds);
+        }
+        return ids;
+    }
+
+    private static BitSet toBitSet(List<Long> ids) {
+        BitSet bits = new BitSet();
+        for (Long id : ids) {
+            if (id != null && id > LOADED_OFFSET && id <= Integer.MAX_VALUE) {
+                bits.set(id.intValue());
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Redis位图offset=0是第1个字节的最高位，BitSet的第0位是第1个字节的最低位，逐字节反转位序
+     */
+    private static BitSet fromRedisBytes(byte[] value) {
+        if (value == null || value.length == 0) {
+            return new BitSet();
+        }
+        byte[] bytes = new byte[value.length];
+        for (int i = 0; i < value.length; i++) {
+            bytes[i] = reverseBits(value[i]);
+        }
+        return BitSet.valueOf(bytes);
+    }
+
+    private static byte[] toRedisBytes(BitSet bits) {
+        byte[] bytes = bits.toByteArray();
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = reverseBits(bytes[i]);
+        }
+        return bytes;
+    }
+
+    private static byte reverseBits(byte b) {
+        return (byte) (Integer.reverse(b & 0xFF) >>> 24);
+    }
+
+    private static String dayKey(LocalDate date) {
+        return DAY_KEY_PREFIX + date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,34 +1,71 @@
 // com.checkin.service.impl.UserServiceImpl.java
 package com.checkin.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.checkin.cache.UserDirectory;
+import com.checkin.cache.UserLookupCache;
 import com.checkin.common.Result;
 import com.checkin.entity.User;
 import com.checkin.mapper.UserMapper;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.security.PasswordHasher;
+import com.checkin.service.UncheckedUserService;
 import com.checkin.service.UserService;
 import com.checkin.utils.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    // 密码线程池已满时的提示
+    private static final String BUSY_MESSAGE = "当前登录人数过多，请稍后重试";
+
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
     @Autowired
     private JwtUtils jwtUtils;
+    @Autowired
+    private UncheckedUserService uncheckedUserService;
+    @Autowired
+    private UserDirectory userDirectory;
+    @Autowired
+    private UserLookupCache userLookupCache;
 
 
     // 1. 实现register方法（用户注册）
     @Override
     public Result<?> register(User user) {
-        // 密码加密
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        return await(registerAsync(user));
+    }
+
+    @Override
+    public CompletableFuture<Result<?>> registerAsync(User user) {
+        // 自助注册一律为普通用户（角色写入JWT并决定/admin/**权限），管理员只能在数据库中指定
+        user.setRole(CheckinPrincipal.ROLE_USER);
+        // 密码加密（密码线程池）后保存
+        return passwordHasher.encode(user.getPassword())
+                .<Result<?>>thenApply(encoded -> {
+                    user.setPassword(encoded);
+                    return saveRegistered(user);
+                })
+                .exceptionally(UserServiceImpl::busyOrRethrow);
+    }
+
+    private Result<?> saveRegistered(User user) {
         // 保存用户到数据库
         boolean saveSuccess = this.save(user);
         if (saveSuccess) {
+            // 清除该用户名"不存在"的缓存；加入进程内用户目录、全部用户位图（未打卡用户统计用）
+            userLookupCache.invalidate(user.getUsername());
+            userDirectory.put(user.getId(), user.getUsername(), user.getRole());
+            uncheckedUserService.onUserRegistered(user.getId());
             return Result.success("注册成功");
         }
         return Result.error(500, "注册失败");
@@ -38,27 +75,85 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     // 2. 实现login方法（用户登录，返回JWT令牌）
     @Override
     public Result<?> login(String username, String password) {
-        // ① 根据用户名查询用户
+        return await(loginAsync(username, password));
+    }
+
+    @Override
+    public CompletableFuture<Result<?>> loginAsync(String username, String password) {
+        // ① 根据用户名查询用户（请求线程）
         User user = this.getByUsername(username);
         if (user == null) {
-            return Result.error(401, "用户名不存在");
+            return CompletableFuture.completedFuture(Result.error(401, "用户名不存在"));
         }
-        // ② 验证密码是否匹配
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            return Result.error(401, "密码错误");
+        // ② 验证密码是否匹配（密码线程池）
+        return passwordHasher.matches(password, user.getPassword())
+                .<Result<?>>thenApply(matched -> {
+                    if (!matched) {
+                        return Result.error(401, "密码错误");
+                    }
+                    rehashIfNeeded(user, password);
+                    // ③ 生成JWT令牌
+                    return Result.success("登录成功", jwtUtils.generateToken(user));
+                })
+                .exceptionally(UserServiceImpl::busyOrRethrow);
+    }
+
+    /**
+     * 已存储的密码低于当前加密强度时，登录成功后按新强度重新加密保存（后台执行，失败时下次登录再试）
+     * 只在密码未被并发修改时覆盖
+     */
+    private void rehashIfNeeded(User user, String password) {
+        String stored = user.getPassword();
+        if (!passwordHasher.needsRehash(stored)) {
+            return;
         }
-        // ③ 生成JWT令牌
-        String token = jwtUtils.generateToken(username);
-        return Result.success(token);
+        passwordHasher.encode(password)
+                .thenAccept(encoded -> {
+                    boolean updated = lambdaUpdate()
+                            .set(User::getPassword, encoded)
+                            .eq(User::getId, user.getId())
+                            .eq(User::getPassword, stored)
+                            .update();
+                    userLookupCache.invalidate(user.getUsername());
+                    if (updated) {
+                        log.info("用户[{}]密码已按当前强度重新加密", user.getId());
+                    }
+                })
+                .exceptionally(e -> {
+                    log.debug("用户[{}]密码重新加密未完成，下次登录重试：{}", user.getId(), e.getMessage());
+                    return null;
+                });
     }
 
 
-    // 3. 实现getByUsername方法（根据用户名查询用户）
+    // 3. 实现getByUsername方法（根据用户名查询用户，走用户名缓存，返回的用户只读）
     @Override
     public User getByUsername(String username) {
-        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(User::getUsername, username);
-        // 调用MyBatis-Plus的getOne查询单条记录
-        return this.getOne(queryWrapper);
+        return userLookupCache.get(username);
+    }
+
+    /**
+     * 同步等待结果，异常按原类型抛出
+     */
+    private static Result<?> await(CompletableFuture<Result<?>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 密码线程池已满（RejectedExecutionException）时返回503，其他异常原样抛出
+     */
+    private static Result<?> busyOrRethrow(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return Result.error(503, BUSY_MESSAGE);
+        }
+        throw e instanceof CompletionException completion ? completion : new CompletionException(cause);
     }
-}
\ No newline at end of file
+}
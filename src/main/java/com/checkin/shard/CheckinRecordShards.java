@@ -0,0 +1,156 @@
+package com.checkin.shard;
+
+import com.checkin.entity.CheckinUserShard;
+import com.checkin.mapper.CheckinRecordArchiveMapper;
+import com.checkin.mapper.CheckinRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 打卡记录分片路由：checkin_record/checkin_record_archive按用户ID水平拆分到多个库
+ * 用户所在分片 = 分片目录中的记录（迁移过的用户）或分片函数的结果；同一用户的全部记录只在一个分片上，
+ * 按用户的读写只访问一个分片，按日期的全局查询（已打卡用户、每日汇总）并行查询所有分片后合并
+ * 只配置一个分片（默认）时所有方法都直接使用主库，行为与未分片时相同
+ */
+@Slf4j
+public class CheckinRecordShards implements Closeable {
+
+    private final List<CheckinShard> shards;
+    private final ShardFunction shardFunction;
+    private final ShardDirectory shardDirectory;
+    // 其余分片的并行查询线程（分片0在调用线程执行，保留调用方的事务和读写路由）
+    private final ThreadPoolExecutor fanOutExecutor;
+
+    public CheckinRecordShards(List<CheckinShard> shards, ShardFunction shardFunction, ShardDirectory shardDirectory) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个打卡记录分片");
+        }
+        this.shards = List.copyOf(shards);
+        this.shardFunction = shardFunction;
+        this.shardDirectory = shardDirectory;
+        if (shards.size() > 1) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            int threads = shards.size() - 1;
+            this.fanOutExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "shard-fanout-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.fanOutExecutor = null;
+        }
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public CheckinShard shard(int index) {
+        return shards.get(index);
+    }
+
+    public List<CheckinShard> all() {
+        return shards;
+    }
+
+    /**
+     * 分片函数算出的分片（不看分片目录）
+     */
+    public int homeOf(Long userId) {
+        return shards.size() == 1 ? 0 : shardFunction.shardOf(userId, shards.size());
+    }
+
+    /**
+     * 用户当前所在分片
+     */
+    public int shardOf(Long userId) {
+        if (shards.size() == 1) {
+            return 0;
+        }
+        CheckinUserShard entry = shardDirectory.get(userId);
+        return entry != null ? entry.getShardIndex() : homeOf(userId);
+    }
+
+    public CheckinShard shardFor(Long userId) {
+        return shards.get(shardOf(userId));
+    }
+
+    public CheckinRecordMapper recordMapper(Long userId) {
+        return shardFor(userId).getRecordMapper();
+    }
+
+    public CheckinRecordArchiveMapper archiveMapper(Long userId) {
+        return shardFor(userId).getArchiveMapper();
+    }
+
+    /**
+     * 用户是否正在迁移分片（迁移期间拒绝写入，读取仍访问原分片）
+     */
+    public boolean isMoving(Long userId) {
+        if (shards.size() == 1) {
+            return false;
+        }
+        CheckinUserShard entry = shardDirectory.get(userId);
+        return entry != null && entry.getMoving() != null && entry.getMoving() == 1;
+    }
+
+    /**
+     * 在每个分片上执行同一查询，按分片顺序返回结果
+     * 只有一个分片时直接在调用线程执行；任一分片失败则整体失败（不返回不完整的结果）
+     */
+    public <T> List<T> fanOut(Function<CheckinShard, T> query) {
+        if (fanOutExecutor == null) {
+            return List.of(query.apply(shards.get(0)));
+        }
+        List<CompletableFuture<T>> others = new ArrayList<>(shards.size() - 1);
+        for (int i = 1; i < shards.size(); i++) {
+            CheckinShard shard = shards.get(i);
+            others.add(CompletableFuture.supplyAsync(() -> query.apply(shard), fanOutExecutor));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        results.add(query.apply(shards.get(0)));
+        for (CompletableFuture<T> other : others) {
+            try {
+                results.add(other.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 关闭并行查询线程和分片0以外的连接池（分片0的数据源由容器管理）
+     */
+    @Override
+    public void close() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+        for (int i = 1; i < shards.size(); i++) {
+            DataSource dataSource = shards.get(i).getDataSource();
+            if (dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("关闭打卡记录分片{}的连接池失败：{}", i, e.getMessage());
+                }
+            }
+        }
+    }
+}
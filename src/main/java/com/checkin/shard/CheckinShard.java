@@ -0,0 +1,26 @@
+package com.checkin.shard;
+
+import com.checkin.mapper.CheckinPartitionMapper;
+import com.checkin.mapper.CheckinRecordArchiveMapper;
+import com.checkin.mapper.CheckinRecordMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * 一个打卡记录分片：数据源及绑定到它的Mapper、事务管理器
+ * 分片0就是主库（spring.datasource，含只读副本路由），直接使用容器中的Mapper
+ */
+@Getter
+@AllArgsConstructor
+public class CheckinShard {
+
+    private final int index;
+    private final DataSource dataSource;
+    private final CheckinRecordMapper recordMapper;
+    private final CheckinRecordArchiveMapper archiveMapper;
+    private final CheckinPartitionMapper partitionMapper;
+    private final PlatformTransactionManager transactionManager;
+}
@@ -0,0 +1,12 @@
+package com.checkin.shard;
+
+/**
+ * 按用户ID取模分片：用户ID自增，各分片用户数均匀
+ */
+public class ModuloShardFunction implements ShardFunction {
+
+    @Override
+    public int shardOf(long userId, int shardCount) {
+        return (int) Math.floorMod(userId, (long) shardCount);
+    }
+}
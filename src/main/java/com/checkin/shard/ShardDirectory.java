@@ -0,0 +1,91 @@
+package com.checkin.shard;
+
+import com.checkin.entity.CheckinUserShard;
+import com.checkin.mapper.CheckinUserShardMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 打卡记录分片目录（checkin_user_shard的本地副本）
+ * 只包含不按分片函数定位的少数用户，整表加载到内存；本实例的修改立即生效，
+ * 其他实例的修改由ShardDirectoryRefreshJob定期重新加载后生效（迁移工具会等待这个间隔）。
+ * 所有单例（含Flyway迁移）初始化完成后立即加载一次，开始接收请求前目录已就绪
+ */
+@Slf4j
+@Component
+public class ShardDirectory implements SmartInitializingSingleton {
+
+    @Autowired
+    private CheckinUserShardMapper checkinUserShardMapper;
+
+    private volatile Map<Long, CheckinUserShard> entries = new ConcurrentHashMap<>();
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            log.info("打卡记录分片目录加载完成，共{}项", reload());
+        } catch (Exception e) {
+            log.warn("打卡记录分片目录加载失败，全部用户按分片函数定位：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重新加载整个目录
+     * @return 目录项数
+     */
+    public int reload() {
+        List<CheckinUserShard> rows = checkinUserShardMapper.selectList(null);
+        Map<Long, CheckinUserShard> loaded = new ConcurrentHashMap<>(Math.max(16, rows.size() * 2));
+        for (CheckinUserShard row : rows) {
+            loaded.put(row.getUserId(), row);
+        }
+        entries = loaded;
+        return loaded.size();
+    }
+
+    public CheckinUserShard get(Long userId) {
+        return entries.get(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 所有目录项（迁移工具遍历用）
+     */
+    public List<CheckinUserShard> list() {
+        return List.copyOf(entries.values());
+    }
+
+    /**
+     * 写入目录项（存在则覆盖）
+     */
+    public void save(Long userId, int shardIndex, boolean moving) {
+        CheckinUserShard entry = new CheckinUserShard();
+        entry.setUserId(userId);
+        entry.setShardIndex(shardIndex);
+        entry.setMoving(moving ? 1 : 0);
+        entry.setUpdateTime(LocalDateTime.now());
+        if (checkinUserShardMapper.updateById(entry) == 0) {
+            checkinUserShardMapper.insert(entry);
+        }
+        entries.put(userId, entry);
+    }
+
+    /**
+     * 删除目录项：用户回到分片函数算出的分片
+     */
+    public void remove(Long userId) {
+        checkinUserShardMapper.deleteById(userId);
+        entries.remove(userId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.checkin.shard;
+
+/**
+ * 打卡记录分片函数：用户ID -> 分片下标[0, shardCount)
+ * 默认按用户ID取模（ModuloShardFunction），可声明自己的ShardFunction Bean替换；
+ * 更换函数或分片数前需先用分片迁移工具固定现有用户（见ShardMigrationService.pinAll）
+ */
+@FunctionalInterface
+public interface ShardFunction {
+
+    int shardOf(long userId, int shardCount);
+}
@@ -0,0 +1,69 @@
+package com.checkin.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 打卡记录游标分页工具
+ * 游标为上一页最后一条记录的(checkin_time, id)，编码为URL安全的Base64字符串，客户端原样回传即可
+ */
+public final class CheckinCursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    private CheckinCursorUtils() {
+    }
+
+    /**
+     * 生成游标
+     * @param checkinTime 最后一条记录的打卡时间
+     * @param id 最后一条记录的ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime checkinTime, Long id) {
+        String raw = checkinTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     * @param cursor 游标字符串
+     * @return 游标位置
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index <= 0) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, index)), Long.parseLong(raw.substring(index + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 游标位置：上一页最后一条记录的打卡时间和ID
+     */
+    public static final class Cursor {
+        private final LocalDateTime checkinTime;
+        private final Long id;
+
+        public Cursor(LocalDateTime checkinTime, Long id) {
+            this.checkinTime = checkinTime;
+            this.id = id;
+        }
+
+        public LocalDateTime getCheckinTime() {
+            return checkinTime;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
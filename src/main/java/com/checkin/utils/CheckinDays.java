@@ -0,0 +1,166 @@
+package com.checkin.utils;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 用户打卡日期的紧凑表示：升序、去重的epochDay（距1970-01-01的天数）int数组
+ * 十年每天打卡也只有约14KB，按天判断、按月/按年生成位掩码都是对原始数组的顺序扫描或二分查找，不产生装箱对象
+ */
+public final class CheckinDays {
+
+    private static final CheckinDays EMPTY = new CheckinDays(new int[0], 0);
+
+    private final int[] days;
+    private final int size;
+
+    private CheckinDays(int[] days, int size) {
+        this.days = days;
+        this.size = size;
+    }
+
+    /**
+     * 由任意顺序的epochDay构建（排序并去重）
+     */
+    public static CheckinDays of(int... epochDays) {
+        Collector collector = new Collector();
+        for (int day : epochDays) {
+            collector.add(day);
+        }
+        return collector.build();
+    }
+
+    /**
+     * 由任意顺序的日期构建（排序并去重）
+     */
+    public static CheckinDays of(Collection<LocalDate> dates) {
+        Collector collector = new Collector();
+        for (LocalDate date : dates) {
+            collector.add(date);
+        }
+        return collector.build();
+    }
+
+    public static CheckinDays empty() {
+        return EMPTY;
+    }
+
+    public static Collector collector() {
+        return new Collector();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 第index个打卡日（升序）的epochDay
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return days[index];
+    }
+
+    public boolean contains(LocalDate date) {
+        return Arrays.binarySearch(days, 0, size, (int) date.toEpochDay()) >= 0;
+    }
+
+    /**
+     * 指定月份的打卡位掩码（第(日-1)位表示当天已打卡）
+     */
+    public int monthMask(YearMonth month) {
+        int first = (int) month.atDay(1).toEpochDay();
+        int end = first + month.lengthOfMonth();
+        int mask = 0;
+        for (int i = lowerBound(first); i < size && days[i] < end; i++) {
+            mask |= 1 << (days[i] - first);
+        }
+        return mask;
+    }
+
+    /**
+     * 指定年份12个月的打卡位掩码
+     */
+    public int[] yearMasks(int year) {
+        int[] masks = new int[12];
+        for (int m = 1; m <= 12; m++) {
+            masks[m - 1] = monthMask(YearMonth.of(year, m));
+        }
+        return masks;
+    }
+
+    /**
+     * 第一个不小于epochDay的下标
+     */
+    private int lowerBound(int epochDay) {
+        int index = Arrays.binarySearch(days, 0, size, epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * 收集打卡日期：可直接作为MyBatis的ResultHandler逐行接收checkin_date，不生成结果列表；
+     * 按升序接收时只做追加和相邻去重，乱序时在build时统一排序；build之后不能再添加
+     */
+    public static final class Collector implements ResultHandler<LocalDate> {
+        private int[] buffer = new int[64];
+        private int size;
+        private boolean sorted = true;
+
+        @Override
+        public void handleResult(ResultContext<? extends LocalDate> context) {
+            LocalDate date = context.getResultObject();
+            if (date != null) {
+                add(date);
+            }
+        }
+
+        public void add(LocalDate date) {
+            add((int) date.toEpochDay());
+        }
+
+        public void add(int epochDay) {
+            if (size > 0) {
+                int last = buffer[size - 1];
+                if (epochDay == last) {
+                    return;
+                }
+                if (epochDay < last) {
+                    sorted = false;
+                }
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = epochDay;
+        }
+
+        public CheckinDays build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (!sorted) {
+                Arrays.sort(buffer, 0, size);
+                int distinct = 1;
+                for (int i = 1; i < size; i++) {
+                    if (buffer[i] != buffer[distinct - 1]) {
+                        buffer[distinct++] = buffer[i];
+                    }
+                }
+                size = distinct;
+                sorted = true;
+            }
+            return new CheckinDays(buffer, size);
+        }
+    }
+}
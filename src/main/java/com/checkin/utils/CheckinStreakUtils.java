@@ -0,0 +1,205 @@
+package com.checkin.utils;
+
+import com.checkin.entity.CheckinSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 打卡汇总计算工具
+ * 汇总只保存"最近一段连续打卡"和"紧挨着它的前一段"，新增一天时在O(1)内完成增量更新；
+ * 少数无法O(1)判断的补卡场景（补到前一段之前）返回false，由调用方从历史记录重建
+ */
+public final class CheckinStreakUtils {
+
+    // 前一段连续打卡未知（桥接合并后丢失），再遇到需要它的补卡时重建
+    public static final int PREV_UNKNOWN = -1;
+
+    private CheckinStreakUtils() {
+    }
+
+    /**
+     * 根据打卡日期全量重建汇总（同一天多条记录自动去重）
+     * @param userId 用户ID
+     * @param dates 打卡日期（任意顺序）
+     * @param today 当前日期（决定本月统计的月份）
+     * @return 汇总
+     */
+    public static CheckinSummary rebuild(Long userId, List<LocalDate> dates, LocalDate today) {
+        return rebuild(userId, CheckinDays.of(dates), today);
+    }
+
+    /**
+     * 一次顺序扫描epochDay数组重建汇总：累计天数、最近一段和前一段连续、最长连续、本月天数
+     * @param userId 用户ID
+     * @param days 升序去重的打卡日
+     * @param today 当前日期（决定本月统计的月份）
+     * @return 汇总
+     */
+    public static CheckinSummary rebuild(Long userId, CheckinDays days, LocalDate today) {
+        LocalDate monthFirst = today.withDayOfMonth(1);
+        int monthStart = (int) monthFirst.toEpochDay();
+        int monthEnd = monthStart + today.lengthOfMonth();
+        int total = days.size(), longest = 0, monthDays = 0, run = 0, prevRun = 0;
+        int runStart = 0, last = 0, prevEnd = 0;
+
+        for (int i = 0; i < total; i++) {
+            int day = days.get(i);
+            if (i > 0 && day == last + 1) {
+                run++;
+            } else {
+                if (i > 0) {
+                    prevRun = run;
+                    prevEnd = last;
+                }
+                run = 1;
+                runStart = day;
+            }
+            last = day;
+            if (run > longest) {
+                longest = run;
+            }
+            if (day >= monthStart && day < monthEnd) {
+                monthDays++;
+            }
+        }
+
+        CheckinSummary summary = new CheckinSummary();
+        summary.setUserId(userId);
+        summary.setCurrentStreak(run);
+        summary.setStreakStartDate(total == 0 ? null : LocalDate.ofEpochDay(runStart));
+        summary.setLastCheckinDate(total == 0 ? null : LocalDate.ofEpochDay(last));
+        summary.setLongestStreak(longest);
+        summary.setTotalDays(total);
+        summary.setStatMonth(toMonthKey(today));
+        summary.setMonthDays(monthDays);
+        summary.setPrevStreak(prevRun);
+        summary.setPrevStreakEndDate(prevRun == 0 ? null : LocalDate.ofEpochDay(prevEnd));
+        summary.setUpdateTime(LocalDateTime.now());
+        return summary;
+    }
+
+    /**
+     * 把新打卡的一天合并进汇总（正常打卡或补卡）
+     * @param summary 汇总（原地修改）
+     * @param date 打卡日期
+     * @return true=已合并（或该天已计入）；false=无法增量判断，需要重建
+     */
+    public static boolean applyCheckin(CheckinSummary summary, LocalDate date) {
+        LocalDate last = summary.getLastCheckinDate();
+        if (last == null) {
+            summary.setCurrentStreak(1);
+            summary.setStreakStartDate(date);
+            summary.setLastCheckinDate(date);
+            summary.setPrevStreak(0);
+            summary.setPrevStreakEndDate(null);
+            summary.setLongestStreak(Math.max(nullToZero(summary.getLongestStreak()), 1));
+            summary.setTotalDays(1);
+            summary.setStatMonth(toMonthKey(date));
+            summary.setMonthDays(1);
+            summary.setUpdateTime(LocalDateTime.now());
+            return true;
+        }
+
+        LocalDate start = summary.getStreakStartDate();
+        int current = summary.getCurrentStreak();
+        int prev = summary.getPrevStreak() == null ? PREV_UNKNOWN : summary.getPrevStreak();
+        LocalDate prevEnd = summary.getPrevStreakEndDate();
+
+        // 已在最近一段或前一段内，说明已计入
+        if (!date.isBefore(start) && !date.isAfter(last)) {
+            return true;
+        }
+        if (prev > 0 && !date.isAfter(prevEnd) && !date.isBefore(prevEnd.minusDays(prev - 1))) {
+            return true;
+        }
+
+        if (date.isAfter(last)) {
+            if (date.equals(last.plusDays(1))) {
+                current++;
+            } else {
+                prev = current;
+                prevEnd = last;
+                current = 1;
+                start = date;
+            }
+            last = date;
+        } else if (date.equals(start.minusDays(1))) {
+            if (prev == PREV_UNKNOWN) {
+                return false;
+            }
+            if (prev > 0 && prevEnd.equals(date.minusDays(1))) {
+                // 补卡填平了两段之间唯一的缺口：两段合并，再往前的一段未知
+                start = prevEnd.minusDays(prev - 1);
+                current += 1 + prev;
+                prev = PREV_UNKNOWN;
+                prevEnd = null;
+            } else {
+                current++;
+                start = date;
+            }
+        } else {
+            // 早于最近一段开始前一天：落在两段之间，或落在前一段之前
+            if (prev == PREV_UNKNOWN) {
+                return false;
+            }
+            if (prev == 0 || date.isAfter(prevEnd.plusDays(1))) {
+                // 两段之间孤立的一天，成为新的"前一段"
+                prev = 1;
+                prevEnd = date;
+            } else if (date.equals(prevEnd.plusDays(1))) {
+                prev++;
+                prevEnd = date;
+            } else {
+                return false;
+            }
+        }
+
+        summary.setCurrentStreak(current);
+        summary.setStreakStartDate(start);
+        summary.setLastCheckinDate(last);
+        summary.setPrevStreak(prev);
+        summary.setPrevStreakEndDate(prevEnd);
+        summary.setLongestStreak(Math.max(nullToZero(summary.getLongestStreak()), Math.max(current, prev)));
+        summary.setTotalDays(nullToZero(summary.getTotalDays()) + 1);
+
+        // 本月统计：同月累加，更新的月份重新计数，更早的月份（跨月补卡）不影响本月
+        int monthKey = toMonthKey(date);
+        int statMonth = nullToZero(summary.getStatMonth());
+        if (monthKey == statMonth) {
+            summary.setMonthDays(nullToZero(summary.getMonthDays()) + 1);
+        } else if (monthKey > statMonth) {
+            summary.setStatMonth(monthKey);
+            summary.setMonthDays(1);
+        }
+        summary.setUpdateTime(LocalDateTime.now());
+        return true;
+    }
+
+    /**
+     * 当前有效的连续打卡天数：最后一次打卡是今天或昨天才算连续，否则为0
+     */
+    public static int effectiveStreak(CheckinSummary summary, LocalDate today) {
+        LocalDate last = summary.getLastCheckinDate();
+        if (last == null || last.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return nullToZero(summary.getCurrentStreak());
+    }
+
+    /**
+     * 今天所在月份的打卡天数
+     */
+    public static int effectiveMonthDays(CheckinSummary summary, LocalDate today) {
+        return nullToZero(summary.getStatMonth()) == toMonthKey(today) ? nullToZero(summary.getMonthDays()) : 0;
+    }
+
+    public static int toMonthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    private static int nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -1,7 +1,10 @@
 package com.checkin.utils;
 
+import com.checkin.entity.User;
+import com.checkin.security.CheckinPrincipal;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -18,31 +21,45 @@ import java.util.stream.Collectors;
 @Component
 public class JwtUtils {
 
+    // 自定义声明：用户ID、角色
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private long expiration;
 
-    // 生成签名密钥（使用更安全的方式处理密钥）
+    // 签名密钥和解析器启动时构建一次（JwtParser线程安全），不再每次解析都重新创建
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    // 获取签名密钥
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
-    // 生成包含自定义声明的token（支持角色信息）
-    public String generateToken(String username, Collection<? extends GrantedAuthority> authorities) {
+    /**
+     * 生成token：声明中携带用户ID、角色，过滤器据此直接构建登录用户，无需查询用户表
+     * @param user 用户（需包含id、username、role）
+     * @return 令牌
+     */
+    public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole() == null ? 0 : user.getRole());
         // 存储用户角色信息
-        claims.put("roles", authorities.stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.toList()));
-        return createToken(claims, username);
-    }
-
-    // 简化版生成token（默认无额外声明）
-    public String generateToken(String username) {
-        return generateToken(username, Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        claims.put("roles", Collections.singletonList(CheckinPrincipal.roleAuthority(user.getRole())));
+        return createToken(claims, user.getUsername());
     }
 
     // 创建token核心方法
@@ -99,23 +116,41 @@ public class JwtUtils {
         }
     }
 
-    // 验证token是否有效（增强异常处理）
-    public boolean validateToken(String token) {
+    /**
+     * 校验token并一次性取出登录用户和过期时间（只解析、验签一次）
+     * @param token 令牌
+     * @return 校验结果；签名无效、格式错误、已过期或缺少用户ID声明（旧版token）时返回null
+     */
+    public VerifiedToken verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expirationDate = claims.getExpiration();
+            Number userId = claims.get(CLAIM_USER_ID, Number.class);
+            if (claims.getSubject() == null || expirationDate == null || userId == null) {
+                return null;
+            }
+            Number role = claims.get(CLAIM_ROLE, Number.class);
+            CheckinPrincipal principal = new CheckinPrincipal(userId.longValue(), claims.getSubject(),
+                    role == null ? null : role.intValue());
+            return new VerifiedToken(principal, expirationDate.getTime());
         } catch (JwtException | IllegalArgumentException e) {
             // 捕获所有JWT相关异常（无效签名、过期、格式错误等）
-            return false;
+            return null;
         }
     }
 
+    // 验证token是否有效（增强异常处理）
+    public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
     // 验证token与用户名是否匹配
     public boolean validateToken(String token, String username) {
-        return validateToken(token) && extractUsername(token).equals(username);
+        VerifiedToken verified = verify(token);
+        return verified != null && verified.getPrincipal().getUsername().equals(username);
     }
 
     // 检查token是否过期
@@ -132,11 +167,7 @@ public class JwtUtils {
     // 解析token获取所有声明（增加异常捕获）
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             // 令牌已过期，返回过期的claims
             return e.getClaims();
@@ -157,4 +188,25 @@ public class JwtUtils {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * 校验通过的token信息
+     */
+    public static final class VerifiedToken {
+        private final CheckinPrincipal principal;
+        private final long expiresAtMillis;
+
+        public VerifiedToken(CheckinPrincipal principal, long expiresAtMillis) {
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public CheckinPrincipal getPrincipal() {
+            return principal;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.checkin.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * 离线打卡批量导入的单条结果（NDJSON响应体中的一行，与请求行一一对应）
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCheckinResultVO {
+    private int line; // 请求体中的行号（从1开始，空行不返回结果）
+    private String clientId; // 客户端记录标识
+    private boolean success; // 是否导入成功
+    private String msg; // 结果说明（失败原因）
+    private Long recordId; // 导入成功的打卡记录ID
+    private LocalDate checkinDate; // 打卡日期
+    private String fenceName; // 命中的打卡区域
+}
@@ -0,0 +1,17 @@
+package com.checkin.vo;
+
+import com.checkin.entity.CheckinRecord;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 打卡记录游标分页结果（按打卡时间、ID倒序，游标为上一页最后一条记录的位置）
+ */
+@Data
+public class CheckinCursorPageVO {
+    private List<CheckinRecord> records; // 本页记录
+    private String nextCursor; // 下一页游标（null表示没有下一页）
+    private boolean hasMore; // 是否还有下一页
+    private String next; // 下一页链接（null表示没有下一页）
+    private Long total; // 记录总数（仅withTotal=true时查询，否则为null）
+}
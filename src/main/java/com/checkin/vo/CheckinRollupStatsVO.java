@@ -0,0 +1,19 @@
+package com.checkin.vo;
+
+import com.checkin.entity.CheckinDailyRollup;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 管理端全局打卡统计（来自每日汇总表）
+ */
+@Data
+public class CheckinRollupStatsVO {
+    private LocalDate startDate; // 开始日期
+    private LocalDate endDate; // 结束日期
+    private long totalCheckins; // 区间内正常打卡人次
+    private long totalReissues; // 区间内补卡人次
+    private double avgCheckinRate; // 区间内日均打卡率（0-1）
+    private List<CheckinDailyRollup> days; // 每日汇总（按日期升序，尚未聚合的日期不返回）
+}
@@ -1,11 +1,36 @@
 package com.checkin.vo;
 
+import com.checkin.entity.CheckinSummary;
+import com.checkin.utils.CheckinStreakUtils;
 import lombok.Data;
 
+import java.time.LocalDate;
+
+/**
+ * 用户打卡核心统计（由打卡汇总直接换算，不读取历史记录）
+ */
 @Data
 public class CheckinStatsVO {
-    private int totalCount; // 总打卡次数
-    private int continuousDays; // 连续打卡天数
-    private int monthlyCount; // 本月打卡次数
-    private double monthlyRate; // 本月打卡率（0-1）
-}
\ No newline at end of file
+    private Long userId; // 用户ID
+    private int totalDays; // 累计打卡天数
+    private int continuousDays; // 当前连续打卡天数（昨天和今天都没打卡为0）
+    private int longestDays; // 历史最长连续天数
+    private LocalDate lastCheckinDate; // 最后打卡日期
+    private int monthlyDays; // 本月打卡天数
+    private double monthlyRate; // 本月打卡率（0-1，保留2位小数）
+    private int currentMonth; // 当前月份
+
+    public static CheckinStatsVO of(CheckinSummary summary, LocalDate today) {
+        CheckinStatsVO vo = new CheckinStatsVO();
+        vo.setUserId(summary.getUserId());
+        vo.setTotalDays(summary.getTotalDays() == null ? 0 : summary.getTotalDays());
+        vo.setContinuousDays(CheckinStreakUtils.effectiveStreak(summary, today));
+        vo.setLongestDays(summary.getLongestStreak() == null ? 0 : summary.getLongestStreak());
+        vo.setLastCheckinDate(summary.getLastCheckinDate());
+        int monthlyDays = CheckinStreakUtils.effectiveMonthDays(summary, today);
+        vo.setMonthlyDays(monthlyDays);
+        vo.setMonthlyRate(Math.round((double) monthlyDays / today.lengthOfMonth() * 100) / 100.0);
+        vo.setCurrentMonth(today.getMonthValue());
+        return vo;
+    }
+}
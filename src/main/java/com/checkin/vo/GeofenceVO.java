@@ -0,0 +1,22 @@
+package com.checkin.vo;
+
+import com.checkin.geofence.Geofence;
+import lombok.Data;
+
+/**
+ * 打卡区域（地点校验命中的区域、管理端区域列表）
+ */
+@Data
+public class GeofenceVO {
+    private Long fenceId; // 区域ID（0表示由checkin.valid.*配置生成的默认区域）
+    private String fenceName; // 区域名称
+    private String shape; // 形状：POLYGON/CIRCLE
+
+    public static GeofenceVO of(Geofence fence) {
+        GeofenceVO vo = new GeofenceVO();
+        vo.setFenceId(fence.getId());
+        vo.setFenceName(fence.getName());
+        vo.setShape(fence.getShape().name());
+        return vo;
+    }
+}
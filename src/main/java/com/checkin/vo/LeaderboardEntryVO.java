@@ -0,0 +1,14 @@
+package com.checkin.vo;
+
+import lombok.Data;
+
+/**
+ * 排行榜中的一名用户
+ */
+@Data
+public class LeaderboardEntryVO {
+    private Long rank; // 名次（从1开始；未上榜为null）
+    private Long userId; // 用户ID
+    private String username; // 用户名
+    private Integer days; // 天数（当前连续/最长连续）
+}
@@ -0,0 +1,15 @@
+package com.checkin.vo;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 连续打卡排行榜
+ */
+@Data
+public class LeaderboardVO {
+    private String board; // 排行榜类型：CURRENT/LONGEST
+    private String month; // 月份（yyyy-MM；总榜为null）
+    private long total; // 上榜总人数
+    private List<LeaderboardEntryVO> entries; // 前N名（按天数降序）
+}
@@ -0,0 +1,19 @@
+package com.checkin.vo;
+
+import com.checkin.entity.User;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 未打卡用户分页结果（按用户ID升序，游标为上一页最后一个用户ID）
+ */
+@Data
+public class UncheckedUserPageVO {
+    private LocalDate date; // 查询日期
+    private long totalUsers; // 用户总数
+    private long uncheckedCount; // 未打卡人数
+    private List<User> records; // 本页未打卡用户（不含密码）
+    private Long nextCursor; // 下一页游标（null表示没有下一页）
+    private boolean hasMore; // 是否还有下一页
+}
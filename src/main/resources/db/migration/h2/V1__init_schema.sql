@@ -0,0 +1,25 @@
+-- 初始表结构（H2 MySQL兼容模式，用于压测和本地无MySQL环境）
+-- 与mysql/V1__init_schema.sql保持一致：只包含引入迁移前已有的user和checkin_record，后续改造由V2及以后的脚本完成
+
+CREATE TABLE `user` (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(20) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    role INT DEFAULT 0,
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE checkin_record (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    checkin_time DATETIME,
+    location VARCHAR(100),
+    status INT,
+    latitude DOUBLE,
+    longitude DOUBLE,
+    is_reissue INT DEFAULT 0,
+    reissue_time DATETIME,
+    reissue_reason VARCHAR(500),
+    PRIMARY KEY (id)
+);
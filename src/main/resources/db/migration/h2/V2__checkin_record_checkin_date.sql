@@ -0,0 +1,22 @@
+-- 打卡日期列和每人每天一条的唯一键（与mysql/V2__checkin_record_checkin_date.sql一致）
+
+ALTER TABLE checkin_record ADD COLUMN checkin_date DATE AFTER checkin_time;
+
+UPDATE checkin_record SET checkin_date = CAST(checkin_time AS DATE) WHERE checkin_time IS NOT NULL;
+
+CREATE TABLE checkin_record_removed AS SELECT * FROM checkin_record WITH NO DATA;
+
+INSERT INTO checkin_record_removed
+SELECT r.*
+FROM checkin_record r
+WHERE r.checkin_date IS NULL
+   OR EXISTS (SELECT 1
+              FROM checkin_record k
+              WHERE k.user_id = r.user_id
+                AND k.checkin_date = r.checkin_date
+                AND k.id < r.id);
+
+DELETE FROM checkin_record WHERE id IN (SELECT id FROM checkin_record_removed);
+
+ALTER TABLE checkin_record ALTER COLUMN checkin_date SET NOT NULL;
+ALTER TABLE checkin_record ADD CONSTRAINT uk_user_checkin_date UNIQUE (user_id, checkin_date);
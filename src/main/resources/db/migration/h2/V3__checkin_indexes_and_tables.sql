@@ -0,0 +1,51 @@
+-- 查询用索引、列约束补齐，以及打卡汇总、每日汇总、打卡区域三张新表（与mysql/V3__checkin_indexes_and_tables.sql一致）
+
+ALTER TABLE `user` ADD CONSTRAINT IF NOT EXISTS uk_username UNIQUE (username);
+UPDATE `user` SET role = 0 WHERE role IS NULL;
+ALTER TABLE `user` ALTER COLUMN role SET NOT NULL;
+
+UPDATE checkin_record SET is_reissue = 0 WHERE is_reissue IS NULL;
+ALTER TABLE checkin_record ALTER COLUMN checkin_time SET DATA TYPE DATETIME(3);
+ALTER TABLE checkin_record ALTER COLUMN checkin_time SET NOT NULL;
+ALTER TABLE checkin_record ALTER COLUMN is_reissue SET NOT NULL;
+CREATE INDEX idx_user_time ON checkin_record (user_id, checkin_time, id);
+CREATE INDEX idx_user_reissue ON checkin_record (user_id, is_reissue, reissue_time);
+CREATE INDEX idx_date_reissue_user ON checkin_record (checkin_date, is_reissue, user_id);
+
+CREATE TABLE checkin_summary (
+    user_id BIGINT NOT NULL,
+    current_streak INT,
+    streak_start_date DATE,
+    last_checkin_date DATE,
+    longest_streak INT,
+    total_days INT,
+    stat_month INT,
+    month_days INT,
+    prev_streak INT,
+    prev_streak_end_date DATE,
+    update_time DATETIME,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE checkin_daily_rollup (
+    stat_date DATE NOT NULL,
+    checkin_count INT,
+    reissue_count INT,
+    active_users INT,
+    total_users INT,
+    update_time DATETIME,
+    PRIMARY KEY (stat_date)
+);
+
+CREATE TABLE checkin_geofence (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL,
+    shape VARCHAR(10) NOT NULL,
+    points TEXT,
+    center_latitude DOUBLE,
+    center_longitude DOUBLE,
+    radius_meters DOUBLE,
+    enabled INT NOT NULL DEFAULT 1,
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
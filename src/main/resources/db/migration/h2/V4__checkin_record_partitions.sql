@@ -0,0 +1,4 @@
+-- 与mysql/V4__checkin_record_partitions.sql一致，只是H2不支持分区：checkin_record仍为普通表，主键同样改为(id, checkin_date)
+
+ALTER TABLE checkin_record DROP PRIMARY KEY;
+ALTER TABLE checkin_record ADD PRIMARY KEY (id, checkin_date);
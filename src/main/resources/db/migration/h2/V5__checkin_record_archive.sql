@@ -0,0 +1,18 @@
+-- 打卡记录归档表（与mysql/V5__checkin_record_archive.sql一致，H2不支持压缩行格式）
+CREATE TABLE checkin_record_archive (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    checkin_time DATETIME(3) NOT NULL,
+    checkin_date DATE NOT NULL,
+    location VARCHAR(100),
+    status INT,
+    latitude DOUBLE,
+    longitude DOUBLE,
+    is_reissue INT NOT NULL DEFAULT 0,
+    reissue_time DATETIME,
+    reissue_reason VARCHAR(500),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_archive_user_checkin_date UNIQUE (user_id, checkin_date)
+);
+CREATE INDEX idx_archive_user_time ON checkin_record_archive (user_id, checkin_time, id);
+CREATE INDEX idx_archive_date_reissue_user ON checkin_record_archive (checkin_date, is_reissue, user_id);
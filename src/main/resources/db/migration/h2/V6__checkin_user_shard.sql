@@ -0,0 +1,8 @@
+-- 打卡记录分片目录（与mysql/V6__checkin_user_shard.sql一致）
+CREATE TABLE checkin_user_shard (
+    user_id BIGINT NOT NULL,
+    shard_index INT NOT NULL,
+    moving TINYINT NOT NULL DEFAULT 0,
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id)
+);
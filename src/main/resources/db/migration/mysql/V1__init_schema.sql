@@ -0,0 +1,26 @@
+-- 初始表结构（MySQL 8.0+）：引入迁移前已有的user和checkin_record，只包含当时的列。
+-- 已有表但没有迁移记录的旧库按spring.flyway.baseline-version记为已执行本脚本，之后的改造全部由V2及以后的脚本完成，
+-- 因此这里不能再加入任何后续的列、索引或表
+
+CREATE TABLE `user` (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(20) NOT NULL COMMENT '用户名',
+    password VARCHAR(100) NOT NULL COMMENT 'BCrypt密码哈希',
+    role INT DEFAULT 0 COMMENT '角色：0-普通用户，1-管理员',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '注册时间',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户';
+
+CREATE TABLE checkin_record (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    checkin_time DATETIME COMMENT '打卡时间（补卡为所补日期）',
+    location VARCHAR(100) COMMENT '打卡地点',
+    status INT COMMENT '状态：1-正常，0-异常',
+    latitude DOUBLE COMMENT '纬度',
+    longitude DOUBLE COMMENT '经度',
+    is_reissue INT DEFAULT 0 COMMENT '是否补卡：0-正常，1-补卡',
+    reissue_time DATETIME COMMENT '补卡提交时间',
+    reissue_reason VARCHAR(500) COMMENT '补卡理由',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '打卡记录';
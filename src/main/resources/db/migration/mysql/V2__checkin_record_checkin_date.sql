@@ -0,0 +1,57 @@
+-- 打卡日期列和每人每天一条的唯一键（打卡防重在Redis不可用时退回到数据库唯一键）
+-- 1. 新增checkin_date并按checkin_time回填
+-- 2. 同一用户同一天的多条记录只保留ID最小的一条，其余（以及没有打卡时间、无法确定日期的记录）移到checkin_record_removed，不直接丢弃
+-- 3. checkin_date改为非空并建立唯一键uk_user_checkin_date(user_id, checkin_date)
+-- 引入迁移前已手工执行过db/upgrade/checkin_record_checkin_date.sql的库已有该列和唯一键，对应步骤跳过
+
+SET @has_checkin_date = (SELECT COUNT(*)
+                         FROM information_schema.COLUMNS
+                         WHERE TABLE_SCHEMA = DATABASE()
+                           AND TABLE_NAME = 'checkin_record'
+                           AND COLUMN_NAME = 'checkin_date');
+SET @has_unique_key = (SELECT COUNT(*)
+                       FROM information_schema.STATISTICS
+                       WHERE TABLE_SCHEMA = DATABASE()
+                         AND TABLE_NAME = 'checkin_record'
+                         AND INDEX_NAME = 'uk_user_checkin_date');
+
+SET @ddl = IF(@has_checkin_date = 0,
+              "ALTER TABLE checkin_record ADD COLUMN checkin_date DATE NULL COMMENT '打卡日期（分区列）' AFTER checkin_time",
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+UPDATE checkin_record SET checkin_date = DATE(checkin_time) WHERE checkin_date IS NULL AND checkin_time IS NOT NULL;
+
+-- 临时索引：查找同一天的重复记录时不做全表嵌套扫描，建立唯一键后删除
+SET @ddl = IF(@has_unique_key = 0,
+              'ALTER TABLE checkin_record ADD KEY idx_tmp_user_checkin_date (user_id, checkin_date)',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS checkin_record_removed LIKE checkin_record;
+ALTER TABLE checkin_record_removed COMMENT = '建立每人每天唯一键时移出的重复或无日期打卡记录（只保留备查）';
+
+INSERT INTO checkin_record_removed
+SELECT r.*
+FROM checkin_record r
+WHERE r.checkin_date IS NULL
+   OR EXISTS (SELECT 1
+              FROM checkin_record k
+              WHERE k.user_id = r.user_id
+                AND k.checkin_date = r.checkin_date
+                AND k.id < r.id);
+
+DELETE r
+FROM checkin_record r
+JOIN checkin_record_removed d ON d.id = r.id;
+
+SET @ddl = IF(@has_unique_key = 0,
+              "ALTER TABLE checkin_record MODIFY checkin_date DATE NOT NULL COMMENT '打卡日期（分区列）', ADD UNIQUE KEY uk_user_checkin_date (user_id, checkin_date), DROP KEY idx_tmp_user_checkin_date",
+              "ALTER TABLE checkin_record MODIFY checkin_date DATE NOT NULL COMMENT '打卡日期（分区列）'");
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
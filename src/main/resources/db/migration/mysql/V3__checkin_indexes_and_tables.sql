@@ -0,0 +1,66 @@
+-- 查询用索引、列约束补齐，以及打卡汇总、每日汇总、打卡区域三张新表
+
+-- 用户名唯一（登录、注册按用户名查询）；旧库可能已有同名索引，没有时才建立
+SET @ddl = IF((SELECT COUNT(*)
+               FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE()
+                 AND TABLE_NAME = 'user'
+                 AND INDEX_NAME = 'uk_username') = 0,
+              'ALTER TABLE `user` ADD UNIQUE KEY uk_username (username)',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+UPDATE `user` SET role = 0 WHERE role IS NULL;
+ALTER TABLE `user` MODIFY role INT NOT NULL DEFAULT 0 COMMENT '角色：0-普通用户，1-管理员';
+
+-- 打卡时间精确到毫秒（游标分页按(checkin_time, id)定位）；V2已移出没有打卡时间的记录
+UPDATE checkin_record SET is_reissue = 0 WHERE is_reissue IS NULL;
+ALTER TABLE checkin_record
+    MODIFY checkin_time DATETIME(3) NOT NULL COMMENT '打卡时间（补卡为所补日期）',
+    MODIFY is_reissue INT NOT NULL DEFAULT 0 COMMENT '是否补卡：0-正常，1-补卡',
+    -- 用户打卡记录分页、游标翻页、全量导出（按时间倒序/正序）
+    ADD KEY idx_user_time (user_id, checkin_time, id),
+    -- 当月补卡次数
+    ADD KEY idx_user_reissue (user_id, is_reissue, reissue_time),
+    -- 某天已打卡用户（未打卡用户查询）、按日期聚合补卡/打卡人数（覆盖索引，不回表）
+    ADD KEY idx_date_reissue_user (checkin_date, is_reissue, user_id);
+
+CREATE TABLE checkin_summary (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    current_streak INT COMMENT '最近一段连续打卡天数',
+    streak_start_date DATE COMMENT '最近一段连续打卡开始日期',
+    last_checkin_date DATE COMMENT '最后打卡日期',
+    longest_streak INT COMMENT '历史最长连续天数',
+    total_days INT COMMENT '累计打卡天数',
+    stat_month INT COMMENT 'month_days对应的月份（yyyyMM）',
+    month_days INT COMMENT 'stat_month当月打卡天数',
+    prev_streak INT COMMENT '前一段连续打卡天数（-1未知）',
+    prev_streak_end_date DATE COMMENT '前一段连续打卡结束日期',
+    update_time DATETIME COMMENT '更新时间',
+    PRIMARY KEY (user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '用户打卡汇总';
+
+CREATE TABLE checkin_daily_rollup (
+    stat_date DATE NOT NULL COMMENT '统计日期',
+    checkin_count INT COMMENT '正常打卡人数',
+    reissue_count INT COMMENT '补卡人数',
+    active_users INT COMMENT '当天有打卡（含补卡）的用户数',
+    total_users INT COMMENT '当天结束时的注册用户总数',
+    update_time DATETIME COMMENT '最后聚合时间',
+    PRIMARY KEY (stat_date)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '每日打卡汇总';
+
+CREATE TABLE checkin_geofence (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL COMMENT '区域名称',
+    shape VARCHAR(10) NOT NULL COMMENT '形状：POLYGON/CIRCLE',
+    points TEXT COMMENT '多边形顶点：纬度,经度;纬度,经度;...',
+    center_latitude DOUBLE COMMENT '圆心纬度',
+    center_longitude DOUBLE COMMENT '圆心经度',
+    radius_meters DOUBLE COMMENT '半径（米）',
+    enabled INT NOT NULL DEFAULT 1 COMMENT '是否启用：1-启用，0-停用',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '打卡区域';
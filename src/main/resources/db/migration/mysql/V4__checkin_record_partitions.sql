@@ -0,0 +1,73 @@
+-- checkin_record按checkin_date每月一个分区：按日期/月份过滤的查询（月度统计、未打卡用户、每日汇总）只扫描相关分区。
+-- 分区表的主键和唯一键必须包含分区列，因此主键改为(id, checkin_date)；id仍自增且全局唯一。
+-- p202401同时容纳更早的历史数据；2027年之后的分区由CheckinPartitionJob按checkin.partition.months-ahead提前从p_max拆出。
+-- 重建分区会复制整张表，旧库数据量大时应在低峰期启动新版本
+
+-- 分区表不支持外键：旧库在checkin_record上建过外键时先删除（用户是否存在由应用校验）
+SET @ddl = (SELECT CONCAT('ALTER TABLE checkin_record ',
+                          GROUP_CONCAT(CONCAT('DROP FOREIGN KEY `', CONSTRAINT_NAME, '`') SEPARATOR ', '))
+            FROM information_schema.TABLE_CONSTRAINTS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND TABLE_NAME = 'checkin_record'
+              AND CONSTRAINT_TYPE = 'FOREIGN KEY');
+SET @ddl = IFNULL(@ddl, 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE checkin_record
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, checkin_date);
+
+ALTER TABLE checkin_record
+PARTITION BY RANGE COLUMNS (checkin_date) (
+    PARTITION p202401 VALUES LESS THAN ('2024-02-01'),
+    PARTITION p202402 VALUES LESS THAN ('2024-03-01'),
+    PARTITION p202403 VALUES LESS THAN ('2024-04-01'),
+    PARTITION p202404 VALUES LESS THAN ('2024-05-01'),
+    PARTITION p202405 VALUES LESS THAN ('2024-06-01'),
+    PARTITION p202406 VALUES LESS THAN ('2024-07-01'),
+    PARTITION p202407 VALUES LESS THAN ('2024-08-01'),
+    PARTITION p202408 VALUES LESS THAN ('2024-09-01'),
+    PARTITION p202409 VALUES LESS THAN ('2024-10-01'),
+    PARTITION p202410 VALUES LESS THAN ('2024-11-01'),
+    PARTITION p202411 VALUES LESS THAN ('2024-12-01'),
+    PARTITION p202412 VALUES LESS THAN ('2025-01-01'),
+    PARTITION p202501 VALUES LESS THAN ('2025-02-01'),
+    PARTITION p202502 VALUES LESS THAN ('2025-03-01'),
+    PARTITION p202503 VALUES LESS THAN ('2025-04-01'),
+    PARTITION p202504 VALUES LESS THAN ('2025-05-01'),
+    PARTITION p202505 VALUES LESS THAN ('2025-06-01'),
+    PARTITION p202506 VALUES LESS THAN ('2025-07-01'),
+    PARTITION p202507 VALUES LESS THAN ('2025-08-01'),
+    PARTITION p202508 VALUES LESS THAN ('2025-09-01'),
+    PARTITION p202509 VALUES LESS THAN ('2025-10-01'),
+    PARTITION p202510 VALUES LESS THAN ('2025-11-01'),
+    PARTITION p202511 VALUES LESS THAN ('2025-12-01'),
+    PARTITION p202512 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p202701 VALUES LESS THAN ('2027-02-01'),
+    PARTITION p202702 VALUES LESS THAN ('2027-03-01'),
+    PARTITION p202703 VALUES LESS THAN ('2027-04-01'),
+    PARTITION p202704 VALUES LESS THAN ('2027-05-01'),
+    PARTITION p202705 VALUES LESS THAN ('2027-06-01'),
+    PARTITION p202706 VALUES LESS THAN ('2027-07-01'),
+    PARTITION p202707 VALUES LESS THAN ('2027-08-01'),
+    PARTITION p202708 VALUES LESS THAN ('2027-09-01'),
+    PARTITION p202709 VALUES LESS THAN ('2027-10-01'),
+    PARTITION p202710 VALUES LESS THAN ('2027-11-01'),
+    PARTITION p202711 VALUES LESS THAN ('2027-12-01'),
+    PARTITION p202712 VALUES LESS THAN ('2028-01-01'),
+    PARTITION p_max VALUES LESS THAN (MAXVALUE)
+);
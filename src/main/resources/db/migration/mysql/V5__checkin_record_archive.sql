@@ -0,0 +1,19 @@
+-- 打卡记录归档表：超过checkin.archive.after-days（且早于补卡期限）的记录由CheckinArchiveJob按整月从checkin_record搬入。
+-- 归档数据只读不改，使用压缩行格式；读取接口把热表和归档表的结果拼接（归档记录一定早于热表记录）
+CREATE TABLE checkin_record_archive (
+    id BIGINT NOT NULL COMMENT '原打卡记录ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    checkin_time DATETIME(3) NOT NULL COMMENT '打卡时间',
+    checkin_date DATE NOT NULL COMMENT '打卡日期',
+    location VARCHAR(100) COMMENT '打卡地点',
+    status INT COMMENT '状态：1-正常，0-异常',
+    latitude DOUBLE COMMENT '纬度',
+    longitude DOUBLE COMMENT '经度',
+    is_reissue INT NOT NULL DEFAULT 0 COMMENT '是否补卡：0-正常，1-补卡',
+    reissue_time DATETIME COMMENT '补卡提交时间',
+    reissue_reason VARCHAR(500) COMMENT '补卡理由',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_user_checkin_date (user_id, checkin_date),
+    KEY idx_user_time (user_id, checkin_time, id),
+    KEY idx_date_reissue_user (checkin_date, is_reissue, user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 ROW_FORMAT = COMPRESSED COMMENT = '打卡记录归档';
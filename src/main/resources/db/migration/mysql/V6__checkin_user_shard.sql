@@ -0,0 +1,9 @@
+-- 打卡记录分片目录：只保存不按分片函数定位的用户（迁移中、已迁到其他分片、扩容前固定在原分片），其余用户由分片函数计算。
+-- 只在主库（分片0）使用
+CREATE TABLE checkin_user_shard (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    shard_index INT NOT NULL COMMENT '打卡记录所在分片',
+    moving TINYINT NOT NULL DEFAULT 0 COMMENT '是否迁移中：迁移中暂停该用户写入打卡记录',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+    PRIMARY KEY (user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '打卡记录分片目录';
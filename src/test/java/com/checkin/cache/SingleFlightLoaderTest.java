@@ -0,0 +1,131 @@
+package com.checkin.cache;
+
+import com.checkin.metrics.CacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightLoaderTest {
+
+    private static final int CALLERS = 16;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightLoader loader;
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        CacheMetrics cacheMetrics = new CacheMetrics();
+        ReflectionTestUtils.setField(cacheMetrics, "meterRegistry", meterRegistry);
+        loader = new SingleFlightLoader(1, 4);
+        ReflectionTestUtils.setField(loader, "cacheMetrics", cacheMetrics);
+        pool = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    public void teardown() {
+        pool.shutdownNow();
+        loader.shutdown();
+    }
+
+    // 同一键的并发回源只执行一次，其余请求共用结果并计入deduplicated
+    @Test
+    public void testConcurrentLoadsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> loader.load("continuous", 1L, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return 7;
+            })));
+        }
+        // 等所有请求都进入等待后再放行回源
+        waitUntil(() -> deduplicated() == CALLERS - 1);
+        release.countDown();
+        for (Future<Integer> result : results) {
+            assertEquals(7, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, loader.inFlightCount());
+
+        // 回源结束后再次加载会重新执行
+        assertEquals(8, (int) loader.load("continuous", 1L, () -> 8));
+    }
+
+    // 回源失败时等待者收到同一异常，之后的请求可以重新回源
+    @Test
+    public void testFailureIsSharedAndNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> first = pool.submit(() -> loader.load("summary", 2L, () -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        waitUntil(() -> loader.inFlightCount() == 1);
+        Future<Integer> second = pool.submit(() -> loader.load("summary", 2L, () -> 1));
+        waitUntil(() -> deduplicated() == 1);
+        release.countDown();
+
+        for (Future<Integer> result : List.of(first, second)) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals(3, (int) loader.load("summary", 2L, () -> 3));
+    }
+
+    // 提前刷新期间的加载请求等待刷新结果；同键不重复提交刷新
+    @Test
+    public void testRefreshAheadIsDeduplicated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(loader.refreshAsync("continuous", 3L, () -> {
+            await(release);
+            return 5;
+        }));
+        assertFalse(loader.refreshAsync("continuous", 3L, () -> 6));
+
+        Future<Integer> waiting = pool.submit(() -> loader.load("continuous", 3L, () -> 9));
+        waitUntil(() -> deduplicated() == 1);
+        release.countDown();
+        assertEquals(5, waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.counter("checkin.cache.refreshes", "cache", "continuous").count());
+    }
+
+    private double deduplicated() {
+        return meterRegistry.find("checkin.cache.deduplicated").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+}
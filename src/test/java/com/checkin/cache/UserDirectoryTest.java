@@ -0,0 +1,44 @@
+package com.checkin.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDirectoryTest {
+
+    @Test
+    public void testPutAndLookup() {
+        UserDirectory directory = new UserDirectory();
+        directory.put(1L, "alice", 0);
+        directory.put(4096L, "bob", 1);
+        directory.put(250_000L, "carol", null);
+
+        assertTrue(directory.contains(1L));
+        assertTrue(directory.contains(4096L));
+        assertTrue(directory.contains(250_000L));
+        assertFalse(directory.contains(2L));
+        assertFalse(directory.contains(0L));
+        assertFalse(directory.contains(-1L));
+        assertFalse(directory.contains(Long.MAX_VALUE));
+
+        assertEquals(1, directory.roleOf(4096L));
+        assertEquals(0, directory.roleOf(250_000L));
+        assertEquals(-1, directory.roleOf(2L));
+        assertEquals("alice", directory.usernameOf(1L));
+        assertNull(directory.usernameOf(2L));
+        assertEquals(3, directory.size());
+    }
+
+    // 重复写入只更新不重复计数；超出上限的ID不进目录
+    @Test
+    public void testUpdateAndCapacityLimit() {
+        UserDirectory directory = new UserDirectory();
+        directory.put(7L, "dave", 0);
+        directory.put(7L, "dave", 1);
+        directory.put(2_000_000L, "erin", 0);
+
+        assertEquals(1, directory.size());
+        assertEquals(1, directory.roleOf(7L));
+        assertFalse(directory.contains(2_000_000L));
+    }
+}
@@ -0,0 +1,134 @@
+package com.checkin.cache;
+
+import com.checkin.entity.User;
+import com.checkin.mapper.UserMapper;
+import com.checkin.metrics.CacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserLookupCacheTest {
+
+    private final Map<String, User> users = new HashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    // 当前查询的用户名（桩Mapper不解析查询条件，由测试直接指定）
+    private String currentUsername;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightLoader loader;
+    private CacheMetrics cacheMetrics;
+    private UserMapper userMapper;
+    private UserLookupCache cache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cacheMetrics = new CacheMetrics();
+        ReflectionTestUtils.setField(cacheMetrics, "meterRegistry", meterRegistry);
+        loader = new SingleFlightLoader(1, 4);
+        ReflectionTestUtils.setField(loader, "cacheMetrics", cacheMetrics);
+
+        // 只实现selectOne的UserMapper：按查询条件里的用户名返回，记录查库次数
+        userMapper = (UserMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("selectOne")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    queries.incrementAndGet();
+                    return users.get(currentUsername);
+                });
+        cache = newCache(10000, 10000);
+    }
+
+    @AfterEach
+    public void teardown() {
+        loader.shutdown();
+    }
+
+    private User get(String username) {
+        currentUsername = username;
+        return cache.get(username);
+    }
+
+    // 存在的用户只查一次库，之后命中缓存
+    @Test
+    public void testFoundUserIsCached() {
+        users.put("alice", user(1L, "alice"));
+        assertEquals(1L, get("alice").getId());
+        assertEquals(1L, get("alice").getId());
+        assertEquals(1, queries.get());
+        assertEquals(1.0, meterRegistry.counter("checkin.cache.gets", "cache", "username", "result", "hit").count());
+    }
+
+    // 不存在的用户名也缓存；注册后失效，立即能查到新用户
+    @Test
+    public void testMissingUsernameIsCachedUntilInvalidated() {
+        assertNull(get("bob"));
+        assertNull(get("bob"));
+        assertEquals(1, queries.get());
+
+        users.put("bob", user(2L, "bob"));
+        cache.invalidate("bob");
+        assertEquals(2L, get("bob").getId());
+        assertEquals(2, queries.get());
+    }
+
+    // 不存在的用户名达到上限时只清空不存在的条目，存在的用户仍然命中
+    @Test
+    public void testNegativeEntriesDoNotEvictFoundUsers() {
+        cache = newCache(10000, 3);
+        users.put("alice", user(1L, "alice"));
+        get("alice");
+        for (int i = 0; i < 10; i++) {
+            assertNull(get("scan" + i));
+        }
+        assertTrue(cache.size() <= 1 + 3);
+        int before = queries.get();
+        assertNotNull(get("alice"));
+        assertEquals(before, queries.get());
+    }
+
+    // 存在的用户达到上限时只淘汰最久未使用的，持续登录的用户不用重新查库
+    @Test
+    public void testFullCacheEvictsLeastRecentlyUsed() {
+        cache = newCache(64, 10000);
+        users.put("alice", user(1L, "alice"));
+        get("alice");
+        for (long i = 0; i < 500; i++) {
+            users.put("user" + i, user(100 + i, "user" + i));
+            get("user" + i);
+            int before = queries.get();
+            assertNotNull(get("alice"));
+            assertEquals(before, queries.get());
+        }
+        assertEquals(64, cache.size());
+        int before = queries.get();
+        assertNotNull(get("user499"));
+        assertEquals(before, queries.get());
+        assertNotNull(get("user0"));
+        assertEquals(before + 1, queries.get());
+    }
+
+    private UserLookupCache newCache(int maxSize, int negativeMaxSize) {
+        UserLookupCache created = new UserLookupCache(maxSize, 60, negativeMaxSize, 10);
+        ReflectionTestUtils.setField(created, "userMapper", userMapper);
+        ReflectionTestUtils.setField(created, "singleFlightLoader", loader);
+        ReflectionTestUtils.setField(created, "cacheMetrics", cacheMetrics);
+        return created;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
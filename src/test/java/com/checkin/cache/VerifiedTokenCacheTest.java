@@ -0,0 +1,58 @@
+package com.checkin.cache;
+
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifiedTokenCacheTest {
+
+    // 已过期的token不缓存；命中后返回同一结果
+    @Test
+    public void testGetAndExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10000, 300);
+        JwtUtils.VerifiedToken valid = verified("alice", System.currentTimeMillis() + 60_000);
+        cache.put("t1", valid);
+        cache.put("t2", verified("bob", System.currentTimeMillis() - 1));
+
+        assertSame(valid, cache.get("t1"));
+        assertNull(cache.get("t2"));
+        assertNull(cache.get("t3"));
+    }
+
+    // 条目数不超过上限
+    @Test
+    public void testBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 300);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, verified("user" + i, expiresAt));
+            assertTrue(cache.size() <= 100);
+        }
+        assertNotNull(cache.get("token-999"));
+    }
+
+    // 缓存满时淘汰最久未使用的token，其余条目保留（不整体清空）
+    @Test
+    public void testFullCacheEvictsLeastRecentlyUsed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(64, 300);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        JwtUtils.VerifiedToken hot = verified("hot", expiresAt);
+        cache.put("hot-token", hot);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, verified("user" + i, expiresAt));
+            // 持续使用的token一直留在缓存中
+            assertSame(hot, cache.get("hot-token"));
+        }
+        assertEquals(64, cache.size());
+        assertNull(cache.get("token-0"));
+        for (int i = 1000 - 63; i < 1000; i++) {
+            assertNotNull(cache.get("token-" + i), "token-" + i);
+        }
+    }
+
+    private static JwtUtils.VerifiedToken verified(String username, long expiresAt) {
+        return new JwtUtils.VerifiedToken(new CheckinPrincipal(1L, username, 0), expiresAt);
+    }
+}
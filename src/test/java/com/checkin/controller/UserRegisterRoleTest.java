@@ -0,0 +1,158 @@
+package com.checkin.controller;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.entity.User;
+import com.checkin.mapper.UserMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自助注册不能获得管理员权限（进程内H2 + jedis-mock，与压测相同的启动方式）
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:registerrole;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "logging.level.root=WARN",
+        "checkin.rollup.cron=-",
+        // 测试默认关闭指标导出，打开Prometheus以校验其访问权限
+        "management.prometheus.metrics.export.enabled=true"
+})
+public class UserRegisterRoleTest {
+
+    private static RedisServer redisServer;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) throws IOException {
+        redisServer = RedisServer.newRedisServer();
+        redisServer.start();
+        registry.add("spring.data.redis.host", redisServer::getHost);
+        registry.add("spring.data.redis.port", redisServer::getBindPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    /**
+     * jedis-mock不支持RESP3握手（HELLO），固定使用RESP2
+     */
+    @TestConfiguration
+    static class Resp2Config {
+        @Bean
+        public LettuceClientConfigurationBuilderCustomizer resp2Customizer() {
+            return builder -> builder.clientOptions(ClientOptions.builder()
+                    .protocolVersion(ProtocolVersion.RESP2)
+                    .build());
+        }
+    }
+
+    // 注册请求里带role=1：保存为普通用户，登录后访问/admin/**返回403
+    @Test
+    public void testRegisteredUserCannotClaimAdmin() throws Exception {
+        HttpResponse<String> register = post("/user/register",
+                "{\"username\":\"role_probe\",\"password\":\"123456\",\"role\":1}", null);
+        assertEquals(200, objectMapper.readTree(register.body()).get("code").asInt(), register.body());
+        User saved = userMapper.selectOne(new QueryWrapper<User>().eq("username", "role_probe"));
+        assertEquals(0, saved.getRole());
+
+        String token = login("role_probe", "123456");
+        assertEquals(403, get("/admin/geofences", token).statusCode());
+    }
+
+    // 对照：数据库中指定的管理员可以访问/admin/**
+    @Test
+    public void testDatabaseAdminCanAccessAdmin() throws Exception {
+        User admin = new User();
+        admin.setUsername("role_admin");
+        admin.setPassword(passwordEncoder.encode("123456"));
+        admin.setRole(1);
+        userMapper.insert(admin);
+
+        String token = login("role_admin", "123456");
+        assertEquals(200, get("/admin/geofences", token).statusCode());
+    }
+
+    // Prometheus指标只对管理员开放，健康检查公开
+    @Test
+    public void testPrometheusRequiresAdmin() throws Exception {
+        User admin = new User();
+        admin.setUsername("metrics_admin");
+        admin.setPassword(passwordEncoder.encode("123456"));
+        admin.setRole(1);
+        userMapper.insert(admin);
+        post("/user/register", "{\"username\":\"metrics_user\",\"password\":\"123456\"}", null);
+
+        // 测试环境中部分健康指示可能为DOWN（503），只要返回了健康状态即说明无需登录
+        assertTrue(get("/actuator/health", null).body().contains("\"status\""));
+        assertNotEquals(200, get("/actuator/prometheus", null).statusCode());
+        assertEquals(403, get("/actuator/prometheus", login("metrics_user", "123456")).statusCode());
+        assertEquals(200, get("/actuator/prometheus", login("metrics_admin", "123456")).statusCode());
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpResponse<String> response = post("/user/login",
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}", null);
+        JsonNode body = objectMapper.readTree(response.body());
+        assertEquals(200, body.get("code").asInt(), response.body());
+        return body.get("data").asText();
+    }
+
+    private HttpResponse<String> post(String path, String json, String token) throws Exception {
+        HttpRequest.Builder builder = request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        return httpClient.send(request(path, token).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api" + path));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
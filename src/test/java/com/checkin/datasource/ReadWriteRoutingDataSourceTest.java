@@ -0,0 +1,156 @@
+package com.checkin.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离路由（两个内存H2实例分别充当主库和副本，各自一张node表记录自己的名字）
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private ReplicaNode replica;
+    private ReadWriteRoutingDataSource routing;
+    private ReplicaHealthChecker checker;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        String suffix = UUID.randomUUID().toString();
+        replica = new ReplicaNode("replica-0", database("replica_" + suffix, "replica"));
+        routing = new ReadWriteRoutingDataSource(database("primary_" + suffix, "primary"), List.of(replica));
+        checker = checker(routing, 0L);
+        jdbcTemplate = new JdbcTemplate(routing);
+    }
+
+    // 未检查前副本不可用；检查通过后只有读副本范围内才读副本，onPrimary可强制主库
+    @Test
+    public void testRouting() {
+        assertEquals("primary", RoutingContext.onReplica(this::currentNode));
+
+        assertEquals(1, checker.checkReplicas());
+        assertEquals("primary", currentNode());
+        assertEquals("replica", RoutingContext.onReplica(this::currentNode));
+        assertEquals("primary", RoutingContext.onReplica(() -> RoutingContext.onPrimary(this::currentNode)));
+    }
+
+    // 副本取连接失败时当场改用主库并下线，健康检查恢复后重新读副本
+    @Test
+    public void testFailoverToPrimary() {
+        String name = "lazy_" + UUID.randomUUID();
+        ReplicaNode lazy = new ReplicaNode("replica-1", dataSource("jdbc:h2:mem:" + name + ";IFEXISTS=TRUE"));
+        ReflectionTestUtils.setField(lazy, "available", true);
+        routing = new ReadWriteRoutingDataSource(database("primary_" + name, "primary"), List.of(lazy));
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        assertEquals("primary", RoutingContext.onReplica(this::currentNode));
+        assertFalse(lazy.isAvailable());
+        assertNotNull(lazy.getLastError());
+
+        database(name, "replica");
+        assertEquals(1, checker(routing, 0L).checkReplicas());
+        assertEquals("replica", RoutingContext.onReplica(this::currentNode));
+    }
+
+    // 复制延迟超过上限的副本不参与读取，延迟恢复后重新上线
+    @Test
+    public void testReplicaLagGuard() {
+        assertEquals(0, checker(routing, 30L).checkReplicas());
+        assertEquals("primary", RoutingContext.onReplica(this::currentNode));
+
+        assertEquals(1, checker(routing, 2L).checkReplicas());
+        assertEquals(2L, replica.getLagSeconds());
+        assertEquals("replica", RoutingContext.onReplica(this::currentNode));
+    }
+
+    // @ReplicaRead方法读副本；刚写入过的用户读主库
+    @Test
+    public void testReplicaReadInterceptor() {
+        checker.checkReplicas();
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker();
+        ReflectionTestUtils.setField(tracker, "windowSeconds", 60L);
+
+        ProxyFactory factory = new ProxyFactory(new Reader(jdbcTemplate));
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(null, ReplicaRead.class, true),
+                new ReplicaReadInterceptor(tracker)));
+        Reader reader = (Reader) factory.getProxy();
+
+        assertEquals("replica", reader.statsOf(1L));
+        assertEquals("primary", reader.write(1L));
+
+        tracker.markWritten(1L);
+        assertEquals("primary", reader.statsOf(1L));
+        assertEquals("replica", reader.statsOf(2L));
+        assertEquals("replica", reader.dashboard(1L));
+    }
+
+    public static class Reader {
+        private final JdbcTemplate jdbcTemplate;
+
+        public Reader(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @ReplicaRead
+        public String statsOf(Long userId) {
+            return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+        }
+
+        @ReplicaRead(userScoped = false)
+        public String dashboard(Long afterUserId) {
+            return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+        }
+
+        public String write(Long userId) {
+            return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+        }
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static ReplicaHealthChecker checker(ReadWriteRoutingDataSource routing, Long lagSeconds) {
+        ReplicaHealthChecker checker = new ReplicaHealthChecker() {
+            @Override
+            Long readLagSeconds(Connection connection) {
+                return lagSeconds;
+            }
+        };
+        ReflectionTestUtils.setField(checker, "routingDataSource", routing);
+        ReflectionTestUtils.setField(checker, "maxLagSeconds", 5L);
+        ReflectionTestUtils.setField(checker, "timeoutSeconds", 1);
+        return checker;
+    }
+
+    private static JdbcDataSource database(String name, String node) {
+        JdbcDataSource dataSource = dataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("CREATE TABLE node (name VARCHAR(20))");
+            connection.createStatement().execute("INSERT INTO node VALUES ('" + node + "')");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+
+    private static JdbcDataSource dataSource(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package com.checkin.db;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 引入迁移前的旧库（已有user、checkin_record，没有迁移记录）：记为V1后由V2及以后的脚本改造到当前表结构
+ */
+public class LegacySchemaMigrationTest {
+
+    @Test
+    public void testLegacyDatabaseIsUpgraded() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:legacy;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // 旧库：只有V1中的列，同一用户同一天有两条记录，另有一条没有打卡时间
+            statement.execute("CREATE TABLE `user` (id BIGINT NOT NULL AUTO_INCREMENT, username VARCHAR(20) NOT NULL,"
+                    + " password VARCHAR(100) NOT NULL, role INT, create_time DATETIME, PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE checkin_record (id BIGINT NOT NULL AUTO_INCREMENT, user_id BIGINT NOT NULL,"
+                    + " checkin_time DATETIME, location VARCHAR(100), status INT, latitude DOUBLE, longitude DOUBLE,"
+                    + " is_reissue INT, reissue_time DATETIME, reissue_reason VARCHAR(500), PRIMARY KEY (id))");
+            statement.execute("INSERT INTO `user` (username, password) VALUES ('alice', 'x')");
+            statement.execute("INSERT INTO checkin_record (user_id, checkin_time, status) VALUES"
+                    + " (1, '2025-03-01 08:00:00', 1), (1, '2025-03-01 09:00:00', 1),"
+                    + " (1, '2025-03-02 08:00:00', 1), (1, NULL, 1)");
+        }
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true).baselineVersion("1")
+                .load().migrate();
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            assertEquals(2, count(statement, "SELECT COUNT(*) FROM checkin_record"));
+            assertEquals(1, count(statement, "SELECT COUNT(*) FROM checkin_record"
+                    + " WHERE checkin_date = DATE '2025-03-01' AND checkin_time = TIMESTAMP '2025-03-01 08:00:00'"));
+            assertEquals(0, count(statement, "SELECT COUNT(*) FROM checkin_record WHERE is_reissue <> 0"));
+            // 重复和无日期的记录移到备查表，不丢弃
+            assertEquals(2, count(statement, "SELECT COUNT(*) FROM checkin_record_removed"));
+            assertEquals(0, count(statement, "SELECT COUNT(*) FROM `user` WHERE role <> 0"));
+            // 后续版本的新表已建立
+            assertEquals(0, count(statement, "SELECT COUNT(*) FROM checkin_summary"));
+            assertEquals(0, count(statement, "SELECT COUNT(*) FROM checkin_record_archive"));
+            // 每人每天一条由唯一键保证
+            assertThrows(SQLException.class, () -> statement.execute("INSERT INTO checkin_record"
+                    + " (user_id, checkin_time, checkin_date, status) VALUES (1, '2025-03-02 10:00:00', '2025-03-02', 1)"));
+        }
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.checkin.geofence;
+
+import com.checkin.entity.CheckinGeofence;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeofenceIndexTest {
+
+    // 凹多边形（L形）：凹口内的点不算在区域内
+    @Test
+    public void testConcavePolygon() {
+        Geofence fence = Geofence.polygon(1, "L形教学楼",
+                new double[]{23.000, 23.000, 23.001, 23.001, 23.002, 23.002},
+                new double[]{113.000, 113.002, 113.002, 113.001, 113.001, 113.000});
+        assertTrue(fence.contains(23.0005, 113.0015));
+        assertTrue(fence.contains(23.0015, 113.0005));
+        assertFalse(fence.contains(23.0015, 113.0015));
+        assertFalse(fence.contains(22.9999, 113.0005));
+    }
+
+    // 圆形区域按米计算半径
+    @Test
+    public void testCircle() {
+        Geofence fence = Geofence.circle(1, "操场", 23.0, 113.0, 100);
+        assertTrue(fence.contains(23.0008, 113.0));   // 约89米
+        assertFalse(fence.contains(23.0010, 113.0));  // 约111米
+        assertTrue(fence.contains(23.0, 113.0009));   // 约92米（经度方向按纬度缩放）
+    }
+
+    // 嵌套区域返回面积最小的；跨网格区域在每个网格都能命中；大区域兜底
+    @Test
+    public void testMatchPrefersSmallestFence() {
+        Geofence city = Geofence.box(0, "默认打卡区域", 22.0, 24.0, 112.0, 115.0);
+        Geofence campus = Geofence.box(1, "校园", 23.000, 23.030, 113.000, 113.030);
+        Geofence dorm = Geofence.circle(2, "宿舍", 23.015, 113.015, 50);
+        GeofenceIndex index = GeofenceIndex.build(List.of(city, campus, dorm), 0.01);
+
+        assertSame(dorm, index.match(23.015, 113.015));
+        assertSame(campus, index.match(23.001, 113.029));
+        assertSame(campus, index.match(23.025, 113.005));
+        assertSame(city, index.match(23.5, 114.0));
+        assertNull(index.match(30.0, 120.0));
+    }
+
+    // 随机区域与查询点：索引结果与逐个判断完全一致
+    @Test
+    public void testIndexMatchesLinearScan() {
+        Random random = new Random(7);
+        List<Geofence> fences = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double lat = 23.0 + random.nextDouble() * 0.1;
+            double lng = 113.0 + random.nextDouble() * 0.1;
+            double size = 0.001 + random.nextDouble() * 0.02;
+            fences.add(i % 2 == 0
+                    ? Geofence.circle(i, "c" + i, lat, lng, size * 111_320)
+                    : Geofence.polygon(i, "p" + i, new double[]{lat, lat + size, lat + size / 2},
+                    new double[]{lng, lng + size / 3, lng + size}));
+        }
+        GeofenceIndex index = GeofenceIndex.build(fences, 0.005);
+
+        for (int i = 0; i < 20_000; i++) {
+            double lat = 22.99 + random.nextDouble() * 0.14;
+            double lng = 112.99 + random.nextDouble() * 0.14;
+            Geofence expected = null;
+            for (Geofence fence : fences) {
+                if (fence.contains(lat, lng) && (expected == null || fence.getArea() < expected.getArea())) {
+                    expected = fence;
+                }
+            }
+            assertSame(expected, index.match(lat, lng), lat + "," + lng);
+        }
+    }
+
+    // 区域表记录转换：顶点字符串解析、格式错误报错
+    @Test
+    public void testToGeofence() {
+        CheckinGeofence row = new CheckinGeofence();
+        row.setId(5L);
+        row.setName("图书馆");
+        row.setShape("POLYGON");
+        row.setPoints("23.0,113.0; 23.0,113.01; 23.01,113.01 ;23.01,113.0");
+        Geofence fence = GeofenceRegistry.toGeofence(row);
+        assertEquals(5L, fence.getId());
+        assertTrue(fence.contains(23.005, 113.005));
+
+        row.setPoints("23.0,113.0;23.0");
+        assertThrows(IllegalArgumentException.class, () -> GeofenceRegistry.toGeofence(row));
+        row.setShape("CIRCLE");
+        assertThrows(IllegalArgumentException.class, () -> GeofenceRegistry.toGeofence(row));
+    }
+}
@@ -0,0 +1,75 @@
+package com.checkin.ingest;
+
+import com.checkin.entity.CheckinRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckinJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // 未推进checkpoint的记录在重新打开后全部重放，字段完整
+    @Test
+    public void testReplayAfterReopen() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2025, 12, 20, 7, 55, 3, 123_000_000);
+        try (CheckinJournal journal = new CheckinJournal(dir, 0, false)) {
+            assertEquals(1, journal.append(record(1L, time, "教学楼A", 23.1, 113.2)));
+            assertEquals(2, journal.append(record(2L, time, "宿舍", null, null)));
+            assertEquals(3, journal.append(record(3L, time, "操场", 22.9, 113.4)));
+            journal.commit(1);
+        }
+
+        try (CheckinJournal journal = new CheckinJournal(dir, 0, false)) {
+            List<CheckinJournal.Entry> entries = journal.takeUnflushed();
+            assertEquals(2, entries.size());
+            CheckinRecord replayed = entries.get(0).getRecord();
+            assertEquals(2L, entries.get(0).getSeq());
+            assertEquals(2L, replayed.getUserId());
+            assertEquals(time, replayed.getCheckinTime());
+            assertEquals("宿舍", replayed.getLocation());
+            assertNull(replayed.getLatitude());
+            assertEquals(22.9, entries.get(1).getRecord().getLatitude());
+
+            // 序号在重启后继续递增
+            assertEquals(4, journal.append(record(4L, time, "图书馆", null, null)));
+        }
+    }
+
+    // 写满一段后切换新段；全部入库后旧段被删除
+    @Test
+    public void testRollAndDeleteCommittedSegments() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2025, 12, 20, 8, 0);
+        long lastSeq = 0;
+        try (CheckinJournal journal = new CheckinJournal(dir, 64 * 1024, false)) {
+            for (int i = 0; i < 2000; i++) {
+                lastSeq = journal.append(record((long) i, time, "教学楼A", 23.1, 113.2));
+            }
+            assertTrue(journal.segments().size() > 1);
+
+            journal.commit(lastSeq);
+            assertEquals(1, journal.segments().size());
+        }
+
+        try (CheckinJournal journal = new CheckinJournal(dir, 64 * 1024, false)) {
+            assertTrue(journal.takeUnflushed().isEmpty());
+            assertEquals(lastSeq, journal.getCommittedSeq());
+        }
+    }
+
+    private static CheckinRecord record(Long userId, LocalDateTime time, String location, Double lat, Double lng) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(time);
+        record.setLocation(location);
+        record.setLatitude(lat);
+        record.setLongitude(lng);
+        return record;
+    }
+}
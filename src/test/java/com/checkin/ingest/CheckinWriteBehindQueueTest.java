@@ -0,0 +1,142 @@
+package com.checkin.ingest;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.config.ShardingConfig;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ModuloShardFunction;
+import com.checkin.shard.ShardDirectory;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 打卡异步写入队列（内存H2单分片，预写日志写入临时目录）
+ */
+public class CheckinWriteBehindQueueTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 12, 20, 7, 55);
+
+    @TempDir
+    Path dir;
+
+    private final List<CheckinPersistedEvent> events = new CopyOnWriteArrayList<>();
+    private CheckinRecordShards shards;
+    private CheckinWriteBehindQueue queue;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MybatisPlusProperties properties = new MybatisPlusProperties();
+        properties.setMapperLocations(new String[]{"classpath:mapper/**/*.xml"});
+        properties.setTypeAliasesPackage("com.checkin.entity");
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        properties.setConfiguration(configuration);
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:writebehind_" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        CheckinShard shard = ShardingConfig.createShard(0, dataSource, ShardingConfig.createSqlSession(dataSource, properties));
+        shards = new CheckinRecordShards(List.of(shard), new ModuloShardFunction(), new ShardDirectory());
+
+        queue = new CheckinWriteBehindQueue();
+        ReflectionTestUtils.setField(queue, "checkinRecordShards", shards);
+        ReflectionTestUtils.setField(queue, "eventPublisher",
+                (ApplicationEventPublisher) event -> events.add((CheckinPersistedEvent) event));
+        ReflectionTestUtils.setField(queue, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(queue, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(queue, "forceOnAppend", false);
+        ReflectionTestUtils.setField(queue, "flushSize", 10);
+        ReflectionTestUtils.setField(queue, "flushIntervalMs", 20L);
+        ReflectionTestUtils.setField(queue, "maxPending", 100);
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        queue.stop();
+        shards.close();
+    }
+
+    // 入库回填的ID写在队列内的副本上，调用方（已返回给客户端）的对象不被修改
+    @Test
+    public void testOfferDoesNotMutateCallerRecord() throws Exception {
+        queue.start();
+        CheckinRecord record = record(1L);
+        assertTrue(queue.offer(record));
+
+        awaitEvents(1);
+        assertNull(record.getId());
+        assertEquals(1, count(1L));
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    // 上次已入库但未推进checkpoint：重放时唯一键冲突，不重复入库，仍发布入库事件
+    @Test
+    public void testReplayedDuplicatePublishesEvent() throws Exception {
+        try (CheckinJournal journal = new CheckinJournal(dir, 0, false)) {
+            journal.append(record(1L));
+        }
+        shards.recordMapper(1L).insert(record(1L));
+
+        queue.start();
+        awaitEvents(1);
+        assertEquals(1L, events.get(0).getUserId());
+        assertEquals(TIME.toLocalDate(), events.get(0).getCheckinDate());
+        assertEquals(1, count(1L));
+    }
+
+    // 对照：新接收的记录当天已有打卡时不入库，也不发布事件
+    @Test
+    public void testNewDuplicateIsSkipped() throws Exception {
+        shards.recordMapper(1L).insert(record(1L));
+        queue.start();
+        assertTrue(queue.offer(record(1L)));
+        assertTrue(queue.offer(record(2L)));
+
+        awaitEvents(1);
+        Thread.sleep(200);
+        assertEquals(1, events.size());
+        assertEquals(2L, events.get(0).getUserId());
+        assertEquals(1, count(1L));
+    }
+
+    private void awaitEvents(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (events.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, events.size());
+    }
+
+    private long count(Long userId) {
+        return shards.recordMapper(userId).selectCount(new QueryWrapper<CheckinRecord>().eq("user_id", userId));
+    }
+
+    private static CheckinRecord record(Long userId) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(TIME);
+        record.setCheckinDate(TIME.toLocalDate());
+        record.setLocation("教学楼");
+        record.setStatus(1);
+        record.setIsReissue(0);
+        return record;
+    }
+}
@@ -0,0 +1,350 @@
+package com.checkin.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 早高峰打卡压测（默认不运行，mvn -Ploadtest test）
+ * 进程内启动应用 + H2（MySQL兼容模式，表结构由Flyway执行db/migration/h2建立，同一个库兼作只读副本，另一个库作为第二个打卡记录分片）+ jedis-mock，不依赖任何外部服务。
+ * 流程：注册N个用户并登录，然后并发回放每个用户的早高峰请求序列：
+ * 打卡POST -> 今日状态GET -> 连续天数GET -> 统计GET，
+ * 输出各步骤吞吐量、延迟分位数和错误率（同时写入target/loadtest-report.txt，便于版本间对比）
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=32",
+        // 同一个库再配置为只读副本（无复制延迟），统计类查询走副本连接池
+        "checkin.datasource.replicas[0].url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "checkin.datasource.replicas[0].driver-class-name=org.h2.Driver",
+        "checkin.datasource.replicas[0].username=sa",
+        "checkin.datasource.replicas[0].hikari.maximum-pool-size=16",
+        // 第二个打卡记录分片（独立的库，启动时由Flyway建表），一半用户的打卡记录写到这里
+        "checkin.sharding.shards[0].url=jdbc:h2:mem:loadtest_shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "checkin.sharding.shards[0].driver-class-name=org.h2.Driver",
+        "checkin.sharding.shards[0].username=sa",
+        "checkin.sharding.shards[0].hikari.maximum-pool-size=16",
+        "spring.flyway.enabled=true",
+        "mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+        "logging.level.root=WARN",
+        "checkin.rollup.cron=-"
+})
+public class MorningBurstLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 200);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    // 允许的最大错误率
+    private static final double MAX_ERROR_RATE = 0.0;
+
+    private static final String[] STEPS = {"checkin", "today", "continuous", "stats"};
+
+    private static RedisServer redisServer;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) throws IOException {
+        redisServer = RedisServer.newRedisServer();
+        redisServer.start();
+        registry.add("spring.data.redis.host", redisServer::getHost);
+        registry.add("spring.data.redis.port", redisServer::getBindPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    /**
+     * jedis-mock不支持RESP3握手（HELLO），固定使用RESP2
+     */
+    @TestConfiguration
+    static class Resp2Config {
+        @Bean
+        public LettuceClientConfigurationBuilderCustomizer resp2Customizer() {
+            return builder -> builder.clientOptions(ClientOptions.builder()
+                    .protocolVersion(ProtocolVersion.RESP2)
+                    .build());
+        }
+    }
+
+    @Test
+    public void morningBurst() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            // 1. 准备：注册并登录（BCrypt开销单独统计，不计入早高峰）
+            StepStats register = new StepStats("register", USERS);
+            StepStats login = new StepStats("login", USERS);
+            List<Future<Session>> prepared = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                String username = "lt_user_" + i;
+                prepared.add(pool.submit(() -> prepare(username, register, login)));
+            }
+            List<Session> sessions = new ArrayList<>(USERS);
+            for (Future<Session> future : prepared) {
+                Session session = future.get();
+                if (session != null) {
+                    sessions.add(session);
+                }
+            }
+            assertEquals(USERS, sessions.size(), "部分用户注册或登录失败");
+
+            // 2. 早高峰：每个用户依次执行打卡、查询今日状态、连续天数、统计
+            StepStats[] burst = new StepStats[STEPS.length];
+            for (int i = 0; i < STEPS.length; i++) {
+                burst[i] = new StepStats(STEPS[i], USERS);
+            }
+            long begin = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(sessions.size());
+            for (Session session : sessions) {
+                futures.add(pool.submit(() -> replay(session, burst)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - begin;
+
+            String report = report(register, login, burst, elapsedNanos);
+            System.out.println(report);
+            Path output = Paths.get("target", "loadtest-report.txt");
+            Files.createDirectories(output.getParent());
+            Files.writeString(output, report, StandardCharsets.UTF_8);
+
+            for (StepStats step : burst) {
+                assertTrue(step.errorRate() <= MAX_ERROR_RATE,
+                        step.name + "错误率" + step.errorRate() + "，首个错误：" + step.firstError);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ========== 请求序列 ==========
+
+    private Session prepare(String username, StepStats register, StepStats login) {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"123456\"}";
+        JsonNode registered = call(register, post("/user/register", credentials, null));
+        if (registered == null) {
+            return null;
+        }
+        JsonNode loggedIn = call(login, post("/user/login", credentials, null));
+        if (loggedIn == null) {
+            return null;
+        }
+        String token = loggedIn.get("data").asText();
+        return new Session(userIdOf(token), token);
+    }
+
+    private void replay(Session session, StepStats[] burst) {
+        String body = "{\"location\":\"教学楼A\",\"latitude\":23.1,\"longitude\":113.3}";
+        call(burst[0], post("/checkin", body, session.token));
+
+        JsonNode today = call(burst[1], get("/checkin/today/" + session.userId, session.token));
+        if (today != null && !today.path("data").asBoolean()) {
+            burst[1].error("打卡后今日状态仍为未打卡：" + today);
+        }
+        call(burst[2], get("/checkin/continuous/" + session.userId, session.token));
+        call(burst[3], get("/checkin/stats/" + session.userId, session.token));
+    }
+
+    /**
+     * 发送请求并计时；HTTP状态非200或Result.code非200计为错误
+     * @return 响应体；失败时返回null
+     */
+    private JsonNode call(StepStats stats, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long nanos = System.nanoTime() - start;
+            JsonNode body = response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+            if (body == null || body.path("code").asInt() != 200) {
+                stats.record(nanos, false);
+                stats.error(response.statusCode() + " " + response.body());
+                return null;
+            }
+            stats.record(nanos, true);
+            return body;
+        } catch (Exception e) {
+            stats.record(System.nanoTime() - start, false);
+            stats.error(e.toString());
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + "/api" + path);
+    }
+
+    /**
+     * 从令牌载荷中读取用户ID（客户端视角，不查库）
+     */
+    private long userIdOf(String token) {
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.split("\\.")[1]);
+            return objectMapper.readTree(payload).get("uid").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法解析令牌", e);
+        }
+    }
+
+    // ========== 统计与报告 ==========
+
+    private static String report(StepStats register, StepStats login, StepStats[] burst, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long requests = 0;
+        for (StepStats step : burst) {
+            requests += step.count();
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n===== 早高峰打卡压测：%d用户，并发%d =====%n", USERS, CONCURRENCY));
+        sb.append(String.format("早高峰总耗时%.2fs，%d个请求，吞吐量%.1f req/s%n", seconds, requests, requests / seconds));
+        sb.append(String.format("%-12s %8s %8s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (StepStats step : new StepStats[]{register, login}) {
+            sb.append(step.line());
+        }
+        for (StepStats step : burst) {
+            sb.append(step.line());
+        }
+        return sb.toString();
+    }
+
+    private static final class Session {
+        private final long userId;
+        private final String token;
+
+        private Session(long userId, String token) {
+            this.userId = userId;
+            this.token = token;
+        }
+    }
+
+    /**
+     * 单个步骤的延迟样本与错误计数
+     */
+    private static final class StepStats {
+        private final String name;
+        private final AtomicLongArray samples;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final ConcurrentHashMap<String, Boolean> errorMessages = new ConcurrentHashMap<>();
+        private volatile String firstError;
+
+        private StepStats(String name, int capacity) {
+            this.name = name;
+            this.samples = new AtomicLongArray(capacity);
+        }
+
+        private void record(long nanos, boolean success) {
+            long index = count.getAndIncrement();
+            if (index < samples.length()) {
+                samples.set((int) index, nanos);
+            }
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void error(String message) {
+            if (firstError == null) {
+                firstError = message;
+            }
+            errorMessages.putIfAbsent(message, Boolean.TRUE);
+        }
+
+        private long count() {
+            return count.get();
+        }
+
+        private double errorRate() {
+            return count.get() == 0 ? 0 : (double) errors.get() / count.get();
+        }
+
+        private String line() {
+            int n = (int) Math.min(count.get(), samples.length());
+            long[] sorted = new long[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            return String.format("%-12s %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, count.get(), errors.get(),
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.checkin.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    public void teardown() {
+        hasher.shutdown();
+    }
+
+    // 加密、校验在线程池执行，记录排队耗时
+    @Test
+    public void testEncodeAndMatches() throws Exception {
+        hasher = hasher(new BCryptPasswordEncoder(4), 2, 10);
+        String encoded = hasher.encode("123456").get(5, TimeUnit.SECONDS);
+        assertTrue(hasher.matches("123456", encoded).get(5, TimeUnit.SECONDS));
+        assertFalse(hasher.matches("654321", encoded).get(5, TimeUnit.SECONDS));
+        assertEquals(2, meterRegistry.timer("checkin.auth.password.queue", "operation", "matches").count());
+    }
+
+    // 线程和队列都占满后立即失败，不阻塞调用线程
+    @Test
+    public void testRejectWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        hasher = hasher(blocking, 1, 1);
+        CompletableFuture<String> running = hasher.encode("a");
+        CompletableFuture<String> queued = hasher.encode("b");
+        CompletableFuture<String> rejected = hasher.encode("c");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1.0, meterRegistry.counter("checkin.auth.password.rejected").count());
+
+        release.countDown();
+        assertNotNull(running.get(5, TimeUnit.SECONDS));
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    // 低于当前强度的已存储密码需要重新加密
+    @Test
+    public void testNeedsRehash() {
+        hasher = hasher(new BCryptPasswordEncoder(5), 1, 1);
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("123456")));
+        assertFalse(hasher.needsRehash(new BCryptPasswordEncoder(5).encode("123456")));
+    }
+
+    private PasswordHasher hasher(PasswordEncoder encoder, int threads, int queueSize) {
+        meterRegistry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(threads, queueSize);
+        ReflectionTestUtils.setField(hasher, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hasher, "meterRegistry", meterRegistry);
+        hasher.init();
+        return hasher;
+    }
+}
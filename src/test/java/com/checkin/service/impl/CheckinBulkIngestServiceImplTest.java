@@ -0,0 +1,311 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.cache.UserDirectory;
+import com.checkin.common.Result;
+import com.checkin.config.ShardingConfig;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.ingest.CheckinPersistedEvent;
+import com.checkin.mapper.UserMapper;
+import com.checkin.security.CheckinPrincipal;
+import com.checkin.service.CheckinCalendarService;
+import com.checkin.service.CheckinGateService;
+import com.checkin.service.CheckinRecordService;
+import com.checkin.service.UncheckedUserService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ModuloShardFunction;
+import com.checkin.shard.ShardDirectory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 离线打卡批量导入（2个内存H2分片，按Flyway脚本建表；闸门用内存实现）
+ */
+public class CheckinBulkIngestServiceImplTest {
+
+    private static final int SHARD_COUNT = 2;
+
+    private final CheckinPrincipal admin = new CheckinPrincipal(1L, "admin", CheckinPrincipal.ROLE_ADMIN);
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final List<CheckinPersistedEvent> events = new ArrayList<>();
+
+    private CheckinRecordShards shards;
+    private CheckinBulkIngestServiceImpl ingestService;
+    private MemoryGate gate;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MybatisPlusProperties properties = new MybatisPlusProperties();
+        properties.setMapperLocations(new String[]{"classpath:mapper/**/*.xml"});
+        properties.setTypeAliasesPackage("com.checkin.entity");
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        properties.setConfiguration(configuration);
+
+        List<CheckinShard> list = new ArrayList<>();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:bulk_" + i + "_" + UUID.randomUUID()
+                    + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+            list.add(ShardingConfig.createShard(i, dataSource, ShardingConfig.createSqlSession(dataSource, properties)));
+        }
+        shards = new CheckinRecordShards(list, new ModuloShardFunction(), new ShardDirectory());
+
+        // 用户1~4在目录中；目录未命中的用户查库也查不到
+        UserDirectory userDirectory = new UserDirectory();
+        for (long userId = 1; userId <= 4; userId++) {
+            userDirectory.put(userId, "user" + userId, 0);
+        }
+        UserMapper userMapper = stub(UserMapper.class, "selectList", Collections.emptyList());
+        // 地点校验由CheckinRecordService负责，这里一律通过
+        CheckinRecordService recordService = stub(CheckinRecordService.class, "validateCheckinRecord", Result.success());
+        gate = new MemoryGate();
+
+        ingestService = new CheckinBulkIngestServiceImpl();
+        ReflectionTestUtils.setField(ingestService, "checkinRecordService", recordService);
+        ReflectionTestUtils.setField(ingestService, "checkinRecordShards", shards);
+        ReflectionTestUtils.setField(ingestService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(ingestService, "userDirectory", userDirectory);
+        ReflectionTestUtils.setField(ingestService, "checkinGateService", gate);
+        ReflectionTestUtils.setField(ingestService, "checkinCalendarService", stub(CheckinCalendarService.class, "markCheckin", null));
+        ReflectionTestUtils.setField(ingestService, "uncheckedUserService", stub(UncheckedUserService.class, "onCheckin", null));
+        ReflectionTestUtils.setField(ingestService, "eventPublisher",
+                (ApplicationEventPublisher) event -> events.add((CheckinPersistedEvent) event));
+        ReflectionTestUtils.setField(ingestService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(ingestService, "chunkSize", 2);
+        ReflectionTestUtils.setField(ingestService, "maxOfflineHours", 24);
+    }
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+    }
+
+    // 每块处理完立即写出该块结果；结果与非空行一一对应，行号从1开始
+    @Test
+    public void testChunking() throws Exception {
+        FlushRecordingStream out = new FlushRecordingStream();
+        ingestService.ingest(admin, body(
+                item(1L, null), item(2L, null), "", item(3L, null), item(4L, null), item(1L, yesterday())), out);
+
+        List<JsonNode> results = results(out);
+        assertEquals(5, results.size());
+        assertEquals(List.of(1, 2, 4, 5, 6), results.stream().map(r -> r.get("line").asInt()).toList());
+        assertTrue(results.stream().allMatch(r -> r.get("success").asBoolean()), results.toString());
+        // 每2条一块：块结果分3次发送，最后再整体flush一次
+        assertEquals(List.of(2, 4, 5, 5), out.linesAtFlush);
+        assertEquals(4, count(LocalDate.now()));
+        assertEquals(5, events.size());
+    }
+
+    // 超长行跳过并返回失败，不影响后面的行
+    @Test
+    public void testTooLongLine() throws Exception {
+        String tooLong = "{\"location\":\"" + "x".repeat(5000) + "\"}";
+        List<JsonNode> results = ingest(tooLong, item(2L, null));
+
+        assertFalse(results.get(0).get("success").asBoolean());
+        assertTrue(results.get(0).get("msg").asText().contains("4096"), results.get(0).toString());
+        assertTrue(results.get(1).get("success").asBoolean(), results.get(1).toString());
+        assertEquals(2, results.get(1).get("line").asInt());
+    }
+
+    // 少量超前（时钟偏差内）按当前时间处理；超前太多或超过离线时长的拒绝
+    @Test
+    public void testCheckinTimeWindow() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        List<JsonNode> results = ingest(
+                item(1L, now.plusMinutes(3)), item(2L, now.plusMinutes(10)), item(3L, now.minusHours(25)));
+
+        assertTrue(results.get(0).get("success").asBoolean(), results.get(0).toString());
+        CheckinRecord saved = shards.recordMapper(1L).selectOne(new QueryWrapper<CheckinRecord>().eq("user_id", 1L));
+        assertFalse(saved.getCheckinTime().isAfter(LocalDateTime.now()));
+        assertEquals("打卡时间不能晚于当前时间", results.get(1).get("msg").asText());
+        assertTrue(results.get(2).get("msg").asText().contains("24小时"), results.get(2).toString());
+    }
+
+    // 同一块内同一用户同一天只保留第一条；库中已有的也拦截
+    @Test
+    public void testDuplicates() throws Exception {
+        LocalDateTime yesterday = yesterday();
+        insert(3L, yesterday);
+        List<JsonNode> results = ingest(item(2L, yesterday), item(2L, yesterday.plusMinutes(10)), item(3L, yesterday));
+
+        assertTrue(results.get(0).get("success").asBoolean());
+        assertEquals("该日期已打卡，请勿重复操作", results.get(1).get("msg").asText());
+        assertEquals("该日期已打卡，请勿重复操作", results.get(2).get("msg").asText());
+        assertEquals(2, count(yesterday.toLocalDate()));
+    }
+
+    // 只有今天的记录占用闸门；闸门已被占用的拒绝；写库失败时释放闸门，重复时保留
+    @Test
+    public void testGate() throws Exception {
+        LocalDate today = LocalDate.now();
+        gate.acquired.add(4L);
+        List<JsonNode> results = ingest(item(1L, null), item(2L, yesterday()), item(4L, null));
+
+        assertTrue(results.get(0).get("success").asBoolean());
+        assertTrue(results.get(1).get("success").asBoolean());
+        assertEquals("该日期已打卡，请勿重复操作", results.get(2).get("msg").asText());
+        assertEquals(List.of(1L, 4L), gate.tryAcquired);
+        assertTrue(gate.released.isEmpty());
+
+        // 地点超过列长度：批量和逐条写入都失败，闸门释放后可以重新打卡
+        String badLocation = "{\"userId\":3,\"location\":\"" + "长".repeat(101) + "\"}";
+        results = ingest(badLocation);
+        assertEquals("导入失败，请重试", results.get(0).get("msg").asText());
+        assertEquals(List.of(3L), gate.released);
+        assertFalse(gate.acquired.contains(3L));
+        assertEquals(1, count(today));
+    }
+
+    // 写入前被并发打卡抢先：多行INSERT触发唯一约束后逐条写入，只有冲突的那条失败
+    @Test
+    public void testBatchFallsBackToSingleInserts() throws Exception {
+        // 用户2、4在同一分片；闸门放行用户4的同时插入一条当天记录，模拟校验之后才入库的正常打卡
+        gate.onAcquire = (userId, date) -> {
+            if (userId == 4L) {
+                insert(4L, date.atTime(7, 0));
+            }
+        };
+        List<JsonNode> results = ingest(item(2L, null), item(4L, null));
+
+        assertTrue(results.get(0).get("success").asBoolean(), results.get(0).toString());
+        assertTrue(results.get(0).hasNonNull("recordId"));
+        assertEquals("该日期已打卡，请勿重复操作", results.get(1).get("msg").asText());
+        assertEquals(2, count(LocalDate.now()));
+        assertEquals(1, events.size());
+        assertEquals(2L, events.get(0).getUserId());
+        assertTrue(gate.released.isEmpty());
+    }
+
+    // ========== 工具方法 ==========
+
+    private List<JsonNode> ingest(String... lines) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ingestService.ingest(admin, body(lines), out);
+        return results(out);
+    }
+
+    private static ByteArrayInputStream body(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> results(ByteArrayOutputStream out) throws Exception {
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private String item(Long userId, LocalDateTime checkinTime) {
+        return "{\"clientId\":\"c" + userId + "\",\"userId\":" + userId + ",\"location\":\"教学楼\""
+                + (checkinTime == null ? "" : ",\"checkinTime\":\"" + checkinTime + "\"") + "}";
+    }
+
+    // 昨天的时间，仍在24小时离线时长内
+    private static LocalDateTime yesterday() {
+        return LocalDateTime.now().minusDays(1).plusMinutes(30);
+    }
+
+    private void insert(Long userId, LocalDateTime time) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(time);
+        record.setCheckinDate(time.toLocalDate());
+        record.setLocation("教学楼");
+        record.setStatus(1);
+        record.setIsReissue(0);
+        shards.recordMapper(userId).insert(record);
+    }
+
+    private long count(LocalDate date) {
+        long total = 0;
+        for (Long count : shards.fanOut(shard -> shard.getRecordMapper()
+                .selectCount(new QueryWrapper<CheckinRecord>().eq("checkin_date", date)))) {
+            total += count;
+        }
+        return total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> type, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!method.getName().equals(methodName)) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 内存闸门：记录占用和释放的用户
+     */
+    private static final class MemoryGate implements CheckinGateService {
+        private final Set<Long> acquired = new HashSet<>();
+        private final List<Long> tryAcquired = new ArrayList<>();
+        private final List<Long> released = new ArrayList<>();
+        private BiConsumer<Long, LocalDate> onAcquire = (userId, date) -> {
+        };
+
+        @Override
+        public GateResult tryAcquire(Long userId, LocalDate date) {
+            tryAcquired.add(userId);
+            if (!acquired.add(userId)) {
+                return GateResult.DUPLICATE;
+            }
+            onAcquire.accept(userId, date);
+            return GateResult.ACQUIRED;
+        }
+
+        @Override
+        public void release(Long userId, LocalDate date) {
+            released.add(userId);
+            acquired.remove(userId);
+        }
+    }
+
+    /**
+     * 记录每次flush时已写出的结果行数
+     */
+    private static final class FlushRecordingStream extends ByteArrayOutputStream {
+        private final List<Integer> linesAtFlush = new ArrayList<>();
+
+        @Override
+        public void flush() {
+            linesAtFlush.add((int) toString(StandardCharsets.UTF_8).chars().filter(c -> c == '\n').count());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.checkin.config.ShardingConfig;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.service.CheckinExportService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ModuloShardFunction;
+import com.checkin.shard.ShardDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 打卡记录导出（内存H2，按Flyway脚本建表，通过游标流式读取）
+ */
+public class CheckinExportServiceImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private CheckinRecordShards shards;
+    private CheckinExportServiceImpl exportService;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MybatisPlusProperties properties = new MybatisPlusProperties();
+        properties.setMapperLocations(new String[]{"classpath:mapper/**/*.xml"});
+        properties.setTypeAliasesPackage("com.checkin.entity");
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        properties.setConfiguration(configuration);
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:export_" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        CheckinShard shard = ShardingConfig.createShard(0, dataSource, ShardingConfig.createSqlSession(dataSource, properties));
+        shards = new CheckinRecordShards(List.of(shard), new ModuloShardFunction(), new ShardDirectory());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        exportService = new CheckinExportServiceImpl();
+        ReflectionTestUtils.setField(exportService, "checkinRecordShards", shards);
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+    }
+
+    // CSV按打卡时间升序逐行写出，只包含该用户的记录；含逗号的字段加引号
+    @Test
+    public void testCsvExport() throws Exception {
+        insert(1L, DAY, "教学楼");
+        insert(1L, DAY.plusDays(1), "图书馆,二楼");
+        insert(2L, DAY, "教学楼");
+
+        String[] lines = export(1L, CheckinExportService.ExportFormat.CSV).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("﻿id,user_id,checkin_time"));
+        assertTrue(lines[1].contains(",2024-03-01,教学楼,"), lines[1]);
+        assertTrue(lines[2].contains(",2024-03-02,\"图书馆,二楼\","), lines[2]);
+    }
+
+    // NDJSON每行一条记录；没有记录时输出为空
+    @Test
+    public void testNdjsonExport() throws Exception {
+        insert(1L, DAY, "教学楼");
+        insert(1L, DAY.plusDays(1), "图书馆");
+
+        String[] lines = export(1L, CheckinExportService.ExportFormat.NDJSON).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"location\":\"教学楼\""), lines[0]);
+        assertTrue(lines[1].contains("\"location\":\"图书馆\""), lines[1]);
+        assertEquals("", export(3L, CheckinExportService.ExportFormat.NDJSON));
+    }
+
+    // 归档记录排在热表记录之前，两部分都完整写出
+    @Test
+    public void testExportMergesArchive() throws Exception {
+        insert(1L, DAY, "教学楼");
+        insert(1L, DAY.plusDays(1), "图书馆");
+        insert(1L, DAY.plusDays(40), "食堂");
+        CheckinShard shard = shards.shard(0);
+        List<Long> ids = shard.getArchiveMapper().selectArchivableIds(DAY.plusDays(2), 100);
+        assertEquals(2, shard.getArchiveMapper().copyToArchive(ids));
+        assertEquals(2, shard.getArchiveMapper().deleteFromHot(ids, DAY.plusDays(2)));
+
+        String[] lines = export(1L, CheckinExportService.ExportFormat.CSV).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].contains(",2024-03-01,"), lines[1]);
+        assertTrue(lines[2].contains(",2024-03-02,"), lines[2]);
+        assertTrue(lines[3].contains(",2024-04-10,"), lines[3]);
+    }
+
+    private String export(Long userId, CheckinExportService.ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeUserCheckins(userId, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void insert(Long userId, LocalDate date, String location) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(date.atTime(8, 0));
+        record.setCheckinDate(date);
+        record.setLocation(location);
+        record.setStatus(1);
+        record.setIsReissue(0);
+        shards.recordMapper(userId).insert(record);
+    }
+}
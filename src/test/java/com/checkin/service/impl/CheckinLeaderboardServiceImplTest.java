@@ -0,0 +1,148 @@
+package com.checkin.service.impl;
+
+import com.checkin.cache.UserDirectory;
+import com.checkin.config.RedisConfig;
+import com.checkin.entity.CheckinSummary;
+import com.checkin.exception.BusinessException;
+import com.checkin.service.CheckinLeaderboardService.Board;
+import com.checkin.vo.LeaderboardEntryVO;
+import com.checkin.vo.LeaderboardVO;
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 排行榜读写（进程内Redis，jedis-mock只支持RESP2）
+ */
+public class CheckinLeaderboardServiceImplTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private CheckinLeaderboardServiceImpl service;
+    private LocalDate today;
+
+    @BeforeAll
+    public static void startRedis() throws IOException {
+        redisServer = RedisServer.newRedisServer();
+        redisServer.start();
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .clientOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP2).build())
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()), clientConfig);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    public static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    public void setup() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        UserDirectory userDirectory = new UserDirectory();
+        userDirectory.put(1L, "alice", 0);
+        userDirectory.put(2L, "bob", 0);
+        userDirectory.put(3L, "carol", 0);
+
+        service = new CheckinLeaderboardServiceImpl();
+        ReflectionTestUtils.setField(service, "userDirectory", userDirectory);
+        ReflectionTestUtils.setField(service, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(service, "monthExpireDays", 400);
+        today = LocalDate.now();
+    }
+
+    // 总榜按天数降序，本人名次从1开始
+    @Test
+    public void testTopAndRank() {
+        service.onSummaryUpdated(summary(1L, today.minusDays(4), today, 5, 9));
+        service.onSummaryUpdated(summary(2L, today.minusDays(9), today, 10, 10));
+        service.onSummaryUpdated(summary(3L, today.minusDays(1), today.minusDays(1), 1, 20));
+
+        LeaderboardVO current = service.getTop(Board.CURRENT, null, 2);
+        assertEquals(3, current.getTotal());
+        assertEquals(2, current.getEntries().size());
+        assertEquals(2L, current.getEntries().get(0).getUserId());
+        assertEquals("bob", current.getEntries().get(0).getUsername());
+        assertEquals(10, current.getEntries().get(0).getDays());
+        assertEquals(1L, current.getEntries().get(1).getUserId());
+
+        LeaderboardEntryVO carol = service.getRank(Board.LONGEST, null, 3L);
+        assertEquals(1L, carol.getRank());
+        assertEquals(20, carol.getDays());
+        assertNull(service.getRank(Board.CURRENT, null, 99L).getRank());
+    }
+
+    // 月榜只计该月内的天数；月度最长只升不降
+    @Test
+    public void testMonthBoards() {
+        YearMonth month = YearMonth.of(2024, 3);
+        LocalDate start = LocalDate.of(2024, 2, 20);
+        service.onSummaryUpdated(summary(1L, start, LocalDate.of(2024, 3, 5), 15, 15));
+        assertEquals(5, service.getRank(Board.LONGEST, month, 1L).getDays());
+
+        // 同月内后来的一段更短，不覆盖
+        service.onSummaryUpdated(summary(1L, LocalDate.of(2024, 3, 10), LocalDate.of(2024, 3, 11), 2, 15));
+        assertEquals(5, service.getRank(Board.LONGEST, month, 1L).getDays());
+        // 早已中断的连续不进入当前连续榜
+        assertNull(service.getRank(Board.CURRENT, null, 1L).getRank());
+    }
+
+    // 昨天没有打卡的用户被移出当前连续榜，最长榜不变
+    @Test
+    public void testRemoveBrokenStreaks() {
+        service.onSummaryUpdated(summary(1L, today.minusDays(3), today.minusDays(1), 3, 3));
+        service.onSummaryUpdated(summary(2L, today.minusDays(2), today, 3, 3));
+
+        assertEquals(0, service.removeBrokenStreaks(today));
+        assertEquals(1, service.removeBrokenStreaks(today.plusDays(1)));
+
+        assertNull(service.getRank(Board.CURRENT, null, 1L).getRank());
+        assertNull(service.getRank(Board.CURRENT, YearMonth.from(today.minusDays(1)), 1L).getRank());
+        assertEquals(1L, service.getRank(Board.CURRENT, null, 2L).getRank());
+        assertEquals(3, service.getRank(Board.LONGEST, null, 1L).getDays());
+    }
+
+    // 无Redis时写入静默跳过，查询报业务异常
+    @Test
+    public void testWithoutRedis() {
+        ReflectionTestUtils.setField(service, "redisTemplate", null);
+        service.onSummaryUpdated(summary(1L, today, today, 1, 1));
+        assertThrows(BusinessException.class, () -> service.getTop(Board.CURRENT, null, 10));
+        assertEquals(0, service.removeBrokenStreaks(today));
+    }
+
+    private static CheckinSummary summary(Long userId, LocalDate start, LocalDate last, int streak, int longest) {
+        CheckinSummary summary = new CheckinSummary();
+        summary.setUserId(userId);
+        summary.setStreakStartDate(start);
+        summary.setLastCheckinDate(last);
+        summary.setCurrentStreak(streak);
+        summary.setLongestStreak(longest);
+        return summary;
+    }
+}
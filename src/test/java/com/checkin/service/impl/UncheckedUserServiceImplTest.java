@@ -0,0 +1,122 @@
+package com.checkin.service.impl;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.checkin.config.ShardingConfig;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.mapper.UserMapper;
+import com.checkin.service.CheckinArchiveService;
+import com.checkin.shard.CheckinRecordShards;
+import com.checkin.shard.CheckinShard;
+import com.checkin.shard.ModuloShardFunction;
+import com.checkin.shard.ShardDirectory;
+import com.checkin.vo.UncheckedUserPageVO;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 未打卡用户计算（内存H2，无Redis时直接按数据库ID列表计算）
+ */
+public class UncheckedUserServiceImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private CheckinRecordShards shards;
+    private UncheckedUserServiceImpl uncheckedUserService;
+    private LocalDate archiveCutoff;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MybatisPlusProperties properties = new MybatisPlusProperties();
+        properties.setMapperLocations(new String[]{"classpath:mapper/**/*.xml"});
+        properties.setTypeAliasesPackage("com.checkin.entity");
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        properties.setConfiguration(configuration);
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:unchecked_" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        CheckinShard shard = ShardingConfig.createShard(0, dataSource, ShardingConfig.createSqlSession(dataSource, properties));
+        shards = new CheckinRecordShards(List.of(shard), new ModuloShardFunction(), new ShardDirectory());
+
+        // 用户1~4；本页用户详情不关心，selectList返回空
+        UserMapper userMapper = (UserMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "selectAllIds" -> List.of(1L, 2L, 3L, 4L);
+                    case "selectList" -> Collections.emptyList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        CheckinArchiveService archiveService = (CheckinArchiveService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CheckinArchiveService.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("archiveCutoff")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return archiveCutoff;
+                });
+
+        uncheckedUserService = new UncheckedUserServiceImpl();
+        ReflectionTestUtils.setField(uncheckedUserService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(uncheckedUserService, "checkinRecordShards", shards);
+        ReflectionTestUtils.setField(uncheckedUserService, "checkinArchiveService", archiveService);
+        archiveCutoff = DAY;
+    }
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+    }
+
+    // 热表中当天已打卡的用户不计入未打卡
+    @Test
+    public void testHotRecords() {
+        insert(1L, DAY);
+        insert(2L, DAY);
+        insert(3L, DAY.plusDays(1));
+
+        UncheckedUserPageVO page = uncheckedUserService.getUncheckedUsers(DAY, null, 10);
+        assertEquals(4, page.getTotalUsers());
+        assertEquals(2, page.getUncheckedCount());
+    }
+
+    // 早于归档分界的日期：已搬入归档表的记录同样算已打卡
+    @Test
+    public void testArchivedRecords() {
+        insert(1L, DAY);
+        insert(2L, DAY);
+        insert(3L, DAY);
+        archiveCutoff = DAY.plusMonths(1);
+        CheckinShard shard = shards.shard(0);
+        // 归档进行到一半：两条已搬走，一条还在热表
+        List<Long> ids = shard.getArchiveMapper().selectArchivableIds(archiveCutoff, 2);
+        shard.getArchiveMapper().copyToArchive(ids);
+        shard.getArchiveMapper().deleteFromHot(ids, archiveCutoff);
+
+        UncheckedUserPageVO page = uncheckedUserService.getUncheckedUsers(DAY, null, 10);
+        assertEquals(1, page.getUncheckedCount());
+    }
+
+    private void insert(Long userId, LocalDate date) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(date.atTime(8, 0));
+        record.setCheckinDate(date);
+        record.setLocation("教学楼");
+        record.setStatus(1);
+        record.setIsReissue(0);
+        shards.recordMapper(userId).insert(record);
+    }
+}
@@ -0,0 +1,164 @@
+package com.checkin.shard;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusProperties;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.checkin.config.ShardingConfig;
+import com.checkin.entity.CheckinRecord;
+import com.checkin.mapper.CheckinUserShardMapper;
+import com.checkin.service.impl.ShardMigrationServiceImpl;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 打卡记录分片（三个内存H2实例，按Flyway脚本建表，分片0同时保存分片目录）
+ */
+public class CheckinRecordShardsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private ShardDirectory directory;
+    private CheckinRecordShards shards;
+    private ShardMigrationServiceImpl migration;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MybatisPlusProperties properties = new MybatisPlusProperties();
+        properties.setMapperLocations(new String[]{"classpath:mapper/**/*.xml"});
+        properties.setTypeAliasesPackage("com.checkin.entity");
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        properties.setConfiguration(configuration);
+
+        String suffix = UUID.randomUUID().toString();
+        List<CheckinShard> list = new ArrayList<>();
+        SqlSessionTemplate primarySession = null;
+        for (int i = 0; i < 3; i++) {
+            JdbcDataSource dataSource = database("shard" + i + "_" + suffix);
+            SqlSessionTemplate session = ShardingConfig.createSqlSession(dataSource, properties);
+            if (i == 0) {
+                // 目录Mapper没有XML，需单独注册（应用中由@MapperScan注册）
+                session.getConfiguration().addMapper(CheckinUserShardMapper.class);
+                primarySession = session;
+            }
+            list.add(ShardingConfig.createShard(i, dataSource, session));
+        }
+        directory = new ShardDirectory();
+        ReflectionTestUtils.setField(directory, "checkinUserShardMapper", primarySession.getMapper(CheckinUserShardMapper.class));
+        shards = new CheckinRecordShards(list, new ModuloShardFunction(), directory);
+
+        migration = new ShardMigrationServiceImpl();
+        ReflectionTestUtils.setField(migration, "checkinRecordShards", shards);
+        ReflectionTestUtils.setField(migration, "shardDirectory", directory);
+        ReflectionTestUtils.setField(migration, "moveSettleMs", 0L);
+    }
+
+    @AfterEach
+    public void teardown() {
+        shards.close();
+    }
+
+    // 默认按用户ID取模；分片目录中的用户按目录定位，迁移中的用户不可写
+    @Test
+    public void testRouting() {
+        assertEquals(0, shards.shardOf(3L));
+        assertEquals(1, shards.shardOf(4L));
+        assertEquals(2, shards.shardOf(5L));
+
+        directory.save(4L, 2, true);
+        assertEquals(2, shards.shardOf(4L));
+        assertEquals(1, shards.homeOf(4L));
+        assertTrue(shards.isMoving(4L));
+
+        // 重新加载后与数据库一致
+        assertEquals(1, directory.reload());
+        assertEquals(2, shards.shardOf(4L));
+        directory.remove(4L);
+        assertEquals(0, directory.reload());
+        assertEquals(1, shards.shardOf(4L));
+        assertFalse(shards.isMoving(4L));
+    }
+
+    // 全局查询在每个分片执行后合并
+    @Test
+    public void testFanOut() {
+        for (long userId = 3; userId <= 5; userId++) {
+            insert(userId, DAY);
+        }
+        List<Long> checked = new ArrayList<>();
+        shards.fanOut(shard -> shard.getRecordMapper().selectCheckedUserIds(DAY)).forEach(checked::addAll);
+        checked.sort(null);
+        assertEquals(List.of(3L, 4L, 5L), checked);
+
+        for (int i = 0; i < shards.size(); i++) {
+            assertEquals(1L, shards.shard(i).getRecordMapper().selectCount(null));
+        }
+    }
+
+    // 迁移：记录（含归档）搬到目标分片并获得新ID，原分片清空；搬回分片函数所算分片后目录项删除
+    @Test
+    public void testMoveUsers() {
+        insert(4L, DAY);
+        insert(4L, DAY.plusDays(1));
+        CheckinShard source = shards.shard(1);
+        List<Long> ids = source.getArchiveMapper().selectArchivableIds(DAY.plusDays(1), 10);
+        assertEquals(1, source.getArchiveMapper().copyToArchive(ids));
+        assertEquals(1, source.getArchiveMapper().deleteFromHot(ids, DAY.plusDays(1)));
+
+        assertEquals(2, migration.moveUsers(List.of(4L), 2));
+        assertEquals(2, shards.shardOf(4L));
+        assertFalse(shards.isMoving(4L));
+        assertEquals(0L, source.getRecordMapper().selectCount(null));
+        assertEquals(0L, source.getArchiveMapper().countByUserId(4L));
+        List<CheckinRecord> moved = shards.recordMapper(4L).selectList(new QueryWrapper<CheckinRecord>()
+                .eq("user_id", 4L).orderByAsc("checkin_date"));
+        assertEquals(List.of(DAY, DAY.plusDays(1)), moved.stream().map(CheckinRecord::getCheckinDate).toList());
+
+        assertEquals(2, migration.moveUsers(List.of(4L), 1));
+        assertNull(directory.get(4L));
+        assertEquals(1, shards.shardOf(4L));
+        assertEquals(0L, shards.shard(2).getRecordMapper().selectCount(null));
+        assertEquals(2L, source.getRecordMapper().selectCount(null));
+    }
+
+    // 同一用户同一天的第二条记录被唯一键拒绝（打卡闸门不可用时的兜底），不同用户、不同日期不受影响
+    @Test
+    public void testSameDayInsertIsRejectedByUniqueKey() {
+        insert(5L, DAY);
+        insert(5L, DAY.plusDays(1));
+        insert(6L, DAY);
+        assertThrows(DuplicateKeyException.class, () -> insert(5L, DAY));
+        assertEquals(2L, shards.recordMapper(5L).selectCount(new QueryWrapper<CheckinRecord>().eq("user_id", 5L)));
+    }
+
+    private void insert(Long userId, LocalDate date) {
+        CheckinRecord record = new CheckinRecord();
+        record.setUserId(userId);
+        record.setCheckinTime(date.atTime(8, 0));
+        record.setCheckinDate(date);
+        record.setLocation("教学楼");
+        record.setStatus(1);
+        record.setIsReissue(0);
+        shards.recordMapper(userId).insert(record);
+    }
+
+    private static JdbcDataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        return dataSource;
+    }
+}
@@ -0,0 +1,29 @@
+package com.checkin.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckinCursorUtilsTest {
+
+    // 编码后解码得到原始位置（含毫秒）
+    @Test
+    public void testRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2025, 12, 20, 7, 55, 3, 123_000_000);
+        String cursor = CheckinCursorUtils.encode(time, 42L);
+        assertFalse(cursor.contains("=") || cursor.contains("+") || cursor.contains("/"));
+
+        CheckinCursorUtils.Cursor position = CheckinCursorUtils.decode(cursor);
+        assertEquals(time, position.getCheckinTime());
+        assertEquals(42L, position.getId());
+    }
+
+    // 被篡改的游标抛出IllegalArgumentException
+    @Test
+    public void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> CheckinCursorUtils.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> CheckinCursorUtils.decode("@@@"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.checkin.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckinDaysTest {
+
+    // 乱序、重复输入排序去重；升序追加时相邻去重
+    @Test
+    public void testSortAndDistinct() {
+        CheckinDays days = CheckinDays.of(List.of(
+                LocalDate.of(2025, 3, 2), LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1)));
+        assertEquals(3, days.size());
+        assertEquals(LocalDate.of(2025, 2, 28).toEpochDay(), days.get(0));
+        assertEquals(LocalDate.of(2025, 3, 2).toEpochDay(), days.get(2));
+        assertTrue(days.contains(LocalDate.of(2025, 3, 1)));
+        assertFalse(days.contains(LocalDate.of(2025, 3, 3)));
+
+        CheckinDays.Collector collector = CheckinDays.collector();
+        for (int day = 0; day < 1000; day++) {
+            collector.add(day);
+            collector.add(day);
+        }
+        assertEquals(1000, collector.build().size());
+        assertTrue(CheckinDays.collector().build().isEmpty());
+    }
+
+    // 月/年位掩码只包含该月的日期，第(日-1)位
+    @Test
+    public void testMonthAndYearMasks() {
+        CheckinDays days = CheckinDays.of(List.of(
+                LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), LocalDate.of(2025, 2, 1)));
+        assertEquals(1 | 1 << 30, days.monthMask(YearMonth.of(2025, 1)));
+        assertEquals(1, days.monthMask(YearMonth.of(2025, 2)));
+        assertEquals(0, days.monthMask(YearMonth.of(2025, 3)));
+
+        int[] masks = days.yearMasks(2025);
+        assertEquals(1 | 1 << 30, masks[0]);
+        assertEquals(1, masks[1]);
+        assertEquals(1 << 30, days.yearMasks(2024)[11]);
+    }
+}
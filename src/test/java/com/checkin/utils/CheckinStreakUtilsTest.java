@@ -0,0 +1,91 @@
+package com.checkin.utils;
+
+import com.checkin.entity.CheckinSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckinStreakUtilsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 12, 20);
+
+    // 从空汇总开始逐天增量合并，结果应与全量重建一致
+    @Test
+    public void testIncrementalMatchesRebuild() {
+        List<LocalDate> dates = List.of(
+                TODAY.minusDays(10), TODAY.minusDays(9), TODAY.minusDays(7),
+                TODAY.minusDays(3), TODAY.minusDays(2), TODAY.minusDays(1), TODAY);
+        CheckinSummary summary = CheckinStreakUtils.rebuild(1L, List.of(), TODAY);
+        for (LocalDate date : dates) {
+            assertTrue(CheckinStreakUtils.applyCheckin(summary, date));
+        }
+        assertSameStats(CheckinStreakUtils.rebuild(1L, dates, TODAY), summary);
+        assertEquals(4, CheckinStreakUtils.effectiveStreak(summary, TODAY));
+    }
+
+    // 补卡填平两段之间唯一的缺口，两段应合并
+    @Test
+    public void testReissueBridgesTwoStreaks() {
+        List<LocalDate> dates = new ArrayList<>(List.of(
+                TODAY.minusDays(6), TODAY.minusDays(5), TODAY.minusDays(4),
+                TODAY.minusDays(2), TODAY.minusDays(1), TODAY));
+        CheckinSummary summary = CheckinStreakUtils.rebuild(1L, dates, TODAY);
+        assertEquals(3, summary.getCurrentStreak());
+
+        assertTrue(CheckinStreakUtils.applyCheckin(summary, TODAY.minusDays(3)));
+        assertEquals(7, summary.getCurrentStreak());
+        assertEquals(7, summary.getLongestStreak());
+        assertEquals(TODAY.minusDays(6), summary.getStreakStartDate());
+
+        dates.add(TODAY.minusDays(3));
+        assertSameStats(CheckinStreakUtils.rebuild(1L, new TreeSet<>(dates).stream().toList(), TODAY), summary);
+    }
+
+    // 补卡延长前一段、或在两段之间新开一段
+    @Test
+    public void testReissueBeforeCurrentStreak() {
+        List<LocalDate> dates = new ArrayList<>(List.of(TODAY.minusDays(8), TODAY.minusDays(1), TODAY));
+        CheckinSummary summary = CheckinStreakUtils.rebuild(1L, dates, TODAY);
+
+        for (LocalDate date : List.of(TODAY.minusDays(7), TODAY.minusDays(4), TODAY.minusDays(2))) {
+            assertTrue(CheckinStreakUtils.applyCheckin(summary, date));
+            dates.add(date);
+            assertSameStats(CheckinStreakUtils.rebuild(1L, new TreeSet<>(dates).stream().toList(), TODAY), summary);
+        }
+    }
+
+    // 合并后前一段未知，再补更早的日期需要重建
+    @Test
+    public void testUnknownPreviousStreakRequiresRebuild() {
+        CheckinSummary summary = CheckinStreakUtils.rebuild(1L,
+                List.of(TODAY.minusDays(5), TODAY.minusDays(3), TODAY.minusDays(1)), TODAY);
+        assertTrue(CheckinStreakUtils.applyCheckin(summary, TODAY.minusDays(2)));
+        assertEquals(CheckinStreakUtils.PREV_UNKNOWN, summary.getPrevStreak());
+        assertFalse(CheckinStreakUtils.applyCheckin(summary, TODAY.minusDays(4)));
+    }
+
+    // 重复合并同一天不应重复计数；断签后连续天数为0
+    @Test
+    public void testIdempotentAndExpiredStreak() {
+        CheckinSummary summary = CheckinStreakUtils.rebuild(1L, List.of(TODAY.minusDays(3), TODAY.minusDays(2)), TODAY);
+        assertTrue(CheckinStreakUtils.applyCheckin(summary, TODAY.minusDays(2)));
+        assertEquals(2, summary.getTotalDays());
+        assertEquals(0, CheckinStreakUtils.effectiveStreak(summary, TODAY));
+        assertEquals(2, CheckinStreakUtils.effectiveMonthDays(summary, TODAY));
+        assertEquals(0, CheckinStreakUtils.effectiveMonthDays(summary, TODAY.plusMonths(1)));
+    }
+
+    private static void assertSameStats(CheckinSummary expected, CheckinSummary actual) {
+        assertEquals(expected.getCurrentStreak(), actual.getCurrentStreak());
+        assertEquals(expected.getStreakStartDate(), actual.getStreakStartDate());
+        assertEquals(expected.getLastCheckinDate(), actual.getLastCheckinDate());
+        assertEquals(expected.getLongestStreak(), actual.getLongestStreak());
+        assertEquals(expected.getTotalDays(), actual.getTotalDays());
+        assertEquals(expected.getMonthDays(), actual.getMonthDays());
+    }
+}
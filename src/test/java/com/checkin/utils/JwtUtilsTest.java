@@ -0,0 +1,71 @@
+package com.checkin.utils;
+
+import com.checkin.entity.User;
+import com.checkin.security.CheckinPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    public void setUp() {
+        jwtUtils = newJwtUtils("testSecretKeyForCheckinSystem!@#$%^&*()", 60_000L);
+    }
+
+    // 一次校验取出用户ID、用户名、角色和过期时间
+    @Test
+    public void testVerify() {
+        String token = jwtUtils.generateToken(user(7L, "alice", 1));
+        JwtUtils.VerifiedToken verified = jwtUtils.verify(token);
+        assertNotNull(verified);
+        CheckinPrincipal principal = verified.getPrincipal();
+        assertEquals(7L, principal.getUserId());
+        assertEquals("alice", principal.getUsername());
+        assertTrue(principal.isAdmin());
+        assertEquals("ROLE_ADMIN", principal.getAuthorities().get(0).getAuthority());
+        assertTrue(verified.getExpiresAtMillis() > System.currentTimeMillis());
+
+        CheckinPrincipal normal = jwtUtils.verify(jwtUtils.generateToken(user(8L, "bob", null))).getPrincipal();
+        assertFalse(normal.isAdmin());
+        assertEquals("ROLE_USER", normal.getAuthorities().get(0).getAuthority());
+        assertTrue(jwtUtils.validateToken(token, "alice"));
+        assertFalse(jwtUtils.validateToken(token, "bob"));
+    }
+
+    // 篡改、其他密钥签发、已过期的token均校验失败
+    @Test
+    public void testRejectInvalidTokens() {
+        String token = jwtUtils.generateToken(user(7L, "alice", 0));
+        assertNull(jwtUtils.verify(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(jwtUtils.verify("not.a.token"));
+        assertNull(jwtUtils.verify(null));
+
+        JwtUtils other = newJwtUtils("anotherSecretKeyForCheckinSystem!@#$%^&*", 60_000L);
+        assertNull(jwtUtils.verify(other.generateToken(user(7L, "alice", 0))));
+
+        JwtUtils expired = newJwtUtils("testSecretKeyForCheckinSystem!@#$%^&*()", -1_000L);
+        assertNull(jwtUtils.verify(expired.generateToken(user(7L, "alice", 0))));
+        assertFalse(jwtUtils.validateToken(expired.generateToken(user(7L, "alice", 0))));
+    }
+
+    private static User user(Long id, String username, Integer role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        return user;
+    }
+
+    private static JwtUtils newJwtUtils(String secret, long expiration) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "secret", secret);
+        ReflectionTestUtils.setField(utils, "expiration", expiration);
+        utils.init();
+        return utils;
+    }
+}